@@ -0,0 +1,90 @@
+package com.example.Productos.benchmark;
+
+import com.example.Productos.ProductosApplication;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.service.ProductoService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.framework.Advised;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contexto de Spring compartido por los benchmarks, con H2 embebida y un catálogo de prueba
+ */
+@State(Scope.Benchmark)
+public class ContextoBenchmark {
+
+    static final int TAMANO_CATALOGO = 10_000;
+    private static final int TAMANO_LOTE = 5_000;
+
+    ConfigurableApplicationContext contexto;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(ProductosApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        // Argumentos de línea de comandos para que prevalezcan sobre application.properties
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+
+        ProductoService productoService = contexto.getBean(ProductoService.class);
+        for (int inicio = 0; inicio < TAMANO_CATALOGO; inicio += TAMANO_LOTE) {
+            List<Producto> lote = new ArrayList<>(TAMANO_LOTE);
+            for (int i = inicio; i < inicio + TAMANO_LOTE; i++) {
+                lote.add(crearProducto(i));
+            }
+            productoService.guardarProductosEnLote(lote);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    <T> T getBean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    /**
+     * Obtiene el objeto real detrás del proxy transaccional, para invocar sus métodos privados
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getObjetivo(Class<? super T> tipo) throws Exception {
+        Object bean = contexto.getBean(tipo);
+        if (bean instanceof Advised advised) {
+            return (T) advised.getTargetSource().getTarget();
+        }
+        return (T) bean;
+    }
+
+    static String codigo(int indice) {
+        return String.format("PROD-%06d", indice);
+    }
+
+    static Producto crearProducto(int indice) {
+        Producto producto = new Producto();
+        producto.setCodigo(codigo(indice));
+        producto.setNombre("Producto de prueba número " + indice);
+        producto.setDescripcion("Descripción del producto " + indice + " para el catálogo de benchmarks");
+        producto.setPrecio(10.0 + (indice % 500));
+        producto.setCantidad(indice % 1000);
+        producto.setImg("https://cdn.example.com/productos/" + indice + ".jpg");
+        return producto;
+    }
+}
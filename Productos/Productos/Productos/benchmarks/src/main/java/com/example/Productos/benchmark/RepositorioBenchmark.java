@@ -0,0 +1,84 @@
+package com.example.Productos.benchmark;
+
+import com.example.Productos.entity.Producto;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.service.ProductoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas de ProductoRepository contra H2 embebida, y las mismas lecturas a través del servicio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositorioBenchmark {
+
+    private ProductoRepository productoRepository;
+    private ProductoService productoService;
+
+    @Setup
+    public void preparar(ContextoBenchmark contexto) {
+        productoRepository = contexto.getBean(ProductoRepository.class);
+        productoService = contexto.getBean(ProductoService.class);
+    }
+
+    @Benchmark
+    public Optional<Producto> repositorioFindById() {
+        return productoRepository.findById(idAleatorio());
+    }
+
+    @Benchmark
+    public Optional<Producto> repositorioFindByCodigo() {
+        return productoRepository.findByCodigo(ContextoBenchmark.codigo(indiceAleatorio()));
+    }
+
+    @Benchmark
+    public boolean repositorioExistsByCodigo() {
+        return productoRepository.existsByCodigo(ContextoBenchmark.codigo(indiceAleatorio()));
+    }
+
+    @Benchmark
+    public List<Producto> repositorioFindByNombreContaining() {
+        return productoRepository.findByNombreContainingIgnoreCase("número " + indiceAleatorio());
+    }
+
+    @Benchmark
+    public List<Producto> repositorioPaginaPorCursor() {
+        return productoRepository.findByActivoTrueAndIdGreaterThanOrderByIdAsc((long) indiceAleatorio(), Limit.of(100));
+    }
+
+    @Benchmark
+    public Optional<Producto> servicioObtenerPorId() {
+        return productoService.obtenerProductoPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public Optional<Producto> servicioObtenerPorCodigo() {
+        return productoService.obtenerProductoPorCodigo(ContextoBenchmark.codigo(indiceAleatorio()));
+    }
+
+    @Benchmark
+    public Object servicioBuscar() {
+        return productoService.buscarProductos("número " + indiceAleatorio(), 0, 20);
+    }
+
+    private int indiceAleatorio() {
+        return ThreadLocalRandom.current().nextInt(ContextoBenchmark.TAMANO_CATALOGO);
+    }
+
+    private long idAleatorio() {
+        return indiceAleatorio() + 1L;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.Productos.benchmark;
+
+import com.example.Productos.controller.ProductoController;
+import com.example.Productos.entity.Producto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.ObjectMapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envoltura de la respuesta con crearRespuestaExito y serialización JSON de listas de productos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializacionBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int tamano;
+
+    private ProductoController controlador;
+    private MethodHandle crearRespuestaExito;
+    private ObjectMapper objectMapper;
+    private List<Producto> productos;
+
+    @Setup
+    public void preparar(ContextoBenchmark contexto) throws Exception {
+        controlador = contexto.getObjetivo(ProductoController.class);
+        objectMapper = contexto.getBean(ObjectMapper.class);
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ProductoController.class, MethodHandles.lookup());
+        crearRespuestaExito = lookup.findVirtual(ProductoController.class, "crearRespuestaExito",
+                MethodType.methodType(Map.class, String.class, Object.class));
+
+        productos = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Producto producto = ContextoBenchmark.crearProducto(i);
+            producto.setId((long) i + 1);
+            productos.add(producto);
+        }
+    }
+
+    @Benchmark
+    public byte[] envolverYSerializar() throws Throwable {
+        Map<?, ?> respuesta = (Map<?, ?>) crearRespuestaExito.invokeExact(controlador,
+                "Productos obtenidos exitosamente", (Object) productos);
+        return objectMapper.writeValueAsBytes(respuesta);
+    }
+
+    @Benchmark
+    public byte[] serializarLista() {
+        return objectMapper.writeValueAsBytes(productos);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.Productos.benchmark;
+
+import com.example.Productos.entity.Producto;
+import com.example.Productos.validator.ProductoValidador;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validaciones de ProductoValidador (camino exitoso), sin acceso a base de datos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidacionBenchmark {
+
+    private ProductoValidador validador;
+
+    private final String codigo = "PROD-000123";
+    private final String nombre = "  Producto de prueba número 123  ";
+    private Producto producto;
+
+    @Setup
+    public void preparar(ContextoBenchmark contexto) {
+        validador = contexto.getBean(ProductoValidador.class);
+        producto = ContextoBenchmark.crearProducto(123);
+    }
+
+    @Benchmark
+    public void validarCodigo() {
+        validador.validarCodigo(codigo);
+    }
+
+    @Benchmark
+    public void validarNombre() {
+        validador.validarNombre(nombre);
+    }
+
+    @Benchmark
+    public void validarProductoParaCreacion() {
+        validador.validarParaCreacion(producto);
+    }
+}
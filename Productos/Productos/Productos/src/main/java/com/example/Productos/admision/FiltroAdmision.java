@@ -0,0 +1,174 @@
+package com.example.Productos.admision;
+
+import com.example.Productos.admision.LimiteAdaptativo.Prioridad;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Control de admisión para /api/productos: las solicitudes que exceden el límite adaptativo se rechazan
+ * de inmediato con 503 y Retry-After, en lugar de esperar un hilo de Tomcat o una conexión de Hikari.
+ * Las lecturas por ID, código y existencia son ligeras; el resto (listados, búsquedas, escrituras) son pesadas.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "productos.admision.habilitada", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class FiltroAdmision extends OncePerRequestFilter implements MeterBinder {
+
+    private static final String RUTA_BASE = "/api/productos";
+
+    private final LimiteAdaptativo limite;
+    private final ObjectMapper objectMapper;
+    private final String reintentarDespues;
+
+    public FiltroAdmision(ObjectMapper objectMapper,
+                          @Value("${productos.admision.limite-inicial:20}") int inicial,
+                          @Value("${productos.admision.limite-minimo:4}") int minimo,
+                          @Value("${productos.admision.limite-maximo:200}") int maximo,
+                          @Value("${productos.admision.factor-reduccion:0.9}") double factorReduccion,
+                          @Value("${productos.admision.fraccion-pesadas:0.7}") double fraccionPesadas,
+                          @Value("${productos.admision.latencia-objetivo-ligeras:50ms}") Duration objetivoLigeras,
+                          @Value("${productos.admision.latencia-objetivo-pesadas:500ms}") Duration objetivoPesadas,
+                          @Value("${productos.admision.reintentar-despues:1s}") Duration reintentarDespues) {
+        log.info("Inicializando control de admisión (límite inicial: {}, entre {} y {})", inicial, minimo, maximo);
+        this.objectMapper = objectMapper;
+        this.limite = new LimiteAdaptativo(inicial, minimo, maximo, factorReduccion, fraccionPesadas,
+                objetivoLigeras, objetivoPesadas);
+        this.reintentarDespues = String.valueOf(Math.max(1, reintentarDespues.toSeconds()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = rutaRelativa(request);
+        return !ruta.equals(RUTA_BASE) && !ruta.startsWith(RUTA_BASE + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Prioridad prioridad = clasificar(request.getMethod(), rutaRelativa(request));
+        if (!limite.adquirir(prioridad)) {
+            rechazar(response);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean asincrona = false;
+        try {
+            filterChain.doFilter(request, response);
+            asincrona = request.isAsyncStarted();
+        } finally {
+            if (asincrona) {
+                // Streaming: se libera al terminar, sin usar su duración para ajustar el límite
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limite.liberar(prioridad, -1);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                limite.liberar(prioridad, System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    /**
+     * Lecturas por clave (GET /{id}, /codigo/{codigo}, /existe/{codigo}) son ligeras; todo lo demás, pesado
+     */
+    static Prioridad clasificar(String metodo, String ruta) {
+        if (!HttpMethod.GET.matches(metodo) || ruta.length() <= RUTA_BASE.length() + 1) {
+            return Prioridad.PESADA;
+        }
+
+        String resto = ruta.substring(RUTA_BASE.length() + 1);
+        int separador = resto.indexOf('/');
+        if (separador < 0) {
+            return esNumero(resto) ? Prioridad.LIGERA : Prioridad.PESADA;
+        }
+        String recurso = resto.substring(0, separador);
+        boolean unSegmento = separador < resto.length() - 1 && resto.indexOf('/', separador + 1) < 0;
+        return unSegmento && (recurso.equals("codigo") || recurso.equals("existe"))
+                ? Prioridad.LIGERA
+                : Prioridad.PESADA;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("productos.admision.limite", limite, LimiteAdaptativo::getLimite)
+                .description("Solicitudes concurrentes admitidas según la latencia observada")
+                .register(registry);
+        for (Prioridad prioridad : Prioridad.values()) {
+            Gauge.builder("productos.admision.en-curso", limite, l -> l.enCurso(prioridad))
+                    .tag("prioridad", prioridad.getEtiqueta())
+                    .register(registry);
+            FunctionCounter.builder("productos.admision.rechazadas", limite, l -> l.rechazadas(prioridad))
+                    .description("Solicitudes rechazadas con 503 por exceder el límite")
+                    .tag("prioridad", prioridad.getEtiqueta())
+                    .register(registry);
+        }
+    }
+
+    private void rechazar(HttpServletResponse response) throws IOException {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("titulo", "Servicio saturado");
+        respuesta.put("mensaje", "Demasiadas solicitudes en curso, reintente en " + reintentarDespues + " s");
+        respuesta.put("estado", "error");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, reintentarDespues);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(respuesta));
+    }
+
+    private static String rutaRelativa(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static boolean esNumero(String segmento) {
+        if (segmento.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < segmento.length(); i++) {
+            if (!Character.isDigit(segmento.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.Productos.admision;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de solicitudes concurrentes que se ajusta con la latencia observada (AIMD):
+ * cada solicitud dentro de la latencia objetivo de su prioridad suma 1/límite (un punto por ventana completa)
+ * y una que la excede lo multiplica por el factor de reducción, como máximo una vez por ventana de reducción.
+ * Las pesadas solo ocupan una fracción del límite, de modo que bajo carga se rechazan antes que las ligeras.
+ */
+public class LimiteAdaptativo {
+
+    /**
+     * Prioridad de admisión según el costo de la solicitud
+     */
+    public enum Prioridad {
+        // Lecturas por clave: caché o una consulta por índice único
+        LIGERA("ligera"),
+        // Listados, búsquedas, filtros y escrituras
+        PESADA("pesada");
+
+        private final String etiqueta;
+
+        Prioridad(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        public String getEtiqueta() {
+            return etiqueta;
+        }
+    }
+
+    private final double minimo;
+    private final double maximo;
+    private final double factorReduccion;
+    private final double fraccionPesadas;
+    private final long ventanaReduccionNanos;
+    private final Map<Prioridad, Long> objetivoNanos = new EnumMap<>(Prioridad.class);
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final Map<Prioridad, AtomicInteger> enCursoPorPrioridad = new EnumMap<>(Prioridad.class);
+    private final Map<Prioridad, LongAdder> rechazadas = new EnumMap<>(Prioridad.class);
+
+    // Solo quien obtiene el bloqueo ajusta el límite; si está ocupado la muestra se descarta
+    private final ReentrantLock ajuste = new ReentrantLock();
+    private volatile double limite;
+    private long ultimaReduccion;
+
+    public LimiteAdaptativo(int inicial, int minimo, int maximo, double factorReduccion, double fraccionPesadas,
+                            Duration objetivoLigeras, Duration objetivoPesadas) {
+        if (minimo < 1 || minimo > inicial || inicial > maximo) {
+            throw new IllegalArgumentException("Se requiere 1 <= mínimo <= inicial <= máximo");
+        }
+        if (factorReduccion <= 0 || factorReduccion >= 1) {
+            throw new IllegalArgumentException("El factor de reducción debe estar entre 0 y 1");
+        }
+        if (fraccionPesadas <= 0 || fraccionPesadas > 1) {
+            throw new IllegalArgumentException("La fracción para solicitudes pesadas debe estar entre 0 y 1");
+        }
+        this.limite = inicial;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.factorReduccion = factorReduccion;
+        this.fraccionPesadas = fraccionPesadas;
+        this.objetivoNanos.put(Prioridad.LIGERA, objetivoLigeras.toNanos());
+        this.objetivoNanos.put(Prioridad.PESADA, objetivoPesadas.toNanos());
+        // Tras una reducción, las solicitudes que ya estaban en curso todavía reflejan la carga anterior
+        this.ventanaReduccionNanos = Math.max(objetivoLigeras.toNanos(), objetivoPesadas.toNanos());
+        this.ultimaReduccion = System.nanoTime() - ventanaReduccionNanos;
+        for (Prioridad prioridad : Prioridad.values()) {
+            enCursoPorPrioridad.put(prioridad, new AtomicInteger());
+            rechazadas.put(prioridad, new LongAdder());
+        }
+    }
+
+    /**
+     * Reservar un lugar sin esperar
+     * @return false si la solicitud debe rechazarse
+     */
+    public boolean adquirir(Prioridad prioridad) {
+        int permitidas = permitidas(prioridad);
+        int actual;
+        do {
+            actual = enCurso.get();
+            if (actual >= permitidas) {
+                rechazadas.get(prioridad).increment();
+                return false;
+            }
+        } while (!enCurso.compareAndSet(actual, actual + 1));
+        enCursoPorPrioridad.get(prioridad).incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Liberar el lugar y ajustar el límite con la latencia de la solicitud
+     * @param duracionNanos Latencia a considerar, o un valor negativo para no ajustar (por ejemplo en streaming)
+     */
+    public void liberar(Prioridad prioridad, long duracionNanos) {
+        int ocupadas = enCurso.getAndDecrement();
+        enCursoPorPrioridad.get(prioridad).decrementAndGet();
+        if (duracionNanos < 0 || !ajuste.tryLock()) {
+            return;
+        }
+        try {
+            double actual = limite;
+            if (duracionNanos > objetivoNanos.get(prioridad)) {
+                long ahora = System.nanoTime();
+                if (ahora - ultimaReduccion >= ventanaReduccionNanos) {
+                    limite = Math.max(minimo, actual * factorReduccion);
+                    ultimaReduccion = ahora;
+                }
+            } else if (ocupadas * 2 >= actual) {
+                // Solo crece si el límite se está usando; en reposo no hay evidencia de que más concurrencia sirva
+                limite = Math.min(maximo, actual + 1 / actual);
+            }
+        } finally {
+            ajuste.unlock();
+        }
+    }
+
+    public double getLimite() {
+        return limite;
+    }
+
+    public int enCurso(Prioridad prioridad) {
+        return enCursoPorPrioridad.get(prioridad).get();
+    }
+
+    public long rechazadas(Prioridad prioridad) {
+        return rechazadas.get(prioridad).sum();
+    }
+
+    /**
+     * Lugares que puede ocupar la prioridad: el límite completo las ligeras, una fracción las pesadas
+     */
+    int permitidas(Prioridad prioridad) {
+        double actual = limite;
+        return prioridad == Prioridad.LIGERA
+                ? (int) actual
+                : Math.max(1, (int) (actual * fraccionPesadas));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.Productos.cache;
+
+import com.example.Productos.config.LecturaPropiasEscrituras;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalescencia de consultas (single-flight): las lecturas idénticas que llegan mientras otra está en curso
+ * esperan su resultado en lugar de ir a la base de datos. Cada clave tiene su propia entrada en un
+ * ConcurrentHashMap, por lo que consultas con claves distintas no compiten por ningún bloqueo.
+ * Las lecturas por ID y código pasan por aquí antes de la carga de Caffeine, que no limita la espera
+ * ni cuenta las lecturas colapsadas.
+ */
+@Component
+@Slf4j
+public class ConsultasEnCurso implements MeterBinder {
+
+    /**
+     * Tipos de consulta coalescibles; cada uno lleva sus propios contadores
+     */
+    public enum Operacion {
+        POR_ID("porId"),
+        POR_CODIGO("porCodigo"),
+        POR_NOMBRE("porNombre"),
+        BUSQUEDA("busqueda");
+
+        private final String etiqueta;
+
+        Operacion(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    // La generación separa las consultas iniciadas antes y después del último cambio de un producto
+    private record Clave(Operacion operacion, Object valor, long generacion) {
+    }
+
+    private static final class Contadores {
+        private final LongAdder ejecutadas = new LongAdder();
+        private final LongAdder colapsadas = new LongAdder();
+        private final LongAdder expiradas = new LongAdder();
+    }
+
+    private final ConcurrentHashMap<Clave, CompletableFuture<Object>> consultas = new ConcurrentHashMap<>();
+    private final Map<Operacion, Contadores> contadores = new EnumMap<>(Operacion.class);
+    private final AtomicLong generacion = new AtomicLong();
+    private final long tiempoEsperaNanos;
+
+    public ConsultasEnCurso(@Value("${productos.coalescencia.tiempo-espera:2s}") Duration tiempoEspera) {
+        log.info("Inicializando coalescencia de consultas (tiempo de espera: {})", tiempoEspera);
+        this.tiempoEsperaNanos = tiempoEspera.toNanos();
+        for (Operacion operacion : Operacion.values()) {
+            contadores.put(operacion, new Contadores());
+        }
+    }
+
+    /**
+     * Ejecutar la consulta, o esperar el resultado de una idéntica que ya esté en curso
+     * @throws QueryTimeoutException Si la consulta en curso no termina dentro del tiempo de espera
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T ejecutar(Operacion operacion, Object clave, Supplier<T> consulta) {
+        Contadores contador = contadores.get(operacion);
+        if (LecturaPropiasEscrituras.requierePrimario()) {
+            // La consulta en curso pudo ir a una réplica que aún no tiene lo que este hilo escribió
+            contador.ejecutadas.increment();
+            return consulta.get();
+        }
+
+        Clave llave = new Clave(operacion, clave, generacion.get());
+        CompletableFuture<Object> propia = new CompletableFuture<>();
+        CompletableFuture<Object> enCurso = consultas.putIfAbsent(llave, propia);
+
+        if (enCurso != null) {
+            contador.colapsadas.increment();
+            return (T) esperar(enCurso, contador, llave);
+        }
+
+        contador.ejecutadas.increment();
+        T resultado;
+        try {
+            resultado = consulta.get();
+        } catch (RuntimeException | Error e) {
+            consultas.remove(llave, propia);
+            propia.completeExceptionally(e);
+            throw e;
+        }
+        // Se retira antes de completar: quien llegue después inicia una consulta nueva
+        consultas.remove(llave, propia);
+        propia.complete(resultado);
+        return resultado;
+    }
+
+    /**
+     * Tras el cambio de un producto, las lecturas siguientes no se unen a las consultas ya en curso,
+     * que pueden devolver el valor anterior. Cualquier búsqueda puede incluir el producto, así que se
+     * avanza la generación en lugar de recorrer el mapa; cada consulta anterior retira su entrada al terminar.
+     * Las lecturas por ID y código de otros productos solo pierden la coalescencia con las ya en curso.
+     */
+    public void olvidar() {
+        generacion.incrementAndGet();
+    }
+
+    /**
+     * Registrar consultas ejecutadas, colapsadas y expiradas por operación
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        contadores.forEach((operacion, contador) -> {
+            registrar(registry, operacion, "ejecutadas", contador.ejecutadas);
+            registrar(registry, operacion, "colapsadas", contador.colapsadas);
+            registrar(registry, operacion, "expiradas", contador.expiradas);
+        });
+    }
+
+    private Object esperar(CompletableFuture<Object> enCurso, Contadores contador, Clave llave) {
+        try {
+            return enCurso.get(tiempoEsperaNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            contador.expiradas.increment();
+            throw new QueryTimeoutException("Tiempo de espera agotado para la consulta " + llave.operacion().etiqueta
+                    + ": " + llave.valor());
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException excepcion) {
+                throw excepcion;
+            }
+            if (causa instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(causa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera interrumpida para la consulta " + llave.operacion().etiqueta, e);
+        }
+    }
+
+    private static void registrar(MeterRegistry registry, Operacion operacion, String resultado, LongAdder valor) {
+        FunctionCounter.builder("productos.coalescencia.consultas", valor, LongAdder::sum)
+                .description("Lecturas de productos ejecutadas, colapsadas en una consulta en curso o expiradas")
+                .tag("operacion", operacion.etiqueta)
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.Productos.cache;
+
+import com.example.Productos.repository.ProductoRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Filtro de Bloom con los códigos de producto: si responde que un código no está, no existe y se evita
+ * la consulta; si responde que puede estar, se confirma en la base de datos.
+ * Los borrados permanentes no pueden quitarse de un filtro de Bloom, por eso se reconstruye periódicamente.
+ * Igual que la columna codigo (collation sin distinción de mayúsculas), no distingue mayúsculas de minúsculas.
+ * Solo conoce los códigos escritos por esta instancia después de cargarse, por eso está deshabilitado
+ * por omisión: habilitarlo solo si esta instancia es la única que escribe en la base.
+ */
+@Component
+@Slf4j
+public class FiltroCodigos implements MeterBinder {
+
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final double tasaObjetivo;
+    private final long capacidadMinima;
+
+    // null hasta la primera carga: mientras tanto todas las consultas van a la base de datos
+    private volatile Bits bits;
+    // Filtro que se está cargando; los códigos nuevos se agregan también aquí
+    private volatile Bits enConstruccion;
+    // Códigos agregados desde la última reconstrucción, por si su transacción confirma después de la lectura
+    private final AtomicReference<Set<String>> recientes = new AtomicReference<>(ConcurrentHashMap.newKeySet());
+
+    private final LongAdder ausentes = new LongAdder();
+    private final LongAdder confirmados = new LongAdder();
+    private final LongAdder falsosPositivos = new LongAdder();
+
+    public FiltroCodigos(ProductoRepository productoRepository, TransactionTemplate transactionTemplate,
+                         @Value("${productos.filtro-codigos.habilitado:false}") boolean habilitado,
+                         @Value("${productos.filtro-codigos.tasa-falsos-positivos:0.01}") double tasaObjetivo,
+                         @Value("${productos.filtro-codigos.capacidad-minima:100000}") long capacidadMinima) {
+        if (tasaObjetivo <= 0 || tasaObjetivo >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        this.productoRepository = productoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.habilitado = habilitado;
+        this.tasaObjetivo = tasaObjetivo;
+        this.capacidadMinima = capacidadMinima;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        reconstruir();
+    }
+
+    /**
+     * Cargar un filtro nuevo con los códigos actuales y reemplazar el anterior, descartando
+     * los códigos de productos eliminados. Se dimensiona para el doble de productos actuales.
+     */
+    @Scheduled(initialDelayString = "${productos.filtro-codigos.intervalo-reconstruccion:1h}",
+            fixedDelayString = "${productos.filtro-codigos.intervalo-reconstruccion:1h}")
+    public synchronized void reconstruir() {
+        if (!habilitado) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        Set<String> anteriores = null;
+        try {
+            long total = transactionTemplate.execute(estado -> productoRepository.count());
+            Bits nuevo = new Bits(Math.max(total * 2, capacidadMinima), tasaObjetivo);
+            enConstruccion = nuevo;
+            // Lo agregado antes de este punto queda en anteriores; lo posterior llega a enConstruccion
+            anteriores = recientes.getAndSet(ConcurrentHashMap.newKeySet());
+
+            transactionTemplate.executeWithoutResult(estado -> {
+                try (Stream<String> codigos = productoRepository.streamCodigos()) {
+                    codigos.forEach(nuevo::agregar);
+                }
+            });
+            anteriores.forEach(nuevo::agregar);
+            bits = nuevo;
+            log.info("Filtro de códigos cargado con {} productos ({} bits, {} funciones hash) en {} ms",
+                    total, nuevo.tamano, nuevo.funciones, System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Error al cargar el filtro de códigos: {}", e.getMessage());
+            if (anteriores != null) {
+                recientes.get().addAll(anteriores);
+            }
+        } finally {
+            enConstruccion = null;
+        }
+    }
+
+    /**
+     * Indicar si existe el código, consultando la base de datos solo si el filtro no lo descarta
+     * @param consulta Verificación definitiva en la base de datos
+     */
+    public boolean existe(String codigo, Predicate<String> consulta) {
+        Bits actual = bits;
+        if (actual == null) {
+            return consulta.test(codigo);
+        }
+        if (!actual.puedeContener(codigo)) {
+            ausentes.increment();
+            actual.ausentes.increment();
+            return false;
+        }
+
+        boolean existe = consulta.test(codigo);
+        if (existe) {
+            confirmados.increment();
+        } else {
+            falsosPositivos.increment();
+            actual.falsosPositivos.increment();
+        }
+        return existe;
+    }
+
+    /**
+     * Registrar un código antes de confirmar la transacción que lo escribe, para que nunca
+     * haya un instante en que exista en la base de datos y el filtro lo descarte
+     */
+    public void agregar(String codigo) {
+        if (!habilitado || codigo == null) {
+            return;
+        }
+        recientes.get().add(codigo);
+        // Primero el filtro en construcción: si ya terminó, bits es el nuevo
+        Bits nuevo = enConstruccion;
+        if (nuevo != null) {
+            nuevo.agregar(codigo);
+        }
+        Bits actual = bits;
+        if (actual != null) {
+            actual.agregar(codigo);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("productos.codigos.filtro.consultas", ausentes, LongAdder::sum)
+                .description("Verificaciones de código según la respuesta del filtro de Bloom")
+                .tag("resultado", "ausente")
+                .register(registry);
+        FunctionCounter.builder("productos.codigos.filtro.consultas", confirmados, LongAdder::sum)
+                .tag("resultado", "confirmado")
+                .register(registry);
+        FunctionCounter.builder("productos.codigos.filtro.consultas", falsosPositivos, LongAdder::sum)
+                .tag("resultado", "falso-positivo")
+                .register(registry);
+        Gauge.builder("productos.codigos.filtro.tasa-falsos-positivos", this, FiltroCodigos::tasaObservada)
+                .description("Falsos positivos sobre códigos inexistentes consultados desde la última reconstrucción")
+                .register(registry);
+        Gauge.builder("productos.codigos.filtro.tasa-estimada", this, FiltroCodigos::tasaEstimada)
+                .description("Probabilidad de falso positivo según la ocupación actual del filtro")
+                .register(registry);
+    }
+
+    private double tasaObservada() {
+        Bits actual = bits;
+        if (actual == null) {
+            return 0;
+        }
+        long negativos = actual.ausentes.sum() + actual.falsosPositivos.sum();
+        return negativos == 0 ? 0 : (double) actual.falsosPositivos.sum() / negativos;
+    }
+
+    private double tasaEstimada() {
+        Bits actual = bits;
+        return actual == null ? 0 : actual.tasaEstimada();
+    }
+
+    /**
+     * Arreglo de bits con k posiciones por código (doble hashing sobre un hash de 64 bits)
+     */
+    static final class Bits {
+
+        private final AtomicLongArray palabras;
+        private final long tamano;
+        private final int funciones;
+        private final LongAdder activos = new LongAdder();
+        private final LongAdder ausentes = new LongAdder();
+        private final LongAdder falsosPositivos = new LongAdder();
+
+        /**
+         * @param capacidad Elementos para los que se alcanza la tasa indicada
+         */
+        Bits(long capacidad, double tasa) {
+            long optimo = (long) Math.ceil(-capacidad * Math.log(tasa) / (Math.log(2) * Math.log(2)));
+            int cantidadPalabras = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimo + 63) / 64));
+            this.palabras = new AtomicLongArray(cantidadPalabras);
+            this.tamano = (long) cantidadPalabras * 64;
+            this.funciones = Math.max(1, (int) Math.round((double) tamano / capacidad * Math.log(2)));
+        }
+
+        void agregar(String codigo) {
+            long hash = hash(codigo);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long posicion = ((h1 + (long) i * h2) & Long.MAX_VALUE) % tamano;
+                int indice = (int) (posicion >>> 6);
+                long mascara = 1L << posicion;
+                long actual = palabras.get(indice);
+                while ((actual & mascara) == 0) {
+                    if (palabras.compareAndSet(indice, actual, actual | mascara)) {
+                        activos.increment();
+                        break;
+                    }
+                    actual = palabras.get(indice);
+                }
+            }
+        }
+
+        boolean puedeContener(String codigo) {
+            long hash = hash(codigo);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long posicion = ((h1 + (long) i * h2) & Long.MAX_VALUE) % tamano;
+                if ((palabras.get((int) (posicion >>> 6)) & (1L << posicion)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double tasaEstimada() {
+            return Math.pow((double) activos.sum() / tamano, funciones);
+        }
+
+        /**
+         * FNV-1a sobre los caracteres en minúscula con la mezcla final de MurmurHash3 para repartir ambas mitades.
+         * "abc-1" y "ABC-1" son el mismo código para el índice único, por eso deben dar el mismo hash.
+         */
+        private static long hash(String codigo) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < codigo.length(); i++) {
+                hash ^= Character.toLowerCase(codigo.charAt(i));
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
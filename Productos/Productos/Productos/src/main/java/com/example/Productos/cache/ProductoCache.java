@@ -0,0 +1,288 @@
+package com.example.Productos.cache;
+
+import com.example.Productos.entity.Producto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria de productos por ID y por código, con límite de tamaño y expiración.
+ * Guarda y devuelve copias: las entidades de la sesión JPA y las que recibe el llamador nunca son la entrada en caché.
+ */
+@Component
+@Slf4j
+public class ProductoCache implements MeterBinder {
+
+    private final Cache<Long, Producto> productosPorId;
+    private final Cache<String, Long> idsPorCodigo;
+
+    /**
+     * Invalidaciones realizadas: una carga que se cruza con alguna retira lo que guardó, porque pudo leer el valor
+     * anterior. Caffeine no define el efecto de invalidar una clave cuya carga está en curso.
+     */
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public ProductoCache(@Value("${productos.cache.tamano-maximo:10000}") long tamanoMaximo,
+                         @Value("${productos.cache.ttl:5m}") Duration ttl) {
+        log.info("Inicializando caché de productos (tamaño máximo: {}, ttl: {})", tamanoMaximo, ttl);
+        this.productosPorId = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idsPorCodigo = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Obtener un producto por ID, cargándolo con la función indicada si no está en caché
+     */
+    public Optional<Producto> obtenerPorId(Long id, Function<Long, Optional<Producto>> cargador) {
+        long generacion = invalidaciones.get();
+        boolean[] cargado = new boolean[1];
+        Producto producto = productosPorId.get(id, clave -> {
+            cargado[0] = true;
+            return cargador.apply(clave).map(ProductoCache::copiar).orElse(null);
+        });
+        if (cargado[0]) {
+            retirarSiHuboInvalidacion(generacion, Set.of(id), Set.of());
+        }
+        return Optional.ofNullable(producto).map(ProductoCache::copiar);
+    }
+
+    /**
+     * Obtener varios productos por ID, cargando en una sola llamada los que no estén en caché
+     * @return Mapa por ID con los productos encontrados (los inexistentes se omiten)
+     */
+    public Map<Long, Producto> obtenerTodosPorId(Collection<Long> ids,
+                                                 Function<Set<? extends Long>, Map<Long, Producto>> cargador) {
+        long generacion = invalidaciones.get();
+        Set<Long> cargados = new LinkedHashSet<>();
+        Map<Long, Producto> productos = productosPorId.getAll(ids, faltantes -> {
+            Map<Long, Producto> encontrados = copiarTodos(cargador.apply(faltantes));
+            cargados.addAll(encontrados.keySet());
+            return encontrados;
+        });
+        retirarSiHuboInvalidacion(generacion, cargados, Set.of());
+        return copiarTodos(productos);
+    }
+
+    /**
+     * Obtener un producto por código, cargándolo con la función indicada si no está en caché
+     */
+    public Optional<Producto> obtenerPorCodigo(String codigo, Function<String, Optional<Producto>> cargador) {
+        return obtenerPorCodigo(codigo, cargador, true);
+    }
+
+    private Optional<Producto> obtenerPorCodigo(String codigo, Function<String, Optional<Producto>> cargador,
+                                                boolean reintentar) {
+        long generacion = invalidaciones.get();
+        Producto[] cargado = new Producto[1];
+        Long id = idsPorCodigo.get(codigo, clave -> {
+            cargado[0] = cargador.apply(clave).orElse(null);
+            return cargado[0] != null ? guardar(cargado[0]) : null;
+        });
+        if (cargado[0] != null) {
+            retirarSiHuboInvalidacion(generacion, Set.of(id), Set.of(codigo));
+            return Optional.of(copiar(cargado[0]));
+        }
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        // La entrada por ID expiró, fue desalojada o se invalidó sola (descuentos de inventario): se recarga
+        // por ID para que también sea una sola carga por clave, aunque con el cargador por código
+        long generacionRecarga = invalidaciones.get();
+        boolean[] recargado = new boolean[1];
+        Producto producto = productosPorId.get(id, clave -> {
+            recargado[0] = true;
+            return cargador.apply(codigo)
+                    .filter(encontrado -> clave.equals(encontrado.getId()))
+                    .map(ProductoCache::copiar)
+                    .orElse(null);
+        });
+        if (recargado[0]) {
+            retirarSiHuboInvalidacion(generacionRecarga, Set.of(id), Set.of());
+        }
+        if (producto != null && codigo.equals(producto.getCodigo())) {
+            return Optional.of(copiar(producto));
+        }
+
+        // El código ya no corresponde a ese producto: se olvida la entrada y se carga de nuevo por código
+        idsPorCodigo.asMap().remove(codigo, id);
+        return reintentar
+                ? obtenerPorCodigo(codigo, cargador, false)
+                : cargador.apply(codigo).map(ProductoCache::copiar);
+    }
+
+    /**
+     * Obtener varios productos por código, cargando en una sola llamada los que no estén en caché
+     * @return Mapa por código con los productos encontrados (los inexistentes se omiten)
+     */
+    public Map<String, Producto> obtenerTodosPorCodigo(Collection<String> codigos,
+                                                       Function<Set<String>, Map<String, Producto>> cargador) {
+        Map<String, Producto> resultado = buscarTodosPorCodigo(codigos);
+        Set<String> faltantes = new LinkedHashSet<>();
+        for (String codigo : codigos) {
+            if (!resultado.containsKey(codigo)) {
+                faltantes.add(codigo);
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            long generacion = invalidaciones.get();
+            Map<String, Producto> cargados = cargador.apply(faltantes);
+            cargados.forEach((codigo, producto) -> {
+                idsPorCodigo.put(codigo, guardar(producto));
+                resultado.put(codigo, copiar(producto));
+            });
+            retirarSiHuboInvalidacion(generacion,
+                    cargados.values().stream().map(Producto::getId).toList(), cargados.keySet());
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtener un producto por ID solo si ya está en caché (sin consultar la base de datos)
+     */
+    public Optional<Producto> buscarPorId(Long id) {
+        return Optional.ofNullable(productosPorId.getIfPresent(id)).map(ProductoCache::copiar);
+    }
+
+    /**
+     * Obtener un producto por código solo si ya está en caché (sin consultar la base de datos)
+     */
+    public Optional<Producto> buscarPorCodigo(String codigo) {
+        Long id = idsPorCodigo.getIfPresent(codigo);
+        Producto producto = id != null ? productosPorId.getIfPresent(id) : null;
+        return producto != null && codigo.equals(producto.getCodigo())
+                ? Optional.of(copiar(producto))
+                : Optional.empty();
+    }
+
+    /**
+     * Obtener los productos que ya estén en caché para los IDs indicados (sin consultar la base de datos)
+     */
+    public Map<Long, Producto> buscarTodosPorId(Collection<Long> ids) {
+        return copiarTodos(productosPorId.getAllPresent(ids));
+    }
+
+    /**
+     * Obtener los productos que ya estén en caché para los códigos indicados (sin consultar la base de datos)
+     */
+    public Map<String, Producto> buscarTodosPorCodigo(Collection<String> codigos) {
+        Map<String, Long> ids = idsPorCodigo.getAllPresent(codigos);
+        Map<Long, Producto> enCache = productosPorId.getAllPresent(ids.values());
+
+        Map<String, Producto> resultado = new HashMap<>();
+        ids.forEach((codigo, id) -> {
+            Producto producto = enCache.get(id);
+            if (producto != null && codigo.equals(producto.getCodigo())) {
+                resultado.put(codigo, copiar(producto));
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Verificar si un código está en caché (sin consultar la base de datos)
+     */
+    public boolean contieneCodigo(String codigo) {
+        return idsPorCodigo.asMap().containsKey(codigo);
+    }
+
+    /**
+     * Invalidar las entradas de un producto por ID y código.
+     * El contador se incrementa antes de quitar las entradas: una carga en curso que guarde después
+     * de esta invalidación ve el cambio y retira lo guardado.
+     */
+    public void invalidar(Long id, String codigo) {
+        invalidaciones.incrementAndGet();
+        if (codigo != null) {
+            idsPorCodigo.invalidate(codigo);
+        }
+        if (id != null) {
+            productosPorId.invalidate(id);
+        }
+    }
+
+    /**
+     * Obtener contadores de aciertos, fallos y desalojos de la caché
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("porId", resumir(productosPorId));
+        estadisticas.put("porCodigo", resumir(idsPorCodigo));
+        return estadisticas;
+    }
+
+    /**
+     * Registrar tamaño, aciertos, fallos y desalojos de ambas cachés como métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, productosPorId, "productos.porId");
+        CaffeineCacheMetrics.monitor(registry, idsPorCodigo, "productos.porCodigo");
+    }
+
+    private Long guardar(Producto producto) {
+        productosPorId.put(producto.getId(), copiar(producto));
+        return producto.getId();
+    }
+
+    /**
+     * Llamar después de guardar lo cargado: si desde el inicio de la carga hubo una invalidación (de cualquier
+     * producto), lo guardado pudo leerse antes de la escritura y se quita. Una invalidación posterior a esta
+     * comprobación ocurre después de guardar, así que también lo quita.
+     */
+    private void retirarSiHuboInvalidacion(long generacion, Collection<Long> ids, Collection<String> codigos) {
+        if (invalidaciones.get() == generacion) {
+            return;
+        }
+        idsPorCodigo.invalidateAll(codigos);
+        productosPorId.invalidateAll(ids);
+    }
+
+    private static Producto copiar(Producto producto) {
+        return new Producto(producto.getId(), producto.getCodigo(), producto.getNombre(), producto.getDescripcion(),
+                producto.getPrecio(), producto.getCantidad(), producto.getImg(), producto.getActivo(),
+                producto.getFechaCreacion(), producto.getFechaActualizacion(), producto.getVersion());
+    }
+
+    private static <K> Map<K, Producto> copiarTodos(Map<K, Producto> productos) {
+        Map<K, Producto> copias = new HashMap<>(productos.size());
+        productos.forEach((clave, producto) -> copias.put(clave, copiar(producto)));
+        return copias;
+    }
+
+    private Map<String, Object> resumir(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("tamano", cache.estimatedSize());
+        resumen.put("aciertos", stats.hitCount());
+        resumen.put("fallos", stats.missCount());
+        resumen.put("desalojos", stats.evictionCount());
+        resumen.put("tasaAciertos", stats.hitRate());
+        return resumen;
+    }
+}
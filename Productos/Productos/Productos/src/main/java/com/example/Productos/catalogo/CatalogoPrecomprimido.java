@@ -0,0 +1,257 @@
+package com.example.Productos.catalogo;
+
+import com.example.Productos.entity.Producto;
+import com.example.Productos.outbox.CambiosProductos;
+import com.example.Productos.outbox.CambiosProductos.Cambios;
+import com.example.Productos.outbox.CambiosProductos.Posicion;
+import com.example.Productos.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantánea del catálogo de productos activos, ya serializada con el mismo sobre que
+ * GET /api/productos/catalogo y guardada en disco sin comprimir y en gzip.
+ * Se conserva el JSON de cada producto; tras una escritura solo se vuelven a leer y serializar
+ * los productos modificados. Los archivos se reescriben y comprimen completos, por eso se publican
+ * como mucho una vez por intervalo mínimo aunque lleguen cambios de forma continua.
+ * Las escrituras de esta instancia se marcan al confirmar; las de otras instancias se descubren
+ * en cada reconciliación, así que la instantánea nunca queda atrasada más que ese intervalo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoPrecomprimido {
+
+    private static final byte[] PREFIJO = "{\"estado\":\"exito\",\"data\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SEPARADOR = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SUFIJO = "],\"mensaje\":\"Productos obtenidos exitosamente\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final String PREFIJO_ARCHIVO = "catalogo-";
+
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final CambiosProductos cambiosProductos;
+
+    @Value("${productos.catalogo.directorio:datos/catalogo}")
+    private Path directorio;
+
+    @Value("${productos.catalogo.nivel-compresion:6}")
+    private int nivelCompresion;
+
+    @Value("${productos.catalogo.intervalo-minimo-publicacion:5s}")
+    private Duration intervaloMinimoPublicacion;
+
+    // JSON de cada producto activo, en orden de ID
+    private final ConcurrentSkipListMap<Long, byte[]> fragmentos = new ConcurrentSkipListMap<>();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private volatile Instantanea actual;
+    private Instantanea anterior;
+    private long version;
+    // Protegidos por this: fragmentos actualizados que aún no están en los archivos publicados
+    private boolean sinPublicar;
+    private long ultimaPublicacion;
+    // Protegida por this: hasta dónde se buscaron cambios de otras instancias
+    private Posicion posicion;
+
+    /**
+     * Archivos de una versión de la instantánea
+     */
+    public record Instantanea(Path json, long tamanoJson, Path gzip, long tamanoGzip, String etag) {
+    }
+
+    /**
+     * Cargar todos los productos activos y publicar la primera instantánea
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void construir() {
+        log.info("Construyendo catálogo precomprimido");
+        long inicio = System.currentTimeMillis();
+        try {
+            Files.createDirectories(directorio);
+            eliminarArchivosPrevios();
+            transactionTemplate.executeWithoutResult(estado -> {
+                posicion = cambiosProductos.posicionActual();
+                try (Stream<Producto> productos = productoRepository.streamByActivoTrueOrderByIdAsc()) {
+                    productos.forEach(producto -> {
+                        fragmentos.put(producto.getId(), objectMapper.writeValueAsBytes(producto));
+                        entityManager.detach(producto);
+                    });
+                }
+            });
+            publicar();
+            log.info("Catálogo precomprimido con {} productos en {} ms ({} bytes, {} bytes en gzip)",
+                    fragmentos.size(), System.currentTimeMillis() - inicio, actual.tamanoJson(), actual.tamanoGzip());
+        } catch (Exception e) {
+            log.error("Error al construir el catálogo precomprimido: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Registrar que un producto cambió; se vuelve a leer en la próxima regeneración
+     */
+    public void marcarCambio(Long id) {
+        pendientes.add(id);
+    }
+
+    public void marcarCambios(Collection<Long> ids) {
+        pendientes.addAll(ids);
+    }
+
+    /**
+     * Releer los productos modificados y, si pasó el intervalo mínimo desde la última, publicar una nueva instantánea
+     */
+    @Scheduled(fixedDelayString = "${productos.catalogo.intervalo-regeneracion:500ms}")
+    public synchronized void regenerar() {
+        if (actual == null) {
+            return;
+        }
+
+        if (!pendientes.isEmpty()) {
+            List<Long> ids = new ArrayList<>(pendientes);
+            pendientes.removeAll(ids);
+            try {
+                // Lectura en transacción de escritura para ir al primario: una réplica podría no tener el cambio aún
+                Map<Long, Producto> productos = transactionTemplate.execute(estado ->
+                        productoRepository.findAllById(ids).stream()
+                                .collect(Collectors.toMap(Producto::getId, Function.identity())));
+                for (Long id : ids) {
+                    Producto producto = productos.get(id);
+                    if (producto != null && Boolean.TRUE.equals(producto.getActivo())) {
+                        fragmentos.put(id, objectMapper.writeValueAsBytes(producto));
+                    } else {
+                        fragmentos.remove(id);
+                    }
+                }
+                sinPublicar = true;
+                log.debug("Catálogo precomprimido actualizado con {} cambios", ids.size());
+            } catch (Exception e) {
+                pendientes.addAll(ids);
+                log.error("Error al leer los cambios del catálogo precomprimido: {}", e.getMessage());
+                return;
+            }
+        }
+
+        if (sinPublicar && System.nanoTime() - ultimaPublicacion >= intervaloMinimoPublicacion.toNanos()) {
+            try {
+                publicar();
+                log.debug("Catálogo precomprimido publicado ({} bytes en gzip)", actual.tamanoGzip());
+            } catch (Exception e) {
+                log.error("Error al publicar el catálogo precomprimido: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Marcar los productos que cambiaron en cualquier instancia desde la reconciliación anterior;
+     * la próxima regeneración los vuelve a leer
+     */
+    @Scheduled(fixedDelayString = "${productos.catalogo.intervalo-reconciliacion:10s}")
+    public synchronized void reconciliar() {
+        if (actual == null) {
+            return;
+        }
+
+        try {
+            Cambios cambios = transactionTemplate.execute(estado -> cambiosProductos.leerDesde(posicion));
+            pendientes.addAll(cambios.ids());
+            posicion = cambios.hasta();
+        } catch (Exception e) {
+            log.error("Error al reconciliar el catálogo precomprimido: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Instantánea vigente, o null si aún no se construyó
+     */
+    public Instantanea getInstantanea() {
+        return actual;
+    }
+
+    /**
+     * Escribir la nueva versión (JSON y gzip en una sola pasada) y reemplazar la vigente.
+     * Los archivos de la versión anterior se conservan hasta la siguiente, por si hay envíos en curso.
+     */
+    private void publicar() throws IOException {
+        version++;
+        Path json = directorio.resolve(PREFIJO_ARCHIVO + version + ".json");
+        Path gzip = directorio.resolve(PREFIJO_ARCHIVO + version + ".json.gz");
+
+        CRC32 crc = new CRC32();
+        try (OutputStream salidaJson = new BufferedOutputStream(Files.newOutputStream(json), 1 << 16);
+             OutputStream salidaGzip = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(gzip), 1 << 16), 1 << 16) {
+                 {
+                     def.setLevel(nivelCompresion);
+                 }
+             }) {
+            escribir(PREFIJO, salidaJson, salidaGzip, crc);
+            boolean primero = true;
+            for (byte[] fragmento : fragmentos.values()) {
+                if (!primero) {
+                    escribir(SEPARADOR, salidaJson, salidaGzip, crc);
+                }
+                escribir(fragmento, salidaJson, salidaGzip, crc);
+                primero = false;
+            }
+            escribir(SUFIJO, salidaJson, salidaGzip, crc);
+        }
+
+        long tamanoJson = Files.size(json);
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Long.toHexString(tamanoJson) + "\"";
+        Instantanea nueva = new Instantanea(json, tamanoJson, gzip, Files.size(gzip), etag);
+
+        if (anterior != null) {
+            Files.deleteIfExists(anterior.json());
+            Files.deleteIfExists(anterior.gzip());
+        }
+        anterior = actual;
+        actual = nueva;
+        sinPublicar = false;
+        ultimaPublicacion = System.nanoTime();
+    }
+
+    private void escribir(byte[] datos, OutputStream salidaJson, OutputStream salidaGzip, CRC32 crc) throws IOException {
+        salidaJson.write(datos);
+        salidaGzip.write(datos);
+        crc.update(datos);
+    }
+
+    private void eliminarArchivosPrevios() throws IOException {
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO_ARCHIVO + "*")) {
+            for (Path archivo : archivos) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+}
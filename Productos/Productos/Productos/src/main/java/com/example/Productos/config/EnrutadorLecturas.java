@@ -0,0 +1,151 @@
+package com.example.Productos.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Origen de conexiones de solo lectura: reparte entre las réplicas sanas (round-robin) y
+ * recurre al primario si ninguna está disponible, si exceden el retraso máximo o si el hilo
+ * acaba de escribir ({@link LecturaPropiasEscrituras}).
+ */
+@Slf4j
+public class EnrutadorLecturas extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARIO = "primario";
+
+    private final DataSource primario;
+    private final Map<String, DataSource> replicas;
+    private final long retrasoMaximoSegundos;
+    private final String consultaRetraso;
+    private final String columnaRetraso;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    // Réplicas aptas según la última verificación; se reemplaza completa en cada verificación
+    private volatile List<String> replicasSanas = List.of();
+
+    public EnrutadorLecturas(DataSource primario, Map<String, DataSource> replicas, Duration retrasoMaximo,
+                             String consultaRetraso, String columnaRetraso) {
+        this.primario = primario;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.retrasoMaximoSegundos = retrasoMaximo.toSeconds();
+        this.consultaRetraso = consultaRetraso;
+        this.columnaRetraso = columnaRetraso;
+
+        Map<Object, Object> destinos = new HashMap<>(replicas);
+        destinos.put(PRIMARIO, primario);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        verificarReplicas();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (LecturaPropiasEscrituras.requierePrimario()) {
+            return PRIMARIO;
+        }
+
+        List<String> sanas = replicasSanas;
+        if (sanas.isEmpty()) {
+            return PRIMARIO;
+        }
+        return sanas.get(Math.floorMod(siguiente.getAndIncrement(), sanas.size()));
+    }
+
+    /**
+     * Comprobar conexión y retraso de replicación de cada réplica
+     */
+    @Scheduled(fixedDelayString = "${productos.replicas.intervalo-verificacion:2s}")
+    public void verificarReplicas() {
+        List<String> sanas = new ArrayList<>(replicas.size());
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            String motivo = diagnosticar(replica.getValue());
+            if (motivo == null) {
+                sanas.add(replica.getKey());
+            } else if (replicasSanas.contains(replica.getKey())) {
+                log.warn("Réplica {} fuera de servicio: {}", replica.getKey(), motivo);
+            }
+        }
+
+        for (String nombre : sanas) {
+            if (!replicasSanas.contains(nombre)) {
+                log.info("Réplica {} disponible para lecturas", nombre);
+            }
+        }
+        replicasSanas = List.copyOf(sanas);
+    }
+
+    public List<String> getReplicasSanas() {
+        return replicasSanas;
+    }
+
+    public DataSource getPrimario() {
+        return primario;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            cerrar(replica);
+        }
+        cerrar(primario);
+    }
+
+    /**
+     * Devuelve el motivo por el que la réplica no es apta, o null si lo es
+     */
+    private String diagnosticar(DataSource replica) {
+        try (Connection conexion = replica.getConnection()) {
+            if (!conexion.isValid(2)) {
+                return "conexión inválida";
+            }
+            long retraso = medirRetraso(conexion);
+            if (retraso > retrasoMaximoSegundos) {
+                return retraso == Long.MAX_VALUE ? "replicación detenida" : "retraso de " + retraso + " s";
+            }
+            return null;
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    private long medirRetraso(Connection conexion) throws SQLException {
+        if (consultaRetraso == null || consultaRetraso.isBlank()) {
+            return 0;
+        }
+        try (Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(consultaRetraso)) {
+            if (!resultado.next()) {
+                // Sin estado de replicación: la instancia no es réplica de nadie
+                return 0;
+            }
+            long segundos = resultado.getLong(columnaRetraso);
+            return resultado.wasNull() ? Long.MAX_VALUE : segundos;
+        }
+    }
+
+    private void cerrar(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable cerrable) {
+            cerrable.close();
+        }
+    }
+}
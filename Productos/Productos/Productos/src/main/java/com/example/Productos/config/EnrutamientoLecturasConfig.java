@@ -0,0 +1,113 @@
+package com.example.Productos.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enrutamiento de transacciones de solo lectura a réplicas de MySQL.
+ * Se activa al definir productos.replicas.urls; sin esa propiedad se usa el DataSource autoconfigurado.
+ * La conexión física se obtiene recién en la primera sentencia (LazyConnectionDataSourceProxy), cuando
+ * ya se sabe si la transacción es readOnly: las de escritura van al primario y las de lectura al enrutador.
+ */
+@Configuration
+@ConditionalOnProperty(name = "productos.replicas.urls")
+@Slf4j
+public class EnrutamientoLecturasConfig {
+
+    @Bean(defaultCandidate = false)
+    public EnrutadorLecturas enrutadorLecturas(DataSourceProperties propiedades, Environment entorno,
+                                               ObjectProvider<MeterRegistry> registroMetricas,
+                                               @Value("${productos.replicas.urls}") List<String> urls,
+                                               @Value("${productos.replicas.tamano-pool:10}") int tamanoPool,
+                                               @Value("${productos.replicas.retraso-maximo:5s}") Duration retrasoMaximo,
+                                               @Value("${productos.replicas.consulta-retraso:SHOW REPLICA STATUS}") String consultaRetraso,
+                                               @Value("${productos.replicas.columna-retraso:Seconds_Behind_Source}") String columnaRetraso) {
+        HikariDataSource primario = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(entorno).bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+        if (primario.getPoolName() == null) {
+            primario.setPoolName(EnrutadorLecturas.PRIMARIO);
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String nombre = "replica-" + i;
+            HikariDataSource replica = propiedades.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            replica.setPoolName(nombre);
+            replica.setMaximumPoolSize(tamanoPool);
+            replica.setReadOnly(true);
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(nombre, replica);
+        }
+
+        // Métricas hikaricp.* por pool, ya que las réplicas no son beans
+        registroMetricas.ifAvailable(registro -> {
+            primario.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registro));
+            replicas.values().forEach(replica -> ((HikariDataSource) replica)
+                    .setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registro)));
+        });
+
+        log.info("Lecturas enrutadas a {} réplicas (retraso máximo {} s)", replicas.size(), retrasoMaximo.toSeconds());
+        return new EnrutadorLecturas(primario, replicas, retrasoMaximo, consultaRetraso, columnaRetraso);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("enrutadorLecturas") EnrutadorLecturas enrutadorLecturas) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(enrutadorLecturas.getPrimario());
+        dataSource.setReadOnlyDataSource(enrutadorLecturas);
+        return dataSource;
+    }
+
+    @Bean
+    public LecturaPropiasEscrituras lecturaPropiasEscrituras(
+            @Value("${productos.replicas.retraso-maximo:5s}") Duration retrasoMaximo) {
+        return new LecturaPropiasEscrituras(retrasoMaximo);
+    }
+
+    /**
+     * La garantía de leer las propias escrituras vale dentro de la solicitud que escribió
+     */
+    @Bean
+    public OncePerRequestFilter filtroLecturaPropiasEscrituras() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    LecturaPropiasEscrituras.limpiar();
+                }
+            }
+        };
+    }
+}
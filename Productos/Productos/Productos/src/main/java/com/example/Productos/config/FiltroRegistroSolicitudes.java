@@ -0,0 +1,149 @@
+package com.example.Productos.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registra una sola línea por solicitud con método, ruta, estado, latencia y resultado como pares clave-valor.
+ * Las solicitudes exitosas se muestrean en INFO; los errores y las solicitudes lentas se registran siempre, en WARN,
+ * porque el appender asíncrono de logback-spring.xml (que escribe fuera del hilo de la solicitud) descarta INFO
+ * cuando su cola se acerca al límite.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class FiltroRegistroSolicitudes extends OncePerRequestFilter {
+
+    // Logger propio para poder ajustar su nivel sin afectar al resto de la aplicación
+    private static final Logger log = LoggerFactory.getLogger("productos.solicitudes");
+
+    private final double muestreoExito;
+    private final long umbralLentoNanos;
+
+    public FiltroRegistroSolicitudes(
+            @Value("${productos.registro.muestreo-exito:0.01}") double muestreoExito,
+            @Value("${productos.registro.umbral-lento:500ms}") Duration umbralLento) {
+        if (muestreoExito < 0 || muestreoExito > 1) {
+            throw new IllegalArgumentException("El muestreo de solicitudes exitosas debe estar entre 0 y 1");
+        }
+        this.muestreoExito = muestreoExito;
+        this.umbralLentoNanos = umbralLento.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        Throwable excepcion = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException | Error e) {
+            excepcion = e;
+            throw e;
+        } finally {
+            if (excepcion == null && request.isAsyncStarted()) {
+                // Streaming: la solicitud termina cuando se completa el procesamiento asíncrono
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        registrar(request, response, inicio, null);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                registrar(request, response, inicio, excepcion);
+            }
+        }
+    }
+
+    private void registrar(HttpServletRequest request, HttpServletResponse response, long inicio,
+                           Throwable excepcion) {
+        long duracion = System.nanoTime() - inicio;
+        int estado = excepcion != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        if (excepcion == null) {
+            // Los controladores capturan sus excepciones y las anotan en la observación de la solicitud
+            excepcion = ServerHttpObservationFilter.findObservationContext(request)
+                    .map(ServerRequestObservationContext::getError)
+                    .orElse(null);
+        }
+
+        if (!debeRegistrar(estado, duracion)) {
+            return;
+        }
+
+        Object ruta = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        LoggingEventBuilder evento = log.atLevel(nivel(estado, duracion))
+                .addKeyValue("metodo", request.getMethod())
+                .addKeyValue("ruta", ruta != null ? ruta : request.getRequestURI())
+                .addKeyValue("estado", estado)
+                .addKeyValue("duracion_ms", TimeUnit.NANOSECONDS.toMillis(duracion))
+                .addKeyValue("resultado", resultado(estado, duracion));
+        if (excepcion != null) {
+            evento.addKeyValue("error", excepcion.getClass().getSimpleName());
+        }
+        evento.log("solicitud");
+    }
+
+    /**
+     * Errores y solicitudes lentas siempre; las exitosas con la probabilidad de muestreo configurada
+     */
+    boolean debeRegistrar(int estado, long duracionNanos) {
+        if (esErrorOLenta(estado, duracionNanos)) {
+            return true;
+        }
+        return muestreoExito > 0
+                && ThreadLocalRandom.current().nextDouble() < muestreoExito
+                && log.isInfoEnabled();
+    }
+
+    /**
+     * WARN para lo que se registra siempre, así sobrevive a la cola casi llena; INFO para las muestreadas
+     */
+    Level nivel(int estado, long duracionNanos) {
+        return esErrorOLenta(estado, duracionNanos) ? Level.WARN : Level.INFO;
+    }
+
+    private boolean esErrorOLenta(int estado, long duracionNanos) {
+        return estado >= 400 || duracionNanos >= umbralLentoNanos;
+    }
+
+    private String resultado(int estado, long duracionNanos) {
+        if (estado >= 500) {
+            return "error_servidor";
+        }
+        if (estado >= 400) {
+            return "error_cliente";
+        }
+        return duracionNanos >= umbralLentoNanos ? "lenta" : "exito";
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.Productos.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Verifica al iniciar que el modo de hilos virtuales pueda aplicarse en la JVM actual
+ */
+@Configuration
+@Slf4j
+public class HilosVirtualesConfig {
+
+    private static final int VERSION_MINIMA_JAVA = 21;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int tamanoPool;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificarHilosVirtuales() {
+        if (!hilosVirtuales) {
+            return;
+        }
+
+        int versionJava = Runtime.version().feature();
+        if (versionJava < VERSION_MINIMA_JAVA) {
+            log.warn("Hilos virtuales solicitados pero la JVM es Java {}: se usan hilos de plataforma", versionJava);
+        } else {
+            log.info("Solicitudes atendidas en hilos virtuales; acceso a base de datos limitado a {} conexiones",
+                    tamanoPool);
+        }
+    }
+}
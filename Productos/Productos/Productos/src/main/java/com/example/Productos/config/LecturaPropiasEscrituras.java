@@ -0,0 +1,62 @@
+package com.example.Productos.config;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Garantiza leer las propias escrituras: después de confirmar una transacción de escritura,
+ * las lecturas del mismo hilo van al primario hasta que las réplicas puedan haberla recibido
+ * (el retraso máximo tolerado) o hasta que termina la solicitud HTTP.
+ */
+public class LecturaPropiasEscrituras implements TransactionExecutionListener {
+
+    /**
+     * Nombre de las transacciones que leen del primario sin escribir (por ejemplo para llenar la caché):
+     * no obligan a las lecturas siguientes del hilo a ir también al primario
+     */
+    public static final String LECTURA_EN_PRIMARIO = "productos.lecturaEnPrimario";
+
+    private static final ThreadLocal<Long> PRIMARIO_HASTA = new ThreadLocal<>();
+
+    private final long ventanaNanos;
+
+    public LecturaPropiasEscrituras(Duration ventana) {
+        this.ventanaNanos = ventana.toNanos();
+    }
+
+    /**
+     * Se marca antes de confirmar: las acciones afterCommit de la transacción (sincronizaciones)
+     * se ejecutan antes que los listeners afterCommit y también deben leer del primario
+     */
+    @Override
+    public void beforeCommit(TransactionExecution transaccion) {
+        if (transaccion.isNewTransaction() && !transaccion.isReadOnly()
+                && !LECTURA_EN_PRIMARIO.equals(transaccion.getTransactionName())) {
+            PRIMARIO_HASTA.set(System.nanoTime() + ventanaNanos);
+        }
+    }
+
+    /**
+     * Indica si las lecturas del hilo actual deben ir al primario
+     */
+    public static boolean requierePrimario() {
+        Long hasta = PRIMARIO_HASTA.get();
+        if (hasta == null) {
+            return false;
+        }
+        if (System.nanoTime() - hasta > 0) {
+            PRIMARIO_HASTA.remove();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Olvidar las escrituras del hilo actual (al terminar la solicitud)
+     */
+    public static void limpiar() {
+        PRIMARIO_HASTA.remove();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Productos.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * Acceso no bloqueante a MySQL con R2DBC para la API reactiva.
+ * El pool no se registra como bean: un ConnectionFactory en el contexto haría que Spring Boot
+ * dejara de configurar el DataSource que usan JPA y el resto de la aplicación.
+ */
+@Configuration
+@ConditionalOnProperty(name = "productos.reactivo.habilitado", havingValue = "true")
+@Slf4j
+public class ReactivoConfig {
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient databaseClientReactivo(@Value("${productos.reactivo.url}") String url,
+                                                 @Value("${productos.reactivo.usuario:${spring.datasource.username}}") String usuario,
+                                                 @Value("${productos.reactivo.clave:${spring.datasource.password:}}") String clave,
+                                                 @Value("${productos.reactivo.tamano-pool:10}") int tamanoPool,
+                                                 @Value("${productos.reactivo.espera-conexion:2s}") Duration esperaConexion) {
+        log.info("Inicializando pool R2DBC para la API reactiva ({} conexiones)", tamanoPool);
+        ConnectionFactoryOptions opciones = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, usuario)
+                .option(ConnectionFactoryOptions.PASSWORD, clave)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(opciones))
+                .maxSize(tamanoPool)
+                .maxAcquireTime(esperaConexion)
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.Productos.controller;
+
+import com.example.Productos.dto.EstadoInventario;
+import com.example.Productos.dto.ReservaInventario;
+import com.example.Productos.service.InventarioService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventario")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class InventarioController {
+
+    private final InventarioService inventarioService;
+
+    /**
+     * Reservar unidades de un producto (POST)
+     */
+    @PostMapping("/{productoId}/reservas")
+    public ResponseEntity<?> reservar(@PathVariable Long productoId, @RequestBody ReservaInventario solicitud) {
+        try {
+            log.debug("Recibida solicitud POST para reservar producto con ID: {}", productoId);
+            ReservaInventario reserva = inventarioService.reservar(productoId, solicitud.getCantidad());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(crearRespuestaExito("Reserva creada exitosamente", reserva));
+        } catch (IllegalArgumentException e) {
+            log.error("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Reserva rechazada: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(crearRespuestaError("Existencias insuficientes", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error inesperado al reservar: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Confirmar una reserva (POST)
+     */
+    @PostMapping("/reservas/{reservaId}/confirmar")
+    public ResponseEntity<?> confirmar(@PathVariable String reservaId) {
+        try {
+            log.debug("Recibida solicitud POST para confirmar reserva: {}", reservaId);
+            ReservaInventario reserva = inventarioService.confirmar(reservaId);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Reserva confirmada exitosamente", reserva));
+        } catch (IllegalArgumentException e) {
+            log.error("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error inesperado al confirmar reserva: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Liberar una reserva (DELETE)
+     */
+    @DeleteMapping("/reservas/{reservaId}")
+    public ResponseEntity<?> liberar(@PathVariable String reservaId) {
+        try {
+            log.debug("Recibida solicitud DELETE para liberar reserva: {}", reservaId);
+            ReservaInventario reserva = inventarioService.liberar(reservaId);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Reserva liberada exitosamente", reserva));
+        } catch (IllegalArgumentException e) {
+            log.error("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error inesperado al liberar reserva: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Consultar existencias de un producto (GET)
+     */
+    @GetMapping("/{productoId}")
+    public ResponseEntity<?> consultar(@PathVariable Long productoId) {
+        try {
+            log.debug("Recibida solicitud GET para inventario del producto con ID: {}", productoId);
+            EstadoInventario estado = inventarioService.consultar(productoId);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Inventario obtenido exitosamente", estado));
+        } catch (IllegalArgumentException e) {
+            log.error("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(crearRespuestaError("No encontrado", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al obtener inventario: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Método auxiliar que asocia la excepción a la métrica http.server.requests de la solicitud
+     */
+    private void registrarError(Exception e) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos) {
+            ServerHttpObservationFilter.findObservationContext(atributos.getRequest())
+                    .ifPresent(contexto -> contexto.setError(e));
+        }
+    }
+
+    /**
+     * Método auxiliar para crear respuesta de éxito
+     */
+    private Map<String, Object> crearRespuestaExito(String mensaje, Object data) {
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("mensaje", mensaje);
+        respuesta.put("data", data);
+        respuesta.put("estado", "exito");
+        return respuesta;
+    }
+
+    /**
+     * Método auxiliar para crear respuesta de error
+     */
+    private Map<String, Object> crearRespuestaError(String titulo, String mensaje) {
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("titulo", titulo);
+        respuesta.put("mensaje", mensaje);
+        respuesta.put("estado", "error");
+        return respuesta;
+    }
+}
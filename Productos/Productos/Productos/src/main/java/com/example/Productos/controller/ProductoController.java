@@ -1,19 +1,52 @@
 package com.example.Productos.controller;
 
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.dto.CamposProducto;
+import com.example.Productos.dto.EstadisticasInventario;
+import com.example.Productos.dto.FiltroProductos;
+import com.example.Productos.dto.PaginaBusqueda;
+import com.example.Productos.dto.PaginaCambios;
+import com.example.Productos.dto.PaginaFiltro;
+import com.example.Productos.dto.PaginaProductos;
+import com.example.Productos.dto.PaginaSincronizacion;
+import com.example.Productos.dto.ResultadoConsultaLote;
+import com.example.Productos.dto.ResultadoLote;
+import com.example.Productos.dto.SolicitudConsultaLote;
 import com.example.Productos.entity.Producto;
+import com.example.Productos.formato.FormatosProducto;
 import com.example.Productos.service.ProductoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @RestController
+// Pila MVC/servlet; en modo reactivo la reemplaza ProductoReactivoController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/productos")
 @RequiredArgsConstructor
 @Slf4j
@@ -21,6 +54,15 @@ import java.util.Optional;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final ProductoCache productoCache;
+    private final ObjectMapper objectMapper;
+    private final CatalogoPrecomprimido catalogo;
+
+    // Atributos de solicitud con los que Tomcat envía un archivo con sendfile
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
 
     /**
      * Crear un nuevo producto (POST)
@@ -28,76 +70,208 @@ public class ProductoController {
     @PostMapping
     public ResponseEntity<?> crearProducto(@RequestBody Producto producto) {
         try {
-            log.info("Recibida solicitud POST para crear producto");
+            log.debug("Recibida solicitud POST para crear producto");
             Producto productoCreado = productoService.crearProducto(producto);
             return ResponseEntity.status(HttpStatus.CREATED)
+                    .eTag(crearEtag(productoCreado))
                     .body(crearRespuestaExito("Producto creado exitosamente", productoCreado));
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error inesperado al crear producto: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Crear o actualizar productos por código en una sola solicitud (POST)
+     */
+    @PostMapping("/masivo")
+    public ResponseEntity<?> guardarProductosEnLote(@RequestBody List<Producto> productos) {
+        try {
+            log.debug("Recibida solicitud POST para carga masiva de productos");
+            ResultadoLote resultado = productoService.guardarProductosEnLote(productos);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Lote procesado exitosamente", resultado));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error inesperado en carga masiva: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
     }
 
     /**
-     * Obtener todos los productos (GET)
+     * Obtener productos activos paginados por cursor (GET).
+     * Con fields=codigo,nombre,... solo se leen y devuelven esos campos (el id siempre se incluye).
      */
     @GetMapping
-    public ResponseEntity<?> obtenerTodosLosProductos() {
+    public ResponseEntity<?> obtenerTodosLosProductos(@RequestParam(required = false) Long cursor,
+                                                      @RequestParam(required = false) Integer limite,
+                                                      @RequestParam(required = false) String fields) {
         try {
-            log.info("Recibida solicitud GET para obtener todos los productos");
-            List<Producto> productos = productoService.obtenerTodosLosProductos();
+            log.debug("Recibida solicitud GET para obtener productos desde cursor: {}", cursor);
+            CamposProducto campos = CamposProducto.desdeParametro(fields);
+            PaginaProductos<?> pagina = campos == null
+                    ? productoService.obtenerProductosPaginados(cursor, limite)
+                    : productoService.obtenerProductosPaginados(cursor, limite, campos);
             return ResponseEntity.status(HttpStatus.OK)
-                    .body(crearRespuestaExito("Productos obtenidos exitosamente", productos));
+                    .body(crearRespuestaExito("Productos obtenidos exitosamente", pagina));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al obtener productos: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
     }
 
     /**
-     * Obtener todos los productos (incluyendo inactivos)
+     * Obtener todos los productos (incluyendo inactivos) paginados por cursor
      */
     @GetMapping("/todos")
-    public ResponseEntity<?> obtenerTodosProductos() {
+    public ResponseEntity<?> obtenerTodosProductos(@RequestParam(required = false) Long cursor,
+                                                   @RequestParam(required = false) Integer limite,
+                                                   @RequestParam(required = false) String fields) {
         try {
-            log.info("Recibida solicitud GET para obtener todos los productos");
-            List<Producto> productos = productoService.obtenerTodosProductos();
+            log.debug("Recibida solicitud GET para obtener todos los productos desde cursor: {}", cursor);
+            CamposProducto campos = CamposProducto.desdeParametro(fields);
+            PaginaProductos<?> pagina = campos == null
+                    ? productoService.obtenerTodosProductosPaginados(cursor, limite)
+                    : productoService.obtenerTodosProductosPaginados(cursor, limite, campos);
             return ResponseEntity.status(HttpStatus.OK)
-                    .body(crearRespuestaExito("Productos obtenidos exitosamente", productos));
+                    .body(crearRespuestaExito("Productos obtenidos exitosamente", pagina));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al obtener productos: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
     }
 
+    /**
+     * Obtener todos los productos activos en streaming (NDJSON, un producto por línea)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductos() {
+        log.debug("Recibida solicitud GET para streaming de productos activos");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(escribirProductos(false));
+    }
+
+    /**
+     * Obtener todos los productos (incluyendo inactivos) en streaming (NDJSON)
+     */
+    @GetMapping(value = "/todos/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTodosProductos() {
+        log.debug("Recibida solicitud GET para streaming de todos los productos");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(escribirProductos(true));
+    }
+
+    /**
+     * Obtener el catálogo de productos activos desde la instantánea precomprimida (GET).
+     * No consulta la base de datos ni serializa: envía el archivo (gzip si el cliente lo acepta)
+     * con sendfile de Tomcat cuando está disponible.
+     */
+    @GetMapping("/catalogo")
+    public void obtenerCatalogo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            log.debug("Recibida solicitud GET para obtener el catálogo");
+            CatalogoPrecomprimido.Instantanea instantanea = catalogo.getInstantanea();
+            if (instantanea == null) {
+                // Aún no se construyó: respuesta normal desde la base de datos
+                escribirJson(response, HttpStatus.OK, crearSobreExito("Productos obtenidos exitosamente",
+                        productoService.obtenerTodosLosProductos()));
+                return;
+            }
+
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            response.setHeader(HttpHeaders.ETAG, instantanea.etag());
+            String siNoCoincide = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (siNoCoincide != null && contieneEtag(siNoCoincide, instantanea.etag())) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+
+            boolean gzip = aceptaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            Path archivo = gzip ? instantanea.gzip() : instantanea.json();
+            long tamano = gzip ? instantanea.tamanoGzip() : instantanea.tamanoJson();
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            response.setContentLengthLong(tamano);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+                // Tomcat copia el archivo al socket sin pasar por la JVM al terminar la solicitud
+                request.setAttribute(SENDFILE_ARCHIVO, archivo.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_INICIO, 0L);
+                request.setAttribute(SENDFILE_FIN, tamano);
+                return;
+            }
+            try (FileChannel canal = FileChannel.open(archivo)) {
+                WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+                for (long enviado = 0; enviado < tamano; ) {
+                    enviado += canal.transferTo(enviado, tamano - enviado, salida);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error al obtener el catálogo: {}", e.getMessage());
+            registrarError(e);
+            if (!response.isCommitted()) {
+                response.reset();
+                escribirJson(response, HttpStatus.INTERNAL_SERVER_ERROR,
+                        crearRespuestaError("Error interno del servidor", e.getMessage()));
+            }
+        }
+    }
+
     /**
      * Obtener un producto por ID (GET)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> obtenerProductoPorId(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerProductoPorId(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
         try {
-            log.info("Recibida solicitud GET para obtener producto con ID: {}", id);
+            log.debug("Recibida solicitud GET para obtener producto con ID: {}", id);
             Optional<Producto> producto = productoService.obtenerProductoPorId(id);
             if (producto.isPresent()) {
-                return ResponseEntity.status(HttpStatus.OK)
-                        .body(crearRespuestaExito("Producto obtenido exitosamente", producto.get()));
+                return respuestaCondicional(producto.get(), siNoCoincide);
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(crearRespuestaError("No encontrado", "Producto no encontrado con ID: " + id));
             }
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al obtener producto: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
@@ -107,44 +281,189 @@ public class ProductoController {
      * Obtener producto por código (GET)
      */
     @GetMapping("/codigo/{codigo}")
-    public ResponseEntity<?> obtenerProductoPorCodigo(@PathVariable String codigo) {
+    public ResponseEntity<?> obtenerProductoPorCodigo(@PathVariable String codigo,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
         try {
-            log.info("Recibida solicitud GET para obtener producto con código: {}", codigo);
+            log.debug("Recibida solicitud GET para obtener producto con código: {}", codigo);
             Optional<Producto> producto = productoService.obtenerProductoPorCodigo(codigo);
             if (producto.isPresent()) {
-                return ResponseEntity.status(HttpStatus.OK)
-                        .body(crearRespuestaExito("Producto obtenido exitosamente", producto.get()));
+                return respuestaCondicional(producto.get(), siNoCoincide);
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(crearRespuestaError("No encontrado", "Producto no encontrado con código: " + codigo));
             }
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al obtener producto: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Obtener varios productos por ID y/o código en una sola solicitud (POST)
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<?> obtenerProductosEnLote(@RequestBody SolicitudConsultaLote solicitud,
+                                                    @RequestParam(required = false) String fields) {
+        try {
+            log.debug("Recibida solicitud POST para consulta de productos por lote");
+            CamposProducto campos = CamposProducto.desdeParametro(fields);
+            ResultadoConsultaLote<?> resultado = campos == null
+                    ? productoService.obtenerProductosEnLote(solicitud.getIds(), solicitud.getCodigos())
+                    : productoService.obtenerProductosEnLote(solicitud.getIds(), solicitud.getCodigos(), campos);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Productos obtenidos exitosamente", resultado));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al obtener lote de productos: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
     }
 
     /**
-     * Buscar productos por nombre (GET)
+     * Obtener productos modificados o desactivados después de un timestamp, paginados con marca de agua (GET)
+     */
+    @GetMapping("/desde/{timestamp}")
+    public ResponseEntity<?> obtenerProductosModificadosDesde(@PathVariable Long timestamp,
+                                                              @RequestParam(required = false) Long marcaAgua,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limite) {
+        try {
+            log.debug("Recibida solicitud GET para sincronizar productos desde: {}", timestamp);
+            PaginaSincronizacion pagina = productoService.obtenerProductosModificadosDesde(timestamp, marcaAgua,
+                    cursor, limite);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Productos obtenidos exitosamente", pagina));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al sincronizar productos: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Obtener cambios de productos posteriores a un desplazamiento, para sincronizar sin recorrer la tabla (GET)
+     */
+    @GetMapping("/cambios")
+    public ResponseEntity<?> obtenerCambios(@RequestParam(required = false) Long desde,
+                                            @RequestParam(required = false) Integer limite) {
+        try {
+            log.debug("Recibida solicitud GET para obtener cambios de productos");
+            PaginaCambios cambios = productoService.obtenerCambios(desde, limite);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Cambios obtenidos exitosamente", cambios));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al obtener cambios: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Buscar productos por nombre o descripción, ordenados por relevancia (GET)
      */
     @GetMapping("/buscar")
-    public ResponseEntity<?> buscarPorNombre(@RequestParam String nombre) {
+    public ResponseEntity<?> buscarPorNombre(@RequestParam String nombre,
+                                             @RequestParam(required = false) Integer pagina,
+                                             @RequestParam(required = false) Integer limite,
+                                             @RequestParam(required = false) String fields) {
         try {
-            log.info("Recibida solicitud GET para buscar productos por nombre: {}", nombre);
-            List<Producto> productos = productoService.buscarPorNombre(nombre);
+            log.debug("Recibida solicitud GET para buscar productos por nombre: {}", nombre);
+            CamposProducto campos = CamposProducto.desdeParametro(fields);
+            PaginaBusqueda<?> resultado = campos == null
+                    ? productoService.buscarProductos(nombre, pagina, limite)
+                    : productoService.buscarProductos(nombre, pagina, limite, campos);
             return ResponseEntity.status(HttpStatus.OK)
-                    .body(crearRespuestaExito("Búsqueda realizada exitosamente", productos));
+                    .body(crearRespuestaExito("Búsqueda realizada exitosamente", resultado));
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error en búsqueda: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Filtrar productos por rango de precio, umbrales de cantidad, estado y prefijo de nombre (GET)
+     */
+    @GetMapping("/filtrar")
+    public ResponseEntity<?> filtrarProductos(@RequestParam(required = false) Double precioMin,
+                                              @RequestParam(required = false) Double precioMax,
+                                              @RequestParam(required = false) Integer cantidadMin,
+                                              @RequestParam(required = false) Integer cantidadMax,
+                                              @RequestParam(required = false) Boolean activo,
+                                              @RequestParam(required = false) String prefijo,
+                                              @RequestParam(required = false) String orden,
+                                              @RequestParam(required = false) String direccion,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limite) {
+        try {
+            log.debug("Recibida solicitud GET para filtrar productos");
+            FiltroProductos filtro = FiltroProductos.desdeParametros(precioMin, precioMax, cantidadMin, cantidadMax,
+                    activo, prefijo, orden, direccion);
+            PaginaFiltro pagina = productoService.filtrarProductos(filtro, cursor, limite);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Productos obtenidos exitosamente", pagina));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al filtrar productos: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
+        }
+    }
+
+    /**
+     * Obtener conteos y valorización del inventario (GET)
+     */
+    @GetMapping("/estadisticas")
+    public ResponseEntity<?> obtenerEstadisticas(@RequestParam(required = false) Integer umbralStockBajo) {
+        try {
+            log.debug("Recibida solicitud GET para obtener estadísticas del inventario");
+            EstadisticasInventario estadisticas = productoService.obtenerEstadisticas(umbralStockBajo);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(crearRespuestaExito("Estadísticas obtenidas exitosamente", estadisticas));
+        } catch (IllegalArgumentException e) {
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al obtener estadísticas: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
@@ -154,18 +473,28 @@ public class ProductoController {
      * Actualizar un producto (PUT)
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> actualizarProducto(@PathVariable Long id, @RequestBody Producto producto) {
+    public ResponseEntity<?> actualizarProducto(@PathVariable Long id, @RequestBody Producto producto,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String siCoincide) {
         try {
-            log.info("Recibida solicitud PUT para actualizar producto con ID: {}", id);
-            Producto productoActualizado = productoService.actualizarProducto(id, producto);
+            log.debug("Recibida solicitud PUT para actualizar producto con ID: {}", id);
+            Producto productoActualizado = productoService.actualizarProducto(id, producto, versionDeEtag(siCoincide));
             return ResponseEntity.status(HttpStatus.OK)
+                    .eTag(crearEtag(productoActualizado))
                     .body(crearRespuestaExito("Producto actualizado exitosamente", productoActualizado));
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            // Con If-Match el cliente pidió la condición (412); sin él, otra escritura ganó la carrera (409)
+            log.warn("Conflicto de versión al actualizar producto con ID {}: {}", id, e.getMessage());
+            registrarError(e);
+            return ResponseEntity.status(siCoincide != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                    .body(crearRespuestaError("Conflicto de versión", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al actualizar producto: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
@@ -177,16 +506,18 @@ public class ProductoController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> eliminarProducto(@PathVariable Long id) {
         try {
-            log.info("Recibida solicitud DELETE para eliminar producto con ID: {}", id);
+            log.debug("Recibida solicitud DELETE para eliminar producto con ID: {}", id);
             productoService.eliminarProducto(id);
             return ResponseEntity.status(HttpStatus.OK)
                     .body(crearRespuestaExito("Producto eliminado exitosamente", null));
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al eliminar producto: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
@@ -198,16 +529,18 @@ public class ProductoController {
     @DeleteMapping("/{id}/permanente")
     public ResponseEntity<?> eliminarProductoPermanentemente(@PathVariable Long id) {
         try {
-            log.info("Recibida solicitud DELETE para eliminar permanentemente producto con ID: {}", id);
+            log.debug("Recibida solicitud DELETE para eliminar permanentemente producto con ID: {}", id);
             productoService.eliminarProductoPermanentemente(id);
             return ResponseEntity.status(HttpStatus.OK)
                     .body(crearRespuestaExito("Producto eliminado permanentemente", null));
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al eliminar producto: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
@@ -219,27 +552,148 @@ public class ProductoController {
     @GetMapping("/existe/{codigo}")
     public ResponseEntity<?> existeProductoPorCodigo(@PathVariable String codigo) {
         try {
-            log.info("Verificando existencia de producto con código: {}", codigo);
+            log.debug("Verificando existencia de producto con código: {}", codigo);
             boolean existe = productoService.existeProductoPorCodigo(codigo);
             Map<String, Object> respuesta = new HashMap<>();
             respuesta.put("existe", existe);
             respuesta.put("codigo", codigo);
             return ResponseEntity.status(HttpStatus.OK).body(respuesta);
         } catch (IllegalArgumentException e) {
-            log.error("Error en validación: {}", e.getMessage());
+            log.debug("Error en validación: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(crearRespuestaError("Error de validación", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al verificar producto: {}", e.getMessage());
+            registrarError(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(crearRespuestaError("Error interno del servidor", e.getMessage()));
         }
     }
 
     /**
-     * Método auxiliar para crear respuesta de éxito
+     * Obtener estadísticas de la caché de productos (aciertos, fallos, desalojos)
+     */
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<?> obtenerEstadisticasCache() {
+        log.debug("Recibida solicitud GET para obtener estadísticas de caché");
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(crearRespuestaExito("Estadísticas obtenidas exitosamente", productoCache.obtenerEstadisticas()));
+    }
+
+    /**
+     * Método auxiliar que responde 304 sin cuerpo si el cliente ya tiene la versión actual del producto
+     */
+    private ResponseEntity<?> respuestaCondicional(Producto producto, String siNoCoincide) {
+        String etag = crearEtag(producto);
+        if (siNoCoincide != null && (siNoCoincide.trim().equals("*") || contieneEtag(siNoCoincide, etag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.status(HttpStatus.OK)
+                .eTag(etag)
+                .body(crearRespuestaExito("Producto obtenido exitosamente", producto));
+    }
+
+    private String crearEtag(Producto producto) {
+        return "\"" + producto.getVersion() + "\"";
+    }
+
+    /**
+     * Método auxiliar que compara una lista de ETags (If-None-Match) sin distinguir débiles de fuertes
+     */
+    private boolean contieneEtag(String cabecera, String etag) {
+        for (String candidato : cabecera.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método auxiliar que obtiene la versión esperada de If-Match; null si no hay condición
+     */
+    private Long versionDeEtag(String siCoincide) {
+        if (siCoincide == null || siCoincide.trim().equals("*")) {
+            return null;
+        }
+        String valor = siCoincide.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        try {
+            return Long.valueOf(valor.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            // Un ETag que no es nuestro nunca coincide
+            return -1L;
+        }
+    }
+
+    /**
+     * Método auxiliar que indica si Accept-Encoding admite gzip (con q mayor a 0)
      */
-    private Map<String, Object> crearRespuestaExito(String mensaje, Object data) {
+    private boolean aceptaGzip(String aceptaCodificacion) {
+        if (aceptaCodificacion == null) {
+            return false;
+        }
+        for (String codificacion : aceptaCodificacion.split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            String nombre = partes[0].trim();
+            if (nombre.equalsIgnoreCase("gzip") || nombre.equals("*")) {
+                return partes.length == 1 || !partes[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private void escribirJson(HttpServletResponse response, HttpStatus estado, Object cuerpo) throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(cuerpo));
+    }
+
+    /**
+     * Método auxiliar que escribe los productos a la respuesta a medida que se leen del cursor
+     */
+    private StreamingResponseBody escribirProductos(boolean incluirInactivos) {
+        return salida -> productoService.recorrerProductos(incluirInactivos, producto -> {
+            try {
+                salida.write(objectMapper.writeValueAsBytes(producto));
+                salida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Método auxiliar que asocia la excepción a la métrica http.server.requests de la solicitud,
+     * para distinguir errores de validación (IllegalArgumentException) del resto
+     */
+    private void registrarError(Exception e) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos) {
+            ServerHttpObservationFilter.findObservationContext(atributos.getRequest())
+                    .ifPresent(contexto -> contexto.setError(e));
+        }
+    }
+
+    /**
+     * Método auxiliar para crear respuesta de éxito. Si el cliente prefiere un formato compacto
+     * (CBOR, Smile, Protobuf o por columnas) se responde con los datos tal cual, sin el sobre.
+     */
+    private Object crearRespuestaExito(String mensaje, Object data) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos
+                && FormatosProducto.prefiereCompacto(atributos.getRequest().getHeader(HttpHeaders.ACCEPT))) {
+            return data;
+        }
+        return crearSobreExito(mensaje, data);
+    }
+
+    private Map<String, Object> crearSobreExito(String mensaje, Object data) {
         Map<String, Object> respuesta = new HashMap<>();
         respuesta.put("mensaje", mensaje);
         respuesta.put("data", data);
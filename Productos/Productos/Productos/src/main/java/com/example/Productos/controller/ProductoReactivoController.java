@@ -0,0 +1,382 @@
+package com.example.Productos.controller;
+
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.dto.PaginaBusqueda;
+import com.example.Productos.dto.PaginaProductos;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.EscrituraDiferidaProductos;
+import com.example.Productos.repository.ProductoReactivoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import com.example.Productos.search.IndiceBusquedaProductos.ResultadoBusqueda;
+import com.example.Productos.service.ProductoService;
+import com.example.Productos.validator.ProductoValidador;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Variante no bloqueante de la API de productos.
+ * Las lecturas van por R2DBC (o la caché en memoria) sin ocupar un hilo mientras esperan a MySQL,
+ * con los valores pendientes de la escritura diferida superpuestos como en ProductoService;
+ * las escrituras delegan en ProductoService en el scheduler boundedElastic para conservar la
+ * bandeja de salida, la invalidación de caché y el índice de búsqueda.
+ * Con el perfil "reactivo" se monta en /api/productos en lugar de ProductoController.
+ */
+@RestController
+@ConditionalOnProperty(name = "productos.reactivo.habilitado", havingValue = "true")
+@RequestMapping("${productos.reactivo.ruta:/api/reactivo/productos}")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ProductoReactivoController {
+
+    private static final int LIMITE_PAGINA_DEFECTO = 100;
+    private static final int LIMITE_PAGINA_MAXIMO = 1000;
+
+    private final ProductoReactivoRepository productoRepository;
+    private final ProductoService productoService;
+    private final ProductoCache productoCache;
+    private final ProductoValidador productoValidador;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final EscrituraDiferidaProductos escrituraDiferida;
+
+    /**
+     * Crear un nuevo producto (POST)
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Map<String, Object>>> crearProducto(@RequestBody Producto producto) {
+        log.debug("Recibida solicitud POST reactiva para crear producto");
+        return bloqueante(() -> productoService.crearProducto(producto))
+                .map(creado -> ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(crearEtag(creado))
+                        .body(crearRespuestaExito("Producto creado exitosamente", creado)))
+                .onErrorResume(e -> responderError(e, "Error inesperado al crear producto"));
+    }
+
+    /**
+     * Obtener productos activos paginados por cursor (GET)
+     */
+    @GetMapping
+    public Mono<ResponseEntity<Map<String, Object>>> obtenerProductos(@RequestParam(required = false) Long cursor,
+                                                                      @RequestParam(required = false) Integer limite) {
+        log.debug("Recibida solicitud GET reactiva para obtener productos desde cursor: {}", cursor);
+        return Mono.fromCallable(() -> normalizarLimite(limite))
+                .flatMap(tamano -> productoRepository
+                        .findByActivoTrueAndIdGreaterThanOrderByIdAsc(normalizarCursor(cursor), tamano + 1)
+                        .collectList()
+                        .map(productos -> crearPagina(escrituraDiferida.superponer(productos), tamano)))
+                .map(pagina -> ResponseEntity.ok(crearRespuestaExito("Productos obtenidos exitosamente", pagina)))
+                .onErrorResume(e -> responderError(e, "Error al obtener productos"));
+    }
+
+    /**
+     * Obtener todos los productos (incluyendo inactivos) paginados por cursor
+     */
+    @GetMapping("/todos")
+    public Mono<ResponseEntity<Map<String, Object>>> obtenerTodosProductos(@RequestParam(required = false) Long cursor,
+                                                                           @RequestParam(required = false) Integer limite) {
+        log.debug("Recibida solicitud GET reactiva para obtener todos los productos desde cursor: {}", cursor);
+        return Mono.fromCallable(() -> normalizarLimite(limite))
+                .flatMap(tamano -> productoRepository
+                        .findByIdGreaterThanOrderByIdAsc(normalizarCursor(cursor), tamano + 1)
+                        .collectList()
+                        .map(productos -> crearPagina(escrituraDiferida.superponer(productos), tamano)))
+                .map(pagina -> ResponseEntity.ok(crearRespuestaExito("Productos obtenidos exitosamente", pagina)))
+                .onErrorResume(e -> responderError(e, "Error al obtener productos"));
+    }
+
+    /**
+     * Obtener todos los productos activos en streaming (NDJSON); el ritmo de lectura lo marca el cliente
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Producto> streamProductos() {
+        log.debug("Recibida solicitud GET reactiva para streaming de productos activos");
+        return productoRepository.findByActivoTrue().map(producto -> escrituraDiferida.superponer(producto));
+    }
+
+    /**
+     * Obtener todos los productos (incluyendo inactivos) en streaming (NDJSON)
+     */
+    @GetMapping(value = "/todos/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Producto> streamTodosProductos() {
+        log.debug("Recibida solicitud GET reactiva para streaming de todos los productos");
+        return productoRepository.findAll().map(producto -> escrituraDiferida.superponer(producto));
+    }
+
+    /**
+     * Obtener un producto por ID (GET); responde 304 si el cliente ya tiene la versión actual
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Map<String, Object>>> obtenerProductoPorId(@PathVariable Long id,
+                                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        log.debug("Recibida solicitud GET reactiva para obtener producto con ID: {}", id);
+        return Mono.fromRunnable(() -> productoValidador.validarId(id))
+                .then(Mono.defer(() -> Mono.justOrEmpty(escrituraDiferida.obtener(id))
+                        .switchIfEmpty(Mono.justOrEmpty(productoCache.buscarPorId(id)))
+                        .switchIfEmpty(productoRepository.findById(id)
+                                .map(producto -> escrituraDiferida.superponer(producto)))))
+                .map(producto -> respuestaCondicional(producto, siNoCoincide))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(crearRespuestaError("No encontrado", "Producto no encontrado con ID: " + id)))
+                .onErrorResume(e -> responderError(e, "Error al obtener producto"));
+    }
+
+    /**
+     * Obtener un producto por código (GET); responde 304 si el cliente ya tiene la versión actual
+     */
+    @GetMapping("/codigo/{codigo}")
+    public Mono<ResponseEntity<Map<String, Object>>> obtenerProductoPorCodigo(@PathVariable String codigo,
+                                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        log.debug("Recibida solicitud GET reactiva para obtener producto con código: {}", codigo);
+        return Mono.fromRunnable(() -> productoValidador.validarCodigo(codigo))
+                .then(Mono.defer(() -> Mono.justOrEmpty(escrituraDiferida.obtenerPorCodigo(codigo))
+                        .switchIfEmpty(Mono.justOrEmpty(productoCache.buscarPorCodigo(codigo)))
+                        .switchIfEmpty(productoRepository.findByCodigo(codigo)
+                                .map(producto -> escrituraDiferida.superponer(producto)))))
+                .map(producto -> respuestaCondicional(producto, siNoCoincide))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(crearRespuestaError("No encontrado", "Producto no encontrado con código: " + codigo)))
+                .onErrorResume(e -> responderError(e, "Error al obtener producto"));
+    }
+
+    /**
+     * Buscar productos por nombre o descripción, ordenados por relevancia (GET)
+     */
+    @GetMapping("/buscar")
+    public Mono<ResponseEntity<Map<String, Object>>> buscarPorNombre(@RequestParam String nombre,
+                                                                     @RequestParam(required = false) Integer pagina,
+                                                                     @RequestParam(required = false) Integer limite) {
+        log.debug("Recibida solicitud GET reactiva para buscar productos por nombre: {}", nombre);
+        return Mono.fromCallable(() -> {
+                    productoValidador.validarNombre(nombre);
+                    return normalizarLimite(limite);
+                })
+                .flatMap(tamano -> buscar(nombre, normalizarPagina(pagina), tamano))
+                .map(resultado -> ResponseEntity.ok(crearRespuestaExito("Búsqueda realizada exitosamente", resultado)))
+                .onErrorResume(e -> responderError(e, "Error en búsqueda"));
+    }
+
+    /**
+     * Verificar si existe un producto por código
+     */
+    @GetMapping("/existe/{codigo}")
+    public Mono<ResponseEntity<Map<String, Object>>> existeProductoPorCodigo(@PathVariable String codigo) {
+        log.debug("Verificando existencia reactiva de producto con código: {}", codigo);
+        return Mono.fromRunnable(() -> productoValidador.validarCodigo(codigo))
+                .then(Mono.defer(() -> productoCache.contieneCodigo(codigo)
+                        ? Mono.just(Boolean.TRUE)
+                        : productoRepository.existsByCodigo(codigo)))
+                .map(existe -> {
+                    Map<String, Object> respuesta = new HashMap<>();
+                    respuesta.put("existe", existe);
+                    respuesta.put("codigo", codigo);
+                    return ResponseEntity.ok(respuesta);
+                })
+                .onErrorResume(e -> responderError(e, "Error al verificar producto"));
+    }
+
+    /**
+     * Actualizar un producto (PUT)
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Map<String, Object>>> actualizarProducto(@PathVariable Long id,
+                                                                        @RequestBody Producto producto) {
+        log.debug("Recibida solicitud PUT reactiva para actualizar producto con ID: {}", id);
+        return bloqueante(() -> productoService.actualizarProducto(id, producto))
+                .map(actualizado -> ResponseEntity.ok()
+                        .eTag(crearEtag(actualizado))
+                        .body(crearRespuestaExito("Producto actualizado exitosamente", actualizado)))
+                .onErrorResume(e -> responderError(e, "Error al actualizar producto"));
+    }
+
+    /**
+     * Eliminar un producto (DELETE) - Borrado lógico
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Map<String, Object>>> eliminarProducto(@PathVariable Long id) {
+        log.debug("Recibida solicitud DELETE reactiva para eliminar producto con ID: {}", id);
+        return bloqueante(() -> {
+                    productoService.eliminarProducto(id);
+                    return Boolean.TRUE;
+                })
+                .map(eliminado -> ResponseEntity.ok(crearRespuestaExito("Producto eliminado exitosamente", null)))
+                .onErrorResume(e -> responderError(e, "Error al eliminar producto"));
+    }
+
+    /**
+     * Ejecuta una operación bloqueante (JPA) fuera del event loop
+     */
+    private <T> Mono<T> bloqueante(Callable<T> operacion) {
+        return Mono.fromCallable(operacion).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Página de la búsqueda en el índice; mientras el índice se construye, consulta acotada en base de datos
+     * cuyo total es solo el mínimo conocido (los leídos hasta esta página más uno si hay siguiente)
+     */
+    private Mono<PaginaBusqueda<Producto>> buscar(String texto, int numeroPagina, int tamano) {
+        long desde = (long) numeroPagina * tamano;
+        if (!indiceBusqueda.estaListo()) {
+            return productoRepository.findByNombreContainingIgnoreCase(texto, desde, tamano + 1)
+                    .collectList()
+                    .map(productos -> new PaginaBusqueda<>(
+                            escrituraDiferida.superponer(productos.subList(0, Math.min(tamano, productos.size()))),
+                            numeroPagina, tamano, desde + productos.size()));
+        }
+
+        ResultadoBusqueda resultado = indiceBusqueda.buscar(texto, (int) Math.min(desde, Integer.MAX_VALUE), tamano);
+        return cargarEnOrden(resultado.ids())
+                .map(productos -> new PaginaBusqueda<>(productos, numeroPagina, tamano, resultado.total()));
+    }
+
+    /**
+     * Carga los productos indicados (desde caché cuando es posible) conservando el orden de los IDs
+     */
+    private Mono<List<Producto>> cargarEnOrden(List<Long> ids) {
+        Map<Long, Producto> enCache = productoCache.buscarTodosPorId(ids);
+        List<Long> faltantes = ids.stream().filter(id -> !enCache.containsKey(id)).toList();
+        Flux<Producto> leidos = faltantes.isEmpty() ? Flux.empty() : productoRepository.findAllById(faltantes);
+        return leidos.collectMap(Producto::getId)
+                .map(porId -> {
+                    porId.putAll(enCache);
+                    Map<Long, Producto> productos = escrituraDiferida.superponer(porId);
+                    List<Producto> resultado = new ArrayList<>(ids.size());
+                    for (Long id : ids) {
+                        Producto producto = productos.get(id);
+                        if (producto != null) {
+                            resultado.add(producto);
+                        }
+                    }
+                    return resultado;
+                });
+    }
+
+    /**
+     * Responde 304 sin cuerpo si el cliente ya tiene la versión actual del producto
+     */
+    private ResponseEntity<Map<String, Object>> respuestaCondicional(Producto producto, String siNoCoincide) {
+        String etag = crearEtag(producto);
+        if (siNoCoincide != null && (siNoCoincide.trim().equals("*") || contieneEtag(siNoCoincide, etag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(crearRespuestaExito("Producto obtenido exitosamente", producto));
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> responderError(Throwable e, String mensaje) {
+        if (e instanceof IllegalArgumentException) {
+            log.debug("Error en validación: {}", e.getMessage());
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(crearRespuestaError("Error de validación", e.getMessage())));
+        }
+        if (e instanceof OptimisticLockingFailureException) {
+            log.warn("Conflicto de versión: {}", e.getMessage());
+            return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(crearRespuestaError("Conflicto de versión", e.getMessage())));
+        }
+        log.error("{}: {}", mensaje, e.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearRespuestaError("Error interno del servidor", e.getMessage())));
+    }
+
+    private PaginaProductos<Producto> crearPagina(List<Producto> productos, int tamano) {
+        boolean hayMas = productos.size() > tamano;
+        List<Producto> pagina = hayMas ? productos.subList(0, tamano) : productos;
+        Long siguienteCursor = hayMas ? pagina.get(pagina.size() - 1).getId() : null;
+        return new PaginaProductos<>(pagina, siguienteCursor, tamano, hayMas);
+    }
+
+    private int normalizarLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_PAGINA_DEFECTO;
+        }
+
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser un número positivo");
+        }
+
+        return Math.min(limite, LIMITE_PAGINA_MAXIMO);
+    }
+
+    private int normalizarPagina(Integer pagina) {
+        if (pagina == null) {
+            return 0;
+        }
+
+        if (pagina < 0) {
+            throw new IllegalArgumentException("La página no puede ser negativa");
+        }
+
+        return pagina;
+    }
+
+    private long normalizarCursor(Long cursor) {
+        if (cursor == null) {
+            return 0L;
+        }
+
+        if (cursor < 0) {
+            throw new IllegalArgumentException("El cursor no puede ser negativo");
+        }
+
+        return cursor;
+    }
+
+    private String crearEtag(Producto producto) {
+        return "\"" + producto.getVersion() + "\"";
+    }
+
+    /**
+     * Compara una lista de ETags (If-None-Match) sin distinguir débiles de fuertes
+     */
+    private boolean contieneEtag(String cabecera, String etag) {
+        for (String candidato : cabecera.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método auxiliar para crear respuesta de éxito
+     */
+    private Map<String, Object> crearRespuestaExito(String mensaje, Object data) {
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("mensaje", mensaje);
+        respuesta.put("data", data);
+        respuesta.put("estado", "exito");
+        return respuesta;
+    }
+
+    /**
+     * Método auxiliar para crear respuesta de error
+     */
+    private Map<String, Object> crearRespuestaError(String titulo, String mensaje) {
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("titulo", titulo);
+        respuesta.put("mensaje", mensaje);
+        respuesta.put("estado", "error");
+        return respuesta;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.Productos.dto;
+
+import com.example.Productos.entity.Producto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Campos de producto solicitados con el parámetro fields (respuestas parciales).
+ * El ID siempre se incluye: es la clave de los cursores y de los resultados por lote.
+ */
+public record CamposProducto(List<Campo> campos) {
+
+    /**
+     * Atributos de Producto que pueden proyectarse; el nombre es el del atributo JPA y el de la respuesta JSON
+     */
+    public enum Campo {
+        ID("id", Producto::getId),
+        CODIGO("codigo", Producto::getCodigo),
+        NOMBRE("nombre", Producto::getNombre),
+        DESCRIPCION("descripcion", Producto::getDescripcion),
+        PRECIO("precio", Producto::getPrecio),
+        CANTIDAD("cantidad", Producto::getCantidad),
+        IMG("img", Producto::getImg),
+        ACTIVO("activo", Producto::getActivo),
+        FECHA_CREACION("fechaCreacion", Producto::getFechaCreacion),
+        FECHA_ACTUALIZACION("fechaActualizacion", Producto::getFechaActualizacion),
+        VERSION("version", Producto::getVersion);
+
+        private final String nombre;
+        private final Function<Producto, Object> valor;
+
+        Campo(String nombre, Function<Producto, Object> valor) {
+            this.nombre = nombre;
+            this.valor = valor;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public Object leer(Producto producto) {
+            return valor.apply(producto);
+        }
+    }
+
+    public CamposProducto {
+        campos = List.copyOf(campos);
+    }
+
+    /**
+     * Interpretar el parámetro fields (nombres separados por coma)
+     * @return null si no se indicó, para responder con el producto completo
+     * @throws IllegalArgumentException Si algún campo no existe
+     */
+    public static CamposProducto desdeParametro(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+
+        List<Campo> campos = new ArrayList<>();
+        campos.add(Campo.ID);
+        for (String nombre : fields.split(",")) {
+            String buscado = nombre.trim();
+            if (buscado.isEmpty()) {
+                continue;
+            }
+            Campo campo = buscar(buscado);
+            if (!campos.contains(campo)) {
+                campos.add(campo);
+            }
+        }
+        return new CamposProducto(campos);
+    }
+
+    /**
+     * Lista de selección JPQL con los atributos solicitados, en el orden de la respuesta
+     */
+    public String seleccion(String alias) {
+        StringBuilder jpql = new StringBuilder();
+        for (Campo campo : campos) {
+            if (!jpql.isEmpty()) {
+                jpql.append(", ");
+            }
+            jpql.append(alias).append('.').append(campo.nombre);
+        }
+        return jpql.toString();
+    }
+
+    /**
+     * Convertir una fila de la proyección (en el orden de {@link #seleccion(String)}) a la respuesta
+     */
+    public Map<String, Object> desdeFila(Object[] fila) {
+        Map<String, Object> resultado = new LinkedHashMap<>(campos.size() * 2);
+        for (int i = 0; i < campos.size(); i++) {
+            resultado.put(campos.get(i).nombre, fila[i]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Recortar un producto ya cargado (por ejemplo desde la caché) a los campos solicitados
+     */
+    public Map<String, Object> desdeProducto(Producto producto) {
+        Map<String, Object> resultado = new LinkedHashMap<>(campos.size() * 2);
+        for (Campo campo : campos) {
+            resultado.put(campo.nombre, campo.valor.apply(producto));
+        }
+        return resultado;
+    }
+
+    /**
+     * Campo por su nombre en la respuesta, sin distinguir mayúsculas
+     * @throws IllegalArgumentException Si no existe
+     */
+    public static Campo buscar(String nombre) {
+        for (Campo campo : Campo.values()) {
+            if (campo.nombre.equalsIgnoreCase(nombre)) {
+                return campo;
+            }
+        }
+        throw new IllegalArgumentException("Campo desconocido: " + nombre);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Conteos y valorización del inventario calculados con una sola consulta agregada.
+ * Salvo los totales, las cifras consideran solo productos activos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasInventario {
+
+    private long totalProductos;
+
+    private long productosActivos;
+
+    private long productosInactivos;
+
+    /**
+     * Suma de las cantidades en stock
+     */
+    private long unidadesEnStock;
+
+    /**
+     * Suma de precio por cantidad
+     */
+    private double valorInventario;
+
+    private long productosSinStock;
+
+    /**
+     * Productos con stock mayor a 0 y menor o igual al umbral
+     */
+    private long productosStockBajo;
+
+    private int umbralStockBajo;
+
+    private Double precioMinimo;
+
+    private Double precioMaximo;
+
+    private Double precioPromedio;
+}
@@ -0,0 +1,24 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Existencias de un producto según el motor de reservas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoInventario {
+
+    private Long productoId;
+    /** Cantidad guardada en base de datos */
+    private Integer cantidadPersistida;
+    /** Unidades reservadas sin confirmar */
+    private Integer reservado;
+    /** Unidades confirmadas aún no descontadas en base de datos */
+    private Integer pendientePersistir;
+    /** Unidades que todavía pueden reservarse */
+    private Integer disponible;
+}
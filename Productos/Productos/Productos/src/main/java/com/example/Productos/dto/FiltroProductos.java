@@ -0,0 +1,126 @@
+package com.example.Productos.dto;
+
+import com.example.Productos.entity.Producto;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Filtros por rango de precio, umbrales de cantidad, estado activo y prefijo de nombre,
+ * con el orden de los resultados. Precio, cantidad y nombre tienen su índice compuesto (activo, columna, id).
+ * @param activo null para incluir activos e inactivos
+ * @param prefijo Inicio del nombre (sin distinguir mayúsculas según la intercalación de la columna)
+ */
+public record FiltroProductos(Double precioMin, Double precioMax, Integer cantidadMin, Integer cantidadMax,
+                              Boolean activo, String prefijo, Orden orden, boolean descendente) {
+
+    /**
+     * Columnas por las que puede ordenarse; el valor de la última fila forma el cursor junto con el ID
+     */
+    public enum Orden {
+        ID("id", Producto::getId),
+        PRECIO("precio", Producto::getPrecio),
+        CANTIDAD("cantidad", Producto::getCantidad),
+        NOMBRE("nombre", Producto::getNombre);
+
+        private final String atributo;
+        private final Function<Producto, Object> valor;
+
+        Orden(String atributo, Function<Producto, Object> valor) {
+            this.atributo = atributo;
+            this.valor = valor;
+        }
+
+        public String getAtributo() {
+            return atributo;
+        }
+
+        /**
+         * Convertir el valor del cursor al tipo de la columna
+         */
+        public Object leerValor(String texto) {
+            return switch (this) {
+                case ID -> Long.valueOf(texto);
+                case PRECIO -> Double.valueOf(texto);
+                case CANTIDAD -> Integer.valueOf(texto);
+                case NOMBRE -> texto;
+            };
+        }
+    }
+
+    public FiltroProductos {
+        if (precioMin != null && precioMin < 0 || precioMax != null && precioMax < 0) {
+            throw new IllegalArgumentException("El precio del filtro no puede ser negativo");
+        }
+        if (precioMin != null && precioMax != null && precioMin > precioMax) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor al máximo");
+        }
+        if (cantidadMin != null && cantidadMin < 0 || cantidadMax != null && cantidadMax < 0) {
+            throw new IllegalArgumentException("La cantidad del filtro no puede ser negativa");
+        }
+        if (cantidadMin != null && cantidadMax != null && cantidadMin > cantidadMax) {
+            throw new IllegalArgumentException("La cantidad mínima no puede ser mayor a la máxima");
+        }
+        prefijo = prefijo == null || prefijo.isBlank() ? null : prefijo.trim();
+        orden = orden == null ? Orden.ID : orden;
+    }
+
+    /**
+     * Interpretar los parámetros orden (id, precio, cantidad, nombre) y direccion (asc, desc)
+     * @throws IllegalArgumentException Si alguno no es válido
+     */
+    public static FiltroProductos desdeParametros(Double precioMin, Double precioMax, Integer cantidadMin,
+                                                  Integer cantidadMax, Boolean activo, String prefijo,
+                                                  String orden, String direccion) {
+        Orden columna = null;
+        if (orden != null && !orden.isBlank()) {
+            try {
+                columna = Orden.valueOf(orden.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Orden desconocido: " + orden.trim());
+            }
+        }
+
+        boolean descendente = false;
+        if (direccion != null && !direccion.isBlank()) {
+            switch (direccion.trim().toLowerCase(Locale.ROOT)) {
+                case "asc" -> descendente = false;
+                case "desc" -> descendente = true;
+                default -> throw new IllegalArgumentException("Dirección desconocida: " + direccion.trim());
+            }
+        }
+        return new FiltroProductos(precioMin, precioMax, cantidadMin, cantidadMax, activo, prefijo, columna,
+                descendente);
+    }
+
+    /**
+     * Cursor de la página siguiente ("valor:id"), a partir de la última fila de la página actual
+     */
+    public String cursorDe(Producto ultimo) {
+        return orden.valor.apply(ultimo) + ":" + ultimo.getId();
+    }
+
+    /**
+     * Separar un cursor en el valor de la columna de orden y el ID. El ID va después del último ':'
+     * porque el nombre puede contener ese carácter.
+     * @throws IllegalArgumentException Si el cursor no es válido para este orden
+     */
+    public Cursor leerCursor(String cursor) {
+        int separador = cursor.lastIndexOf(':');
+        if (separador < 0) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        try {
+            return new Cursor(orden.leerValor(cursor.substring(0, separador)),
+                    Long.parseLong(cursor.substring(separador + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    /**
+     * Posición después de la cual continúa la página
+     */
+    public record Cursor(Object valor, Long id) {
+    }
+}
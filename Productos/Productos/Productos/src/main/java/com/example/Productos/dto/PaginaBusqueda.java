@@ -0,0 +1,27 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados de búsqueda ordenados por relevancia
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaBusqueda<T> {
+
+    private List<T> productos;
+
+    private int pagina;
+
+    private int limite;
+
+    /**
+     * Total de productos que coinciden con la búsqueda
+     */
+    private long total;
+}
@@ -0,0 +1,28 @@
+package com.example.Productos.dto;
+
+import com.example.Productos.entity.EventoProducto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página del feed de cambios de productos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCambios {
+
+    private List<EventoProducto> eventos;
+
+    /**
+     * Desplazamiento para la siguiente consulta (la última secuencia recibida)
+     */
+    private Long siguienteDesde;
+
+    private int limite;
+
+    private boolean hayMas;
+}
@@ -0,0 +1,28 @@
+package com.example.Productos.dto;
+
+import com.example.Productos.entity.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de productos filtrados, obtenida por cursor sobre (columna de orden, id)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaFiltro {
+
+    private List<Producto> productos;
+
+    /**
+     * Cursor para la siguiente página ("valor:id"), null si no hay más resultados
+     */
+    private String siguienteCursor;
+
+    private int limite;
+
+    private boolean hayMas;
+}
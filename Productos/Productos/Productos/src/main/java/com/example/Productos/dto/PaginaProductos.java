@@ -0,0 +1,27 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de productos obtenida por cursor (keyset sobre id)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaProductos<T> {
+
+    private List<T> productos;
+
+    /**
+     * Cursor para solicitar la siguiente página, null si no hay más resultados
+     */
+    private Long siguienteCursor;
+
+    private int limite;
+
+    private boolean hayMas;
+}
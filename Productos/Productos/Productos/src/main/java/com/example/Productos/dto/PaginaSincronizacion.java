@@ -0,0 +1,34 @@
+package com.example.Productos.dto;
+
+import com.example.Productos.entity.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de productos modificados (incluye desactivados) para sincronización incremental
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaSincronizacion {
+
+    private List<Producto> productos;
+
+    /**
+     * Marca de agua fija de esta sincronización: se envía en las páginas siguientes y,
+     * al terminar, es el timestamp desde el cual pedir la próxima sincronización
+     */
+    private Long marcaAgua;
+
+    /**
+     * Cursor para la siguiente página ("fechaActualizacion:id"), null si no hay más resultados
+     */
+    private String siguienteCursor;
+
+    private int limite;
+
+    private boolean hayMas;
+}
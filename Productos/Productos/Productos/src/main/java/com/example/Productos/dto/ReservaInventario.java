@@ -0,0 +1,19 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reserva de unidades de un producto, vigente hasta confirmarse, liberarse o vencer
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaInventario {
+
+    private String reservaId;
+    private Long productoId;
+    private Integer cantidad;
+    private Long expira;
+}
@@ -0,0 +1,25 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Resultado de una consulta por lote: cada ID o código solicitado aparece como clave,
+ * con null cuando no existe
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoConsultaLote<T> {
+
+    private Map<Long, T> porId;
+
+    private Map<String, T> porCodigo;
+
+    private int encontrados;
+
+    private int noEncontrados;
+}
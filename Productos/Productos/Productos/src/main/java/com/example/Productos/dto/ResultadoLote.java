@@ -0,0 +1,51 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una carga masiva de productos, con el detalle de cada fila
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLote {
+
+    private int total;
+
+    private int creados;
+
+    private int actualizados;
+
+    private int errores;
+
+    private List<ResultadoFila> resultados;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultadoFila {
+
+        /**
+         * Posición de la fila en la solicitud
+         */
+        private int indice;
+
+        private String codigo;
+
+        private Long id;
+
+        private EstadoFila estado;
+
+        private String mensaje;
+    }
+
+    public enum EstadoFila {
+        CREADO,
+        ACTUALIZADO,
+        ERROR
+    }
+}
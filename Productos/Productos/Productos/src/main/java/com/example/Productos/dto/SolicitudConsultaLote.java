@@ -0,0 +1,20 @@
+package com.example.Productos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * IDs y/o códigos a consultar en una sola solicitud
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolicitudConsultaLote {
+
+    private List<Long> ids;
+
+    private List<String> codigos;
+}
@@ -0,0 +1,59 @@
+package com.example.Productos.entity;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de cambio de un producto (bandeja de salida transaccional).
+ * Se inserta en la misma transacción que el cambio; la secuencia se asigna al publicarlo
+ * y es el desplazamiento que usan los consumidores del feed de cambios.
+ */
+@Entity
+@Table(name = "productos_eventos", indexes = {
+        @Index(name = "idx_productos_eventos_secuencia", columnList = "secuencia", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoProducto {
+
+    public enum TipoEvento {
+        CREADO,
+        ACTUALIZADO,
+        DESACTIVADO,
+        ELIMINADO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Null hasta que el relay publica el evento
+    @Column(name = "secuencia")
+    private Long secuencia;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEvento tipo;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private String codigo;
+
+    // Producto antes y después del cambio, en JSON
+    @JsonRawValue
+    @Column(columnDefinition = "TEXT")
+    private String antes;
+
+    @JsonRawValue
+    @Column(columnDefinition = "TEXT")
+    private String despues;
+
+    @Column(nullable = false)
+    private Long fecha;
+}
@@ -6,7 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+        // Sincronización incremental: keyset sobre (fecha_actualizacion, id)
+        @Index(name = "idx_productos_fecha_actualizacion", columnList = "fecha_actualizacion, id"),
+        // Filtros por rango con orden y cursor sobre la misma columna (igualdad en activo primero)
+        @Index(name = "idx_productos_activo_precio", columnList = "activo, precio, id"),
+        @Index(name = "idx_productos_activo_cantidad", columnList = "activo, cantidad, id"),
+        @Index(name = "idx_productos_activo_nombre", columnList = "activo, nombre, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,4 +49,9 @@ public class Producto {
 
     @Column(name = "fecha_actualizacion")
     private Long fechaActualizacion = System.currentTimeMillis();
+
+    // Control de concurrencia optimista; también se usa como ETag del producto
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
\ No newline at end of file
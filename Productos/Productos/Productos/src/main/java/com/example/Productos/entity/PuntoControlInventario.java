@@ -0,0 +1,26 @@
+package com.example.Productos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última secuencia del diario de inventario cuyos descuentos ya están en la tabla productos.
+ * Se actualiza en la misma transacción que los descuentos para no aplicarlos dos veces al recuperar.
+ */
+@Entity
+@Table(name = "inventario_punto_control")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PuntoControlInventario {
+
+    public static final Integer ID_UNICO = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long secuencia;
+}
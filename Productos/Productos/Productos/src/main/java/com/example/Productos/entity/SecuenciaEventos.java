@@ -0,0 +1,27 @@
+package com.example.Productos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última secuencia asignada por el relay de la bandeja de salida.
+ * Se bloquea durante cada lote para que dos instancias no publiquen a la vez, y sobrevive a la limpieza
+ * de eventos antiguos: la secuencia nunca vuelve a empezar aunque no quede ningún evento publicado.
+ */
+@Entity
+@Table(name = "productos_eventos_secuencia")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecuenciaEventos {
+
+    public static final Integer ID_UNICO = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long secuencia;
+}
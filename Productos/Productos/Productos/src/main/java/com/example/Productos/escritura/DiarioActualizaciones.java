@@ -0,0 +1,161 @@
+package com.example.Productos.escritura;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diario de escritura anticipada de las actualizaciones diferidas, una línea por actualización.
+ * Igual que el diario de inventario, las escrituras concurrentes comparten un mismo fsync (group commit)
+ * y el archivo se reescribe con lo que sigue pendiente después de cada escritura en base de datos.
+ */
+public class DiarioActualizaciones implements Closeable {
+
+    private final Path ruta;
+    private final Object bloqueoSincronizacion = new Object();
+
+    // Protegidos por this
+    private FileChannel canal;
+    private long posicionEscrita;
+    private long generacion;
+
+    private volatile long posicionDurable;
+
+    public DiarioActualizaciones(Path ruta) {
+        this.ruta = ruta;
+    }
+
+    /**
+     * Leer las líneas completas existentes y abrir el archivo para agregar nuevas
+     */
+    public synchronized List<String> abrir() throws IOException {
+        if (ruta.getParent() != null) {
+            Files.createDirectories(ruta.getParent());
+        }
+
+        List<String> lineas = new ArrayList<>();
+        long longitudValida = 0;
+        if (Files.exists(ruta)) {
+            String contenido = Files.readString(ruta, StandardCharsets.UTF_8);
+            int inicio = 0;
+            int fin;
+            // Una línea final sin terminar es una escritura interrumpida y se descarta
+            while ((fin = contenido.indexOf('\n', inicio)) >= 0) {
+                lineas.add(contenido.substring(inicio, fin));
+                inicio = fin + 1;
+            }
+            longitudValida = contenido.substring(0, inicio).getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        canal.truncate(longitudValida);
+        canal.position(canal.size());
+        posicionEscrita = canal.size();
+        posicionDurable = posicionEscrita;
+        return lineas;
+    }
+
+    /**
+     * Agregar una línea al diario (sin esperar a que sea durable)
+     */
+    public synchronized Entrada escribir(String linea) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((linea + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        posicionEscrita = canal.position();
+        return new Entrada(posicionEscrita, generacion);
+    }
+
+    /**
+     * Esperar a que la línea esté en disco; un solo fsync cubre a todos los que esperan
+     */
+    public void asegurarDurable(Entrada entrada) throws IOException {
+        if (posicionDurable >= entrada.posicion() && entrada.generacion() == generacionActual()) {
+            return;
+        }
+
+        synchronized (bloqueoSincronizacion) {
+            long hasta;
+            FileChannel canalActual;
+            synchronized (this) {
+                if (entrada.generacion() != generacion) {
+                    // El diario se reescribió después de la línea y el nuevo archivo ya es durable
+                    return;
+                }
+                if (posicionDurable >= entrada.posicion()) {
+                    return;
+                }
+                hasta = posicionEscrita;
+                canalActual = canal;
+            }
+            canalActual.force(false);
+            posicionDurable = hasta;
+        }
+    }
+
+    /**
+     * Tamaño actual del archivo en bytes
+     */
+    public synchronized long tamano() {
+        return posicionEscrita;
+    }
+
+    /**
+     * Reemplazar el diario por las líneas indicadas.
+     * El llamador debe garantizar que no haya escrituras concurrentes.
+     */
+    public void reescribir(List<String> lineas) throws IOException {
+        synchronized (bloqueoSincronizacion) {
+            synchronized (this) {
+                Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+                StringBuilder contenido = new StringBuilder();
+                for (String linea : lineas) {
+                    contenido.append(linea).append('\n');
+                }
+                try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(contenido.toString().getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        nuevo.write(buffer);
+                    }
+                    nuevo.force(true);
+                }
+
+                canal.close();
+                Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                canal = FileChannel.open(ruta, StandardOpenOption.WRITE);
+                canal.position(canal.size());
+                posicionEscrita = canal.size();
+                posicionDurable = posicionEscrita;
+                generacion++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (canal != null && canal.isOpen()) {
+            canal.force(true);
+            canal.close();
+        }
+    }
+
+    private synchronized long generacionActual() {
+        return generacion;
+    }
+
+    /**
+     * Posición de una línea escrita, para esperar su durabilidad
+     */
+    public record Entrada(long posicion, long generacion) {
+    }
+}
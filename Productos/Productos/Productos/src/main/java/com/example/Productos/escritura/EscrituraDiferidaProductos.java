@@ -0,0 +1,478 @@
+package com.example.Productos.escritura;
+
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.entity.EventoProducto;
+import com.example.Productos.entity.EventoProducto.TipoEvento;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.DiarioActualizaciones.Entrada;
+import com.example.Productos.outbox.BandejaSalidaProductos;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Escritura diferida (write-behind) de actualizaciones de productos.
+ * Cada actualización queda en un diario durable y en un buffer en memoria con el último valor por producto,
+ * y se confirma al cliente sin tocar la base de datos; periódicamente los valores acumulados se escriben
+ * con un solo lote de UPDATE. Solo se difieren cambios de nombre, descripción, precio e imagen: el código,
+ * la cantidad y el estado activo siguen el camino síncrono porque afectan unicidad, reservas y listados.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EscrituraDiferidaProductos implements MeterBinder {
+
+    private final ProductoJdbcRepository productoJdbcRepository;
+    private final BandejaSalidaProductos bandejaSalida;
+    private final ProductoCache productoCache;
+    private final ConsultasEnCurso consultasEnCurso;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final CatalogoPrecomprimido catalogo;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${productos.escritura-diferida.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${productos.escritura-diferida.diario:datos/actualizaciones.diario}")
+    private String rutaDiario;
+
+    /**
+     * Valor pendiente de un producto y su estado en base de datos antes de la primera actualización acumulada
+     */
+    private record Pendiente(String antes, Producto producto) {
+    }
+
+    private final ConcurrentHashMap<Long, Pendiente> pendientes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> idsPorCodigo = new ConcurrentHashMap<>();
+
+    // Las actualizaciones toman el bloqueo de lectura; la escritura en base de datos toma el de escritura
+    // para copiar el buffer y reescribir el diario sin líneas a medio agregar
+    private final ReentrantReadWriteLock bloqueoDiario = new ReentrantReadWriteLock();
+
+    // Serializa la escritura periódica con las que piden los caminos síncronos
+    private final ReentrantLock bloqueoEscritura = new ReentrantLock();
+
+    private final LongAdder absorbidas = new LongAdder();
+    private final LongAdder escritas = new LongAdder();
+
+    private DiarioActualizaciones diario;
+    private TransactionTemplate transaccion;
+
+    /**
+     * Recuperar las actualizaciones pendientes del diario. Si la escritura diferida se deshabilitó con
+     * actualizaciones aún en el diario, se recuperan igual para escribirlas en el primer ciclo.
+     */
+    @PostConstruct
+    void recuperar() throws IOException {
+        transaccion = new TransactionTemplate(transactionManager);
+        // Lo escrito se retira del buffer y del diario recién al confirmar esta transacción, nunca la de otro
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Path ruta = Path.of(rutaDiario);
+        if (!habilitada && !Files.exists(ruta)) {
+            return;
+        }
+
+        diario = new DiarioActualizaciones(ruta);
+        for (String linea : diario.abrir()) {
+            Registro registro;
+            try {
+                registro = objectMapper.readValue(linea, Registro.class);
+            } catch (JacksonException e) {
+                log.warn("Registro del diario de actualizaciones inválido, se descarta desde aquí: {}", linea);
+                break;
+            }
+            Pendiente anterior = pendientes.get(registro.producto().getId());
+            pendientes.put(registro.producto().getId(), new Pendiente(
+                    anterior != null ? anterior.antes() : registro.antes(), registro.producto()));
+            idsPorCodigo.put(registro.producto().getCodigo(), registro.producto().getId());
+        }
+        log.info("Escritura diferida {}: {} actualizaciones pendientes recuperadas del diario",
+                habilitada ? "habilitada" : "deshabilitada", pendientes.size());
+    }
+
+    @PreDestroy
+    void cerrar() throws IOException {
+        if (diario != null) {
+            escribirPendientes();
+            diario.close();
+        }
+    }
+
+    public boolean estaHabilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Verificar si la actualización puede diferirse: no cambia el código, la cantidad ni el estado activo
+     */
+    public boolean admite(Producto actual, Producto cambios) {
+        return habilitada
+                && Objects.equals(actual.getCodigo(), cambios.getCodigo())
+                && Objects.equals(actual.getCantidad(), cambios.getCantidad())
+                && Objects.equals(actual.getActivo(), cambios.getActivo());
+    }
+
+    /**
+     * Registrar una actualización en el diario y en el buffer; retorna cuando el diario es durable
+     * @param actual Producto tal como está en base de datos (se ignora si ya hay un valor pendiente)
+     * @return Nuevo valor del producto, visible de inmediato para las lecturas
+     */
+    public Producto registrar(Producto actual, Producto cambios) {
+        Long id = actual.getId();
+        Entrada[] entrada = new Entrada[1];
+        Pendiente pendiente;
+
+        bloqueoDiario.readLock().lock();
+        try {
+            // compute ordena las actualizaciones de un mismo producto igual en el diario y en el buffer
+            pendiente = pendientes.compute(id, (clave, anterior) -> {
+                Producto base = anterior != null ? anterior.producto() : actual;
+                Producto nuevo = copiar(base);
+                nuevo.setNombre(cambios.getNombre());
+                nuevo.setDescripcion(cambios.getDescripcion());
+                nuevo.setPrecio(cambios.getPrecio());
+                nuevo.setImg(cambios.getImg());
+                nuevo.setFechaActualizacion(System.currentTimeMillis());
+                nuevo.setVersion(base.getVersion() + 1);
+
+                String antes = anterior != null ? anterior.antes() : bandejaSalida.capturar(actual);
+                try {
+                    entrada[0] = diario.escribir(objectMapper.writeValueAsString(new Registro(antes, nuevo)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo escribir el diario de actualizaciones", e);
+                }
+                return new Pendiente(antes, nuevo);
+            });
+            idsPorCodigo.put(pendiente.producto().getCodigo(), id);
+        } finally {
+            bloqueoDiario.readLock().unlock();
+        }
+
+        try {
+            diario.asegurarDurable(entrada[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo sincronizar el diario de actualizaciones", e);
+        }
+        absorbidas.increment();
+        log.debug("Actualización diferida del producto con ID {} (versión {})", id, pendiente.producto().getVersion());
+        return copiar(pendiente.producto());
+    }
+
+    /**
+     * Obtener el valor pendiente de un producto, si tiene una actualización sin escribir
+     */
+    public Optional<Producto> obtener(Long id) {
+        Pendiente pendiente = pendientes.get(id);
+        return pendiente == null ? Optional.empty() : Optional.of(copiar(pendiente.producto()));
+    }
+
+    /**
+     * Igual que {@link #obtener(Long)} pero por código
+     */
+    public Optional<Producto> obtenerPorCodigo(String codigo) {
+        Long id = idsPorCodigo.get(codigo);
+        return id == null ? Optional.empty() : obtener(id);
+    }
+
+    /**
+     * Obtener los valores pendientes de los IDs indicados que tengan una actualización sin escribir
+     */
+    public Map<Long, Producto> obtenerTodos(Collection<Long> ids) {
+        Map<Long, Producto> resultado = new HashMap<>();
+        if (!pendientes.isEmpty()) {
+            for (Long id : ids) {
+                obtener(id).ifPresent(producto -> resultado.put(id, producto));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Igual que {@link #obtenerTodos(Collection)} pero por código
+     */
+    public Map<String, Producto> obtenerTodosPorCodigo(Collection<String> codigos) {
+        Map<String, Producto> resultado = new HashMap<>();
+        if (!pendientes.isEmpty()) {
+            for (String codigo : codigos) {
+                obtenerPorCodigo(codigo).ifPresent(producto -> resultado.put(codigo, producto));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Reemplazar el producto leído de base de datos o caché por su valor pendiente, si lo tiene
+     */
+    public Producto superponer(Producto producto) {
+        return producto == null || pendientes.isEmpty() ? producto : obtener(producto.getId()).orElse(producto);
+    }
+
+    /**
+     * Reemplazar en una copia de la lista los productos con valor pendiente (sin modificar las entidades)
+     */
+    public List<Producto> superponer(List<Producto> productos) {
+        if (pendientes.isEmpty()) {
+            return productos;
+        }
+        List<Producto> resultado = new ArrayList<>(productos.size());
+        for (Producto producto : productos) {
+            resultado.add(superponer(producto));
+        }
+        return resultado;
+    }
+
+    /**
+     * Reemplazar en una copia del mapa los productos con valor pendiente
+     */
+    public <K> Map<K, Producto> superponer(Map<K, Producto> productos) {
+        if (pendientes.isEmpty()) {
+            return productos;
+        }
+        Map<K, Producto> resultado = new HashMap<>(productos.size());
+        productos.forEach((clave, producto) -> resultado.put(clave, superponer(producto)));
+        return resultado;
+    }
+
+    public boolean hayPendientes() {
+        return !pendientes.isEmpty();
+    }
+
+    /**
+     * Escribir de inmediato las actualizaciones pendientes si el producto tiene alguna,
+     * para que un cambio síncrono parta del último valor confirmado al cliente.
+     * Debe invocarse antes de abrir la transacción del cambio síncrono.
+     * @return true si se escribió algo en base de datos
+     */
+    public boolean escribirSiPendiente(Long id) {
+        if (!pendientes.containsKey(id)) {
+            return false;
+        }
+        escribirPendientes();
+        return true;
+    }
+
+    /**
+     * Llevar sobre el producto confirmado por un cambio síncrono la actualización registrada mientras tanto
+     * (entre {@link #escribirSiPendiente(Long)} y la confirmación): conserva nombre, descripción, precio e imagen
+     * pendientes y toma de la fila confirmada el código, la cantidad, el estado activo y la versión.
+     * Debe invocarse al confirmar la transacción del cambio síncrono.
+     */
+    public void rebasar(Producto confirmado) {
+        Long id = confirmado.getId();
+        if (!pendientes.containsKey(id)) {
+            return;
+        }
+
+        bloqueoDiario.writeLock().lock();
+        try {
+            Pendiente anterior = pendientes.get(id);
+            if (anterior == null) {
+                return;
+            }
+            Producto nuevo = copiar(confirmado);
+            nuevo.setNombre(anterior.producto().getNombre());
+            nuevo.setDescripcion(anterior.producto().getDescripcion());
+            nuevo.setPrecio(anterior.producto().getPrecio());
+            nuevo.setImg(anterior.producto().getImg());
+            nuevo.setFechaActualizacion(Math.max(confirmado.getFechaActualizacion(),
+                    anterior.producto().getFechaActualizacion()));
+            // La escritura en lote aplica GREATEST(version + 1, :version) sobre la fila ya confirmada
+            nuevo.setVersion(Math.max(confirmado.getVersion() + 1, anterior.producto().getVersion()));
+
+            // El evento del cambio síncrono ya registró la transición desde el estado anterior
+            pendientes.put(id, new Pendiente(bandejaSalida.capturar(confirmado), nuevo));
+            idsPorCodigo.remove(anterior.producto().getCodigo(), id);
+            idsPorCodigo.put(nuevo.getCodigo(), id);
+            reescribirDiario();
+        } finally {
+            bloqueoDiario.writeLock().unlock();
+        }
+        log.debug("Actualización diferida del producto con ID {} llevada sobre el cambio síncrono", id);
+    }
+
+    /**
+     * Descartar la actualización pendiente de un producto eliminado permanentemente; al escribirse no
+     * afectaría ninguna fila, pero mientras tanto las lecturas lo seguirían mostrando.
+     * Debe invocarse al confirmar la transacción del borrado.
+     */
+    public void descartar(Long id) {
+        if (!pendientes.containsKey(id)) {
+            return;
+        }
+
+        bloqueoDiario.writeLock().lock();
+        try {
+            Pendiente anterior = pendientes.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            idsPorCodigo.remove(anterior.producto().getCodigo(), id);
+            reescribirDiario();
+        } finally {
+            bloqueoDiario.writeLock().unlock();
+        }
+        log.debug("Actualización diferida del producto con ID {} descartada por su borrado", id);
+    }
+
+    /**
+     * Escribir en base de datos las actualizaciones acumuladas, un UPDATE por producto en un solo lote
+     */
+    @Scheduled(fixedDelayString = "${productos.escritura-diferida.intervalo:200ms}")
+    public void escribirPendientes() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Retendría la conexión de esa transacción mientras espera otra: con el pool agotado no avanzaría
+            throw new IllegalStateException("Las actualizaciones diferidas deben escribirse fuera de una transacción");
+        }
+
+        bloqueoEscritura.lock();
+        try {
+            Map<Long, Pendiente> lote;
+            bloqueoDiario.writeLock().lock();
+            try {
+                lote = new HashMap<>(pendientes);
+            } finally {
+                bloqueoDiario.writeLock().unlock();
+            }
+            if (lote.isEmpty()) {
+                return;
+            }
+
+            List<Pendiente> valores = new ArrayList<>(lote.values());
+            List<Producto> escritos = new ArrayList<>(valores.size());
+            try {
+                transaccion.executeWithoutResult(estado -> {
+                    int[] filas = productoJdbcRepository.actualizarDiferidos(
+                            valores.stream().map(Pendiente::producto).toList());
+                    List<EventoProducto> eventos = new ArrayList<>(valores.size());
+                    for (int i = 0; i < valores.size(); i++) {
+                        Pendiente pendiente = valores.get(i);
+                        if (filas[i] == 0) {
+                            // Eliminado después de acumular la actualización
+                            continue;
+                        }
+                        escritos.add(pendiente.producto());
+                        eventos.add(bandejaSalida.crearEvento(TipoEvento.ACTUALIZADO, pendiente.producto(),
+                                pendiente.antes(), bandejaSalida.capturar(pendiente.producto())));
+                    }
+                    bandejaSalida.registrarLote(eventos);
+                });
+            } catch (RuntimeException e) {
+                log.error("Error al escribir actualizaciones diferidas, se reintentará: {}", e.getMessage());
+                return;
+            }
+
+            // Invalidar antes y después de retirar los pendientes para no exponer un valor anterior en caché
+            escritos.forEach(this::invalidar);
+            bloqueoDiario.writeLock().lock();
+            try {
+                lote.forEach((id, pendiente) -> {
+                    if (pendientes.remove(id, pendiente)) {
+                        idsPorCodigo.remove(pendiente.producto().getCodigo(), id);
+                    }
+                });
+                reescribirDiario();
+            } finally {
+                bloqueoDiario.writeLock().unlock();
+            }
+            escritos.forEach(this::invalidar);
+
+            escritos.forEach(indiceBusqueda::indexar);
+            catalogo.marcarCambios(escritos.stream().map(Producto::getId).toList());
+            escritas.add(escritos.size());
+            log.debug("Actualizaciones diferidas escritas para {} productos", escritos.size());
+        } finally {
+            bloqueoEscritura.unlock();
+        }
+    }
+
+    /**
+     * Registrar las actualizaciones absorbidas, las escritas en base de datos y las pendientes
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registrar(registry, "absorbidas", absorbidas);
+        registrar(registry, "escritas", escritas);
+        Gauge.builder("productos.escritura-diferida.pendientes", pendientes, Map::size)
+                .description("Productos con una actualización diferida aún no escrita en base de datos")
+                .register(registry);
+    }
+
+    /**
+     * Reemplazar el diario por lo que sigue pendiente (actualizaciones llegadas durante la escritura)
+     */
+    private void reescribirDiario() {
+        List<String> lineas = new ArrayList<>(pendientes.size());
+        for (Pendiente pendiente : pendientes.values()) {
+            lineas.add(objectMapper.writeValueAsString(new Registro(pendiente.antes(), pendiente.producto())));
+        }
+        try {
+            diario.reescribir(lineas);
+        } catch (IOException e) {
+            // El diario conserva líneas ya escritas; al recuperarlo se vuelven a aplicar sin efecto
+            log.error("Error al reescribir el diario de actualizaciones: {}", e.getMessage());
+        }
+    }
+
+    private void invalidar(Producto producto) {
+        consultasEnCurso.olvidar();
+        productoCache.invalidar(producto.getId(), producto.getCodigo());
+    }
+
+    private static Producto copiar(Producto producto) {
+        return new Producto(producto.getId(), producto.getCodigo(), producto.getNombre(), producto.getDescripcion(),
+                producto.getPrecio(), producto.getCantidad(), producto.getImg(), producto.getActivo(),
+                producto.getFechaCreacion(), producto.getFechaActualizacion(), producto.getVersion());
+    }
+
+    private static void registrar(MeterRegistry registry, String resultado, LongAdder valor) {
+        FunctionCounter.builder("productos.escritura-diferida.actualizaciones", valor, LongAdder::sum)
+                .description("Actualizaciones de productos absorbidas por el buffer y escritas en base de datos")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    /**
+     * Línea del diario: estado anterior (para el evento) y nuevo valor del producto
+     */
+    record Registro(String antes, Producto producto) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.Productos.formato;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Tipos de contenido compactos para consumidores internos. Con cualquiera de ellos como tipo preferido
+ * en Accept la respuesta es el objeto de datos sin el sobre mensaje/data/estado; los errores siguen
+ * siendo el mapa de error, así que el cliente debe aceptar también JSON con menor prioridad:
+ * <pre>
+ * Accept: application/x-protobuf, application/json;q=0.5
+ * </pre>
+ */
+public final class FormatosProducto {
+
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Mensajes Producto y ListaProductos de src/main/proto/productos.proto
+     */
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    /**
+     * Listas en JSON por columnas: cada nombre de campo aparece una sola vez
+     */
+    public static final MediaType COLUMNAS = new MediaType("application", "vnd.productos.columnas+json");
+
+    private static final List<MediaType> COMPACTOS = List.of(CBOR, SMILE, PROTOBUF, COLUMNAS);
+
+    private FormatosProducto() {
+    }
+
+    /**
+     * Indica si el tipo con mayor calidad en Accept es uno de los formatos compactos
+     * (ante la misma calidad gana el que aparece primero)
+     */
+    public static boolean prefiereCompacto(String aceptar) {
+        if (aceptar == null || aceptar.isBlank()) {
+            return false;
+        }
+
+        List<MediaType> tipos;
+        try {
+            tipos = MediaType.parseMediaTypes(aceptar);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType preferido = null;
+        for (MediaType tipo : tipos) {
+            if (preferido == null || tipo.getQualityValue() > preferido.getQualityValue()) {
+                preferido = tipo;
+            }
+        }
+        if (preferido == null || preferido.getQualityValue() == 0) {
+            return false;
+        }
+        for (MediaType compacto : COMPACTOS) {
+            if (compacto.equalsTypeAndSubtype(preferido)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Productos.formato;
+
+import com.example.Productos.dto.CamposProducto;
+import com.example.Productos.dto.CamposProducto.Campo;
+import com.example.Productos.dto.PaginaBusqueda;
+import com.example.Productos.dto.PaginaFiltro;
+import com.example.Productos.dto.PaginaProductos;
+import com.example.Productos.entity.Producto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vista común de las páginas de productos para los formatos compactos.
+ * Las filas son entidades completas o proyecciones de fields= (mapas con el nombre del campo).
+ * @param siguienteCursor null si no hay más resultados o si la página no usa cursor
+ * @param pagina Solo en búsquedas
+ * @param total Solo en búsquedas
+ */
+record ListaProductos(List<?> filas, String siguienteCursor, int limite, boolean hayMas,
+                      Integer pagina, Long total) {
+
+    /**
+     * Tipos de respuesta que pueden escribirse como lista de productos
+     */
+    static boolean admite(Class<?> clase) {
+        return PaginaProductos.class.isAssignableFrom(clase)
+                || PaginaFiltro.class.isAssignableFrom(clase)
+                || PaginaBusqueda.class.isAssignableFrom(clase);
+    }
+
+    static ListaProductos desde(Object pagina) {
+        if (pagina instanceof PaginaProductos<?> productos) {
+            return new ListaProductos(productos.getProductos(),
+                    productos.getSiguienteCursor() == null ? null : productos.getSiguienteCursor().toString(),
+                    productos.getLimite(), productos.isHayMas(), null, null);
+        }
+        if (pagina instanceof PaginaFiltro filtro) {
+            return new ListaProductos(filtro.getProductos(), filtro.getSiguienteCursor(), filtro.getLimite(),
+                    filtro.isHayMas(), null, null);
+        }
+        if (pagina instanceof PaginaBusqueda<?> busqueda) {
+            return new ListaProductos(busqueda.getProductos(), null, busqueda.getLimite(), false,
+                    busqueda.getPagina(), busqueda.getTotal());
+        }
+        throw new IllegalArgumentException("Tipo de respuesta no admitido: " + pagina.getClass().getName());
+    }
+
+    /**
+     * Campos presentes en las filas: todos para entidades, los de la proyección para mapas
+     */
+    List<Campo> campos() {
+        if (!filas.isEmpty() && filas.get(0) instanceof Map<?, ?> fila) {
+            List<Campo> campos = new ArrayList<>(fila.size());
+            for (Object nombre : fila.keySet()) {
+                campos.add(CamposProducto.buscar(nombre.toString()));
+            }
+            return campos;
+        }
+        return Arrays.asList(Campo.values());
+    }
+
+    /**
+     * Valor de un campo en una fila de cualquiera de los dos tipos
+     */
+    static Object valor(Object fila, Campo campo) {
+        if (fila instanceof Producto producto) {
+            return campo.leer(producto);
+        }
+        return ((Map<?, ?>) fila).get(campo.getNombre());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.Productos.formato;
+
+import com.example.Productos.dto.CamposProducto.Campo;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Escribe las páginas de productos en JSON por columnas, con cada nombre de campo una sola vez:
+ * <pre>
+ * {"columnas":{"id":[1,2],"codigo":["A-1","B-2"],...},"siguienteCursor":"2","limite":2,"hayMas":true}
+ * </pre>
+ * Los valores se leen de las entidades (o de las filas de fields=) y se escriben con el generador de Jackson,
+ * sin construir objetos intermedios.
+ */
+@Component
+public class ProductoColumnasHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    public ProductoColumnasHttpMessageConverter(ObjectMapper objectMapper) {
+        super(FormatosProducto.COLUMNAS);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ListaProductos.admite(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("El formato por columnas solo se admite en respuestas", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object cuerpo, HttpOutputMessage outputMessage) throws IOException {
+        ListaProductos lista = ListaProductos.desde(cuerpo);
+        try (JsonGenerator generador = objectMapper.createGenerator(StreamUtils.nonClosing(outputMessage.getBody()))) {
+            escribir(generador, lista);
+        }
+    }
+
+    static void escribir(JsonGenerator generador, ListaProductos lista) {
+        List<?> filas = lista.filas();
+        generador.writeStartObject();
+        generador.writeName("columnas");
+        generador.writeStartObject();
+        for (Campo campo : lista.campos()) {
+            generador.writeName(campo.getNombre());
+            generador.writeStartArray();
+            for (Object fila : filas) {
+                escribirValor(generador, ListaProductos.valor(fila, campo));
+            }
+            generador.writeEndArray();
+        }
+        generador.writeEndObject();
+
+        if (lista.siguienteCursor() != null) {
+            generador.writeStringProperty("siguienteCursor", lista.siguienteCursor());
+        }
+        generador.writeNumberProperty("limite", lista.limite());
+        generador.writeBooleanProperty("hayMas", lista.hayMas());
+        if (lista.pagina() != null) {
+            generador.writeNumberProperty("pagina", lista.pagina());
+        }
+        if (lista.total() != null) {
+            generador.writeNumberProperty("total", lista.total());
+        }
+        generador.writeEndObject();
+    }
+
+    private static void escribirValor(JsonGenerator generador, Object valor) {
+        if (valor == null) {
+            generador.writeNull();
+        } else if (valor instanceof String texto) {
+            generador.writeString(texto);
+        } else if (valor instanceof Long entero) {
+            generador.writeNumber(entero);
+        } else if (valor instanceof Integer entero) {
+            generador.writeNumber(entero);
+        } else if (valor instanceof Double decimal) {
+            generador.writeNumber(decimal);
+        } else if (valor instanceof Boolean logico) {
+            generador.writeBoolean(logico);
+        } else {
+            generador.writePOJO(valor);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.Productos.formato;
+
+import com.example.Productos.dto.CamposProducto;
+import com.example.Productos.dto.CamposProducto.Campo;
+import com.example.Productos.entity.Producto;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Escribe Producto y las páginas de productos como los mensajes Producto y ListaProductos de
+ * src/main/proto/productos.proto, directamente desde las entidades y sin clases generadas.
+ * Los números de campo siguen el orden de {@link Campo} (id = 1 ... version = 11).
+ */
+@Component
+public class ProductoProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    // Campos de ListaProductos
+    private static final int LISTA_PRODUCTOS = 1;
+    private static final int LISTA_SIGUIENTE_CURSOR = 2;
+    private static final int LISTA_LIMITE = 3;
+    private static final int LISTA_HAY_MAS = 4;
+    private static final int LISTA_PAGINA = 5;
+    private static final int LISTA_TOTAL = 6;
+
+    private static final Campo[] CAMPOS = Campo.values();
+
+    public ProductoProtobufHttpMessageConverter() {
+        super(FormatosProducto.PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Producto.class.isAssignableFrom(clazz) || ListaProductos.admite(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        // Solo formato de respuesta: las solicitudes siguen llegando en JSON
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf solo se admite en respuestas", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object cuerpo, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream salida = CodedOutputStream.newInstance(outputMessage.getBody());
+        if (cuerpo instanceof Producto producto) {
+            escribirFila(salida, producto);
+        } else {
+            escribirLista(salida, ListaProductos.desde(cuerpo));
+        }
+        salida.flush();
+    }
+
+    static void escribirLista(CodedOutputStream salida, ListaProductos lista) throws IOException {
+        for (Object fila : lista.filas()) {
+            // Mensaje anidado: etiqueta, longitud y contenido
+            salida.writeTag(LISTA_PRODUCTOS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            salida.writeUInt32NoTag(tamanoFila(fila));
+            escribirFila(salida, fila);
+        }
+        if (lista.siguienteCursor() != null) {
+            salida.writeString(LISTA_SIGUIENTE_CURSOR, lista.siguienteCursor());
+        }
+        salida.writeInt32(LISTA_LIMITE, lista.limite());
+        salida.writeBool(LISTA_HAY_MAS, lista.hayMas());
+        if (lista.pagina() != null) {
+            salida.writeInt32(LISTA_PAGINA, lista.pagina());
+        }
+        if (lista.total() != null) {
+            salida.writeInt64(LISTA_TOTAL, lista.total());
+        }
+    }
+
+    /**
+     * Escribir los campos con valor de una entidad o de una fila proyectada (los nulos se omiten)
+     */
+    static void escribirFila(CodedOutputStream salida, Object fila) throws IOException {
+        if (fila instanceof Map<?, ?> proyeccion) {
+            for (Map.Entry<?, ?> entrada : proyeccion.entrySet()) {
+                escribirCampo(salida, CamposProducto.buscar(entrada.getKey().toString()), entrada.getValue());
+            }
+        } else {
+            Producto producto = (Producto) fila;
+            for (Campo campo : CAMPOS) {
+                escribirCampo(salida, campo, campo.leer(producto));
+            }
+        }
+    }
+
+    /**
+     * Bytes que ocupa la fila, necesarios antes de escribirla como mensaje anidado
+     */
+    static int tamanoFila(Object fila) {
+        int tamano = 0;
+        if (fila instanceof Map<?, ?> proyeccion) {
+            for (Map.Entry<?, ?> entrada : proyeccion.entrySet()) {
+                tamano += tamanoCampo(CamposProducto.buscar(entrada.getKey().toString()), entrada.getValue());
+            }
+        } else {
+            Producto producto = (Producto) fila;
+            for (Campo campo : CAMPOS) {
+                tamano += tamanoCampo(campo, campo.leer(producto));
+            }
+        }
+        return tamano;
+    }
+
+    private static void escribirCampo(CodedOutputStream salida, Campo campo, Object valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        int numero = campo.ordinal() + 1;
+        switch (campo) {
+            case CODIGO, NOMBRE, DESCRIPCION, IMG -> salida.writeString(numero, valor.toString());
+            case PRECIO -> salida.writeDouble(numero, ((Number) valor).doubleValue());
+            case CANTIDAD -> salida.writeInt32(numero, ((Number) valor).intValue());
+            case ACTIVO -> salida.writeBool(numero, (Boolean) valor);
+            case ID, FECHA_CREACION, FECHA_ACTUALIZACION, VERSION ->
+                    salida.writeInt64(numero, ((Number) valor).longValue());
+        }
+    }
+
+    private static int tamanoCampo(Campo campo, Object valor) {
+        if (valor == null) {
+            return 0;
+        }
+        int numero = campo.ordinal() + 1;
+        return switch (campo) {
+            case CODIGO, NOMBRE, DESCRIPCION, IMG -> CodedOutputStream.computeStringSize(numero, valor.toString());
+            case PRECIO -> CodedOutputStream.computeDoubleSize(numero, ((Number) valor).doubleValue());
+            case CANTIDAD -> CodedOutputStream.computeInt32Size(numero, ((Number) valor).intValue());
+            case ACTIVO -> CodedOutputStream.computeBoolSize(numero, (Boolean) valor);
+            case ID, FECHA_CREACION, FECHA_ACTUALIZACION, VERSION ->
+                    CodedOutputStream.computeInt64Size(numero, ((Number) valor).longValue());
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.Productos.inventario;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contador de existencias en memoria de un producto, sin bloqueos para reservar y liberar.
+ * <ul>
+ *     <li>base: cantidad persistida en la columna productos.cantidad</li>
+ *     <li>comprometido: unidades reservadas más las confirmadas que aún no se descuentan en base de datos</li>
+ *     <li>pendiente: unidades confirmadas que aún no se descuentan en base de datos</li>
+ * </ul>
+ * Disponible para reservar = base - comprometido.
+ */
+public class ContadorStock {
+
+    private volatile int base;
+    private final AtomicInteger comprometido;
+    private final AtomicInteger pendiente;
+
+    public ContadorStock(int base, int reservado, int pendiente) {
+        this.base = base;
+        this.comprometido = new AtomicInteger(reservado + pendiente);
+        this.pendiente = new AtomicInteger(pendiente);
+    }
+
+    /**
+     * Reservar unidades si hay disponibles (compare-and-set, sin bloqueos)
+     * @return true si se reservaron, false si no hay existencias suficientes
+     */
+    public boolean reservar(int cantidad) {
+        while (true) {
+            int actual = comprometido.get();
+            if (base - actual < cantidad) {
+                return false;
+            }
+            if (comprometido.compareAndSet(actual, actual + cantidad)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Devolver unidades reservadas que no se usarán
+     */
+    public void liberar(int cantidad) {
+        comprometido.addAndGet(-cantidad);
+    }
+
+    /**
+     * Convertir una reserva en un descuento pendiente de escribir en base de datos
+     */
+    public void confirmar(int cantidad) {
+        pendiente.addAndGet(cantidad);
+    }
+
+    /**
+     * Tomar el descuento acumulado para escribirlo en base de datos
+     */
+    public int tomarPendiente() {
+        return pendiente.getAndSet(0);
+    }
+
+    /**
+     * Devolver un descuento que no pudo escribirse
+     */
+    public void restaurarPendiente(int cantidad) {
+        pendiente.addAndGet(cantidad);
+    }
+
+    /**
+     * Aplicar un descuento ya escrito en base de datos.
+     * Primero baja la base para que, entre ambos pasos, el disponible nunca quede por encima del real.
+     */
+    public void aplicarDescuento(int cantidad) {
+        base -= cantidad;
+        comprometido.addAndGet(-cantidad);
+    }
+
+    /**
+     * Reemplazar la cantidad persistida tras una escritura externa (actualización o carga masiva)
+     */
+    public void sincronizarBase(int nuevaBase) {
+        base = nuevaBase;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    public int getComprometido() {
+        return comprometido.get();
+    }
+
+    public int getPendiente() {
+        return pendiente.get();
+    }
+
+    public int getDisponible() {
+        return base - comprometido.get();
+    }
+}
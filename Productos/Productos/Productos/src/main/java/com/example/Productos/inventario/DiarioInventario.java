@@ -0,0 +1,239 @@
+package com.example.Productos.inventario;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diario de escritura anticipada (write-ahead) de las operaciones de inventario.
+ * Cada registro es una línea con número de secuencia; las escrituras concurrentes comparten
+ * un mismo fsync (group commit) antes de confirmar la operación al cliente.
+ */
+@Slf4j
+public class DiarioInventario implements Closeable {
+
+    private static final String SEPARADOR = ";";
+
+    private final Path ruta;
+    private final Object bloqueoSincronizacion = new Object();
+
+    // Protegidos por this
+    private FileChannel canal;
+    private long secuencia;
+    private long posicionEscrita;
+    private long generacion;
+
+    private volatile long posicionDurable;
+
+    public DiarioInventario(Path ruta) {
+        this.ruta = ruta;
+    }
+
+    /**
+     * Leer los registros existentes y abrir el archivo para agregar nuevos
+     */
+    public synchronized List<Registro> abrir() throws IOException {
+        if (ruta.getParent() != null) {
+            Files.createDirectories(ruta.getParent());
+        }
+
+        List<Registro> registros = new ArrayList<>();
+        if (Files.exists(ruta)) {
+            String contenido = Files.readString(ruta, StandardCharsets.UTF_8);
+            int inicio = 0;
+            int fin;
+            // Solo cuentan las líneas terminadas; una línea final cortada es una escritura interrumpida
+            while ((fin = contenido.indexOf('\n', inicio)) >= 0) {
+                String linea = contenido.substring(inicio, fin);
+                Registro registro = Registro.leer(linea);
+                if (registro == null) {
+                    log.warn("Registro del diario de inventario inválido, se descarta desde aquí: {}", linea);
+                    break;
+                }
+                registros.add(registro);
+                secuencia = Math.max(secuencia, registro.secuencia());
+                inicio = fin + 1;
+            }
+        }
+
+        canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        canal.truncate(longitudValida(registros));
+        canal.position(canal.size());
+        posicionEscrita = canal.size();
+        posicionDurable = posicionEscrita;
+        return registros;
+    }
+
+    /**
+     * Agregar un registro al diario (sin esperar a que sea durable)
+     */
+    public synchronized Entrada escribir(TipoRegistro tipo, String reservaId, Long productoId, int cantidad, long expira)
+            throws IOException {
+        Registro registro = new Registro(++secuencia, tipo, reservaId, productoId, cantidad, expira);
+        ByteBuffer buffer = ByteBuffer.wrap(registro.escribir().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        posicionEscrita = canal.position();
+        return new Entrada(registro.secuencia(), posicionEscrita, generacion);
+    }
+
+    /**
+     * Esperar a que el registro esté en disco; un solo fsync cubre a todos los que esperan
+     */
+    public void asegurarDurable(Entrada entrada) throws IOException {
+        if (posicionDurable >= entrada.posicion() && entrada.generacion() == generacionActual()) {
+            return;
+        }
+
+        synchronized (bloqueoSincronizacion) {
+            long hasta;
+            FileChannel canalActual;
+            synchronized (this) {
+                if (entrada.generacion() != generacion) {
+                    // El diario se reescribió después del registro y el nuevo archivo ya es durable
+                    return;
+                }
+                if (posicionDurable >= entrada.posicion()) {
+                    return;
+                }
+                hasta = posicionEscrita;
+                canalActual = canal;
+            }
+            canalActual.force(false);
+            posicionDurable = hasta;
+        }
+    }
+
+    /**
+     * Último número de secuencia asignado
+     */
+    public synchronized long ultimaSecuencia() {
+        return secuencia;
+    }
+
+    /**
+     * Tamaño actual del archivo en bytes
+     */
+    public synchronized long tamano() {
+        return posicionEscrita;
+    }
+
+    /**
+     * Reemplazar el diario por los registros indicados (compactación).
+     * El llamador debe garantizar que no haya escrituras concurrentes.
+     */
+    public void reescribir(List<Registro> registros) throws IOException {
+        synchronized (bloqueoSincronizacion) {
+            synchronized (this) {
+                Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+                StringBuilder contenido = new StringBuilder();
+                for (Registro registro : registros) {
+                    contenido.append(registro.escribir());
+                }
+                try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(contenido.toString().getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        nuevo.write(buffer);
+                    }
+                    nuevo.force(true);
+                }
+
+                canal.close();
+                Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                canal = FileChannel.open(ruta, StandardOpenOption.WRITE);
+                canal.position(canal.size());
+                posicionEscrita = canal.size();
+                posicionDurable = posicionEscrita;
+                generacion++;
+            }
+        }
+    }
+
+    /**
+     * Evitar reutilizar secuencias ya cubiertas por el punto de control
+     */
+    public synchronized void asegurarSecuenciaMinima(long minima) {
+        secuencia = Math.max(secuencia, minima);
+    }
+
+    /**
+     * Asignar un nuevo número de secuencia para un registro de compactación
+     */
+    public synchronized long siguienteSecuencia() {
+        return ++secuencia;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (canal != null && canal.isOpen()) {
+            canal.force(true);
+            canal.close();
+        }
+    }
+
+    private synchronized long generacionActual() {
+        return generacion;
+    }
+
+    private long longitudValida(List<Registro> registros) {
+        long longitud = 0;
+        for (Registro registro : registros) {
+            longitud += registro.escribir().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return longitud;
+    }
+
+    public enum TipoRegistro {
+        /** Reserva creada */
+        RESERVA,
+        /** Reserva liberada por el cliente */
+        LIBERACION,
+        /** Reserva liberada por vencimiento */
+        VENCIMIENTO,
+        /** Reserva confirmada: descuento pendiente de escribir */
+        CONFIRMACION,
+        /** Descuento pendiente arrastrado al compactar el diario */
+        PENDIENTE
+    }
+
+    /**
+     * Posición de un registro escrito, para esperar su durabilidad
+     */
+    public record Entrada(long secuencia, long posicion, long generacion) {
+    }
+
+    public record Registro(long secuencia, TipoRegistro tipo, String reservaId, Long productoId, int cantidad,
+                           long expira) {
+
+        String escribir() {
+            return secuencia + SEPARADOR + tipo + SEPARADOR + (reservaId == null ? "" : reservaId) + SEPARADOR
+                    + productoId + SEPARADOR + cantidad + SEPARADOR + expira + "\n";
+        }
+
+        static Registro leer(String linea) {
+            String[] campos = linea.split(SEPARADOR, -1);
+            if (campos.length != 6) {
+                return null;
+            }
+            try {
+                return new Registro(Long.parseLong(campos[0]), TipoRegistro.valueOf(campos[1]),
+                        campos[2].isEmpty() ? null : campos[2], Long.valueOf(campos[3]),
+                        Integer.parseInt(campos[4]), Long.parseLong(campos[5]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
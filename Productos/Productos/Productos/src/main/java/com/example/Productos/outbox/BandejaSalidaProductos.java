@@ -0,0 +1,55 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.entity.EventoProducto;
+import com.example.Productos.entity.EventoProducto.TipoEvento;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.repository.EventoProductoJdbcRepository;
+import com.example.Productos.repository.EventoProductoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+/**
+ * Registra los eventos de cambio de productos en la transacción en curso.
+ * El estado "antes" se serializa antes de modificar la entidad.
+ */
+@Component
+@RequiredArgsConstructor
+public class BandejaSalidaProductos {
+
+    private final EventoProductoRepository eventoProductoRepository;
+    private final EventoProductoJdbcRepository eventoProductoJdbcRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Capturar el estado de un producto en JSON (null si no existe)
+     */
+    public String capturar(Producto producto) {
+        return producto == null ? null : objectMapper.writeValueAsString(producto);
+    }
+
+    /**
+     * Registrar un evento; debe llamarse dentro de la transacción del cambio
+     */
+    public void registrar(TipoEvento tipo, Producto producto, String antes) {
+        String despues = tipo == TipoEvento.ELIMINADO ? null : capturar(producto);
+        eventoProductoRepository.save(crearEvento(tipo, producto, antes, despues));
+    }
+
+    /**
+     * Crear un evento sin guardarlo, para registrarlo en lote
+     */
+    public EventoProducto crearEvento(TipoEvento tipo, Producto producto, String antes, String despues) {
+        return new EventoProducto(null, null, tipo, producto.getId(), producto.getCodigo(), antes, despues,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Registrar varios eventos con inserciones JDBC agrupadas
+     */
+    public void registrarLote(List<EventoProducto> eventos) {
+        eventoProductoJdbcRepository.insertar(eventos);
+    }
+}
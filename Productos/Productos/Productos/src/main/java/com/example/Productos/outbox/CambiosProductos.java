@@ -0,0 +1,61 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.ProductoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Productos cambiados por cualquier instancia, para refrescar las vistas en memoria (catálogo, índice de búsqueda)
+ * que de otro modo solo ven las escrituras locales.
+ * Las filas creadas, modificadas, desactivadas o con stock descontado se encuentran por fechaActualizacion;
+ * los borrados permanentes, por los eventos ELIMINADO de la bandeja de salida.
+ * Las consultas deben ejecutarse en una transacción de escritura para leer del primario.
+ */
+@Component
+@RequiredArgsConstructor
+public class CambiosProductos {
+
+    private final ProductoRepository productoRepository;
+    private final EventoProductoRepository eventoProductoRepository;
+
+    // Cubre la demora entre la fecha de una escritura y su confirmación y la diferencia de relojes entre instancias
+    @Value("${productos.sincronizacion.margen:5s}")
+    private Duration margen;
+
+    /**
+     * Punto desde el cual buscar cambios: fecha ya descontado el margen y última secuencia publicada
+     */
+    public record Posicion(long fecha, long secuencia) {
+    }
+
+    public record Cambios(Set<Long> ids, Posicion hasta) {
+    }
+
+    /**
+     * Posición actual; se toma antes de cargar la vista completa para no perder lo que cambie mientras tanto
+     */
+    public Posicion posicionActual() {
+        return new Posicion(System.currentTimeMillis() - margen.toMillis(),
+                eventoProductoRepository.findMaxSecuencia().orElse(0L));
+    }
+
+    /**
+     * IDs de los productos que cambiaron desde la posición indicada, y la posición para la próxima lectura.
+     * Las filas dentro del margen se vuelven a informar en la lectura siguiente.
+     */
+    public Cambios leerDesde(Posicion desde) {
+        Posicion hasta = posicionActual();
+        Set<Long> ids = new HashSet<>(productoRepository.findIdsModificadosDespuesDe(desde.fecha()));
+        if (hasta.secuencia() > desde.secuencia()) {
+            ids.addAll(eventoProductoRepository.findProductoIdsEliminados(desde.secuencia(), hasta.secuencia()));
+        }
+        // La secuencia nunca retrocede aunque la retención haya eliminado los eventos más recientes
+        return new Cambios(ids, new Posicion(hasta.fecha(), Math.max(hasta.secuencia(), desde.secuencia())));
+    }
+}
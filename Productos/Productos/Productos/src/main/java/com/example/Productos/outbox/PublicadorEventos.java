@@ -0,0 +1,14 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.entity.EventoProducto;
+
+import java.util.List;
+
+/**
+ * Destino al que el relay entrega los eventos de la bandeja de salida.
+ * Se selecciona con productos.outbox.destino; si falla, el lote se reintenta (entrega al menos una vez).
+ */
+public interface PublicadorEventos {
+
+    void publicar(List<EventoProducto> eventos) throws Exception;
+}
@@ -0,0 +1,58 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.entity.EventoProducto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Agrega los eventos a un archivo NDJSON (un evento por línea), en sustitución de un broker
+ */
+@Component
+@ConditionalOnProperty(name = "productos.outbox.destino", havingValue = "archivo")
+public class PublicadorEventosArchivo implements PublicadorEventos {
+
+    private final ObjectMapper objectMapper;
+    private final FileChannel canal;
+
+    public PublicadorEventosArchivo(ObjectMapper objectMapper,
+                                    @Value("${productos.outbox.archivo:datos/eventos-productos.ndjson}") Path ruta)
+            throws IOException {
+        this.objectMapper = objectMapper;
+        if (ruta.getParent() != null) {
+            Files.createDirectories(ruta.getParent());
+        }
+        this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoProducto> eventos) throws IOException {
+        ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+        for (EventoProducto evento : eventos) {
+            contenido.write(objectMapper.writeValueAsBytes(evento));
+            contenido.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(contenido.toByteArray());
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        canal.force(false);
+    }
+
+    @PreDestroy
+    void cerrar() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.entity.EventoProducto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publica cada evento dentro del proceso; se consume con @EventListener sobre EventoProducto
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "productos.outbox.destino", havingValue = "local", matchIfMissing = true)
+public class PublicadorEventosLocal implements PublicadorEventos {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publicar(List<EventoProducto> eventos) {
+        eventos.forEach(applicationEventPublisher::publishEvent);
+    }
+}
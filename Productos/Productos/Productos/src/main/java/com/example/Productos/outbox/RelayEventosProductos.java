@@ -0,0 +1,116 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.entity.EventoProducto;
+import com.example.Productos.entity.SecuenciaEventos;
+import com.example.Productos.repository.EventoProductoJdbcRepository;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.SecuenciaEventosRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Publica en lotes los eventos pendientes de la bandeja de salida.
+ * Asigna la secuencia en el orden de publicación, de modo que el feed de cambios nunca
+ * expone un desplazamiento menor a uno ya entregado aunque las transacciones confirmen desordenadas.
+ * Cada lote bloquea la fila de la última secuencia, marca los eventos, los publica y avanza la secuencia
+ * en una sola transacción: con varias instancias los relays se turnan y un fallo no deja nada a medias.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RelayEventosProductos {
+
+    private final EventoProductoRepository eventoProductoRepository;
+    private final EventoProductoJdbcRepository eventoProductoJdbcRepository;
+    private final SecuenciaEventosRepository secuenciaEventosRepository;
+    private final PublicadorEventos publicadorEventos;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${productos.outbox.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${productos.outbox.retencion:7d}")
+    private Duration retencion;
+
+    // Transacción de lectura y escritura: con réplicas de lectura, las consultas del lote van al primario
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    void inicializar() {
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${productos.outbox.intervalo:500ms}")
+    public void publicarPendientes() {
+        try {
+            boolean hayMas;
+            do {
+                hayMas = Boolean.TRUE.equals(transaccion.execute(estado -> publicarLote()));
+            } while (hayMas);
+        } catch (RuntimeException e) {
+            // La transacción se revirtió: el lote se reintenta completo, con las mismas secuencias,
+            // en la próxima ejecución
+            log.error("Error al publicar eventos de productos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publicar un lote dentro de la transacción en curso
+     * @return true si el lote estaba completo y puede haber más eventos pendientes
+     */
+    private boolean publicarLote() {
+        // Sin fila todavía (base creada por Hibernate): se parte de la mayor secuencia publicada
+        long ultimaSecuencia = secuenciaEventosRepository.bloquear(SecuenciaEventos.ID_UNICO)
+                .map(SecuenciaEventos::getSecuencia)
+                .orElseGet(() -> eventoProductoRepository.findMaxSecuencia().orElse(0L));
+
+        List<EventoProducto> eventos = eventoProductoRepository.findBySecuenciaIsNullOrderByIdAsc(Limit.of(tamanoLote));
+        if (eventos.isEmpty()) {
+            return false;
+        }
+
+        long secuencia = ultimaSecuencia;
+        for (EventoProducto evento : eventos) {
+            evento.setSecuencia(++secuencia);
+        }
+
+        int marcados = eventoProductoJdbcRepository.marcarPublicados(eventos);
+        if (marcados != eventos.size()) {
+            throw new IllegalStateException("Otro relay publicó " + (eventos.size() - marcados)
+                    + " de los eventos del lote");
+        }
+        try {
+            publicadorEventos.publicar(eventos);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo publicar el lote: " + e.getMessage(), e);
+        }
+        secuenciaEventosRepository.save(new SecuenciaEventos(SecuenciaEventos.ID_UNICO, secuencia));
+
+        log.debug("Publicados {} eventos de productos hasta la secuencia {}", eventos.size(), secuencia);
+        return eventos.size() == tamanoLote;
+    }
+
+    /**
+     * Eliminar eventos publicados más antiguos que la retención
+     */
+    @Scheduled(fixedDelayString = "${productos.outbox.intervalo-limpieza:1h}")
+    @Transactional
+    public void eliminarAntiguos() {
+        int eliminados = eventoProductoRepository.eliminarPublicadosAntesDe(
+                System.currentTimeMillis() - retencion.toMillis());
+        if (eliminados > 0) {
+            log.info("Eliminados {} eventos de productos ya publicados", eliminados);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.entity.EventoProducto;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Escrituras en lote de la bandeja de salida de eventos
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "productos.jdbc", histogram = true)
+public class EventoProductoJdbcRepository {
+
+    private static final String SQL_INSERTAR = """
+            INSERT INTO productos_eventos (tipo, producto_id, codigo, antes, despues, fecha)
+            VALUES (:tipo, :productoId, :codigo, :antes, :despues, :fecha)
+            """;
+
+    // Un evento ya publicado nunca se renumera
+    private static final String SQL_MARCAR_PUBLICADO = """
+            UPDATE productos_eventos SET secuencia = :secuencia WHERE id = :id AND secuencia IS NULL
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${productos.lote.tamano-batch:500}")
+    private int tamanoBatch;
+
+    /**
+     * Insertar eventos en lotes JDBC (sin recuperar IDs)
+     */
+    public void insertar(List<EventoProducto> eventos) {
+        ejecutarEnLotes(SQL_INSERTAR, eventos);
+    }
+
+    /**
+     * Guardar la secuencia asignada a eventos que se van a publicar
+     * @return Eventos marcados; menos que los recibidos si alguno ya tenía secuencia
+     */
+    public int marcarPublicados(List<EventoProducto> eventos) {
+        int marcados = 0;
+        for (int filas : ejecutarEnLotes(SQL_MARCAR_PUBLICADO, eventos)) {
+            // Sin información del driver se cuenta como marcado; el índice único sigue impidiendo duplicados
+            marcados += filas == Statement.SUCCESS_NO_INFO ? 1 : filas;
+        }
+        return marcados;
+    }
+
+    private int[] ejecutarEnLotes(String sql, List<EventoProducto> eventos) {
+        int[] filas = new int[eventos.size()];
+        for (int inicio = 0; inicio < eventos.size(); inicio += tamanoBatch) {
+            List<EventoProducto> lote = eventos.subList(inicio, Math.min(inicio + tamanoBatch, eventos.size()));
+            SqlParameterSource[] parametros = new SqlParameterSource[lote.size()];
+            for (int i = 0; i < lote.size(); i++) {
+                BeanPropertySqlParameterSource parametro = new BeanPropertySqlParameterSource(lote.get(i));
+                parametro.registerSqlType("tipo", Types.VARCHAR);
+                parametros[i] = parametro;
+            }
+            int[] filasLote = jdbcTemplate.batchUpdate(sql, parametros);
+            System.arraycopy(filasLote, 0, filas, inicio, filasLote.length);
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.entity.EventoProducto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EventoProductoRepository extends JpaRepository<EventoProducto, Long> {
+
+    // Eventos aún no publicados, en orden de inserción
+    List<EventoProducto> findBySecuenciaIsNullOrderByIdAsc(Limit limite);
+
+    // Feed de cambios publicados a partir de un desplazamiento
+    List<EventoProducto> findBySecuenciaGreaterThanOrderBySecuenciaAsc(Long secuencia, Limit limite);
+
+    @Query("select max(e.secuencia) from EventoProducto e")
+    Optional<Long> findMaxSecuencia();
+
+    // Productos borrados permanentemente con secuencia en (desde, hasta]: ya no quedan filas que consultar
+    @Query("""
+            select e.productoId from EventoProducto e
+             where e.secuencia > :desde and e.secuencia <= :hasta
+               and e.tipo = com.example.Productos.entity.EventoProducto.TipoEvento.ELIMINADO
+            """)
+    List<Long> findProductoIdsEliminados(Long desde, Long hasta);
+
+    @Modifying
+    @Query("delete from EventoProducto e where e.secuencia is not null and e.fecha < :fecha")
+    int eliminarPublicadosAntesDe(Long fecha);
+}
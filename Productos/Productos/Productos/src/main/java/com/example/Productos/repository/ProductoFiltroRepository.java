@@ -0,0 +1,136 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.dto.EstadisticasInventario;
+import com.example.Productos.dto.FiltroProductos;
+import com.example.Productos.dto.FiltroProductos.Cursor;
+import com.example.Productos.entity.Producto;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Consultas de productos con filtros combinables (JPQL dinámico) y estadísticas agregadas del inventario.
+ * Las condiciones van en el orden de los índices compuestos (activo, columna, id) de {@link Producto}.
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "productos.filtro", histogram = true)
+public class ProductoFiltroRepository {
+
+    // Sin barra invertida: MySQL la interpreta como escape dentro de los literales
+    private static final char ESCAPE_LIKE = '!';
+
+    private static final String JPQL_ESTADISTICAS = """
+            select count(p),
+                   sum(case when p.activo = true then 1 else 0 end),
+                   sum(case when p.activo = true then p.cantidad else 0 end),
+                   sum(case when p.activo = true then p.precio * p.cantidad else 0.0 end),
+                   sum(case when p.activo = true and p.cantidad = 0 then 1 else 0 end),
+                   sum(case when p.activo = true and p.cantidad > 0 and p.cantidad <= :umbral then 1 else 0 end),
+                   min(case when p.activo = true then p.precio end),
+                   max(case when p.activo = true then p.precio end),
+                   avg(case when p.activo = true then p.precio end)
+              from Producto p
+            """;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Página de productos filtrados por cursor (keyset sobre columna de orden e id),
+     * con un elemento extra para saber si hay más
+     * @param cursor Posición después de la cual continuar, null para la primera página
+     */
+    public List<Producto> buscar(FiltroProductos filtro, Cursor cursor, int limite) {
+        StringBuilder jpql = new StringBuilder("select p from Producto p where 1 = 1");
+        Map<String, Object> parametros = new HashMap<>();
+
+        if (filtro.activo() != null) {
+            jpql.append(" and p.activo = :activo");
+            parametros.put("activo", filtro.activo());
+        }
+        if (filtro.precioMin() != null) {
+            jpql.append(" and p.precio >= :precioMin");
+            parametros.put("precioMin", filtro.precioMin());
+        }
+        if (filtro.precioMax() != null) {
+            jpql.append(" and p.precio <= :precioMax");
+            parametros.put("precioMax", filtro.precioMax());
+        }
+        if (filtro.cantidadMin() != null) {
+            jpql.append(" and p.cantidad >= :cantidadMin");
+            parametros.put("cantidadMin", filtro.cantidadMin());
+        }
+        if (filtro.cantidadMax() != null) {
+            jpql.append(" and p.cantidad <= :cantidadMax");
+            parametros.put("cantidadMax", filtro.cantidadMax());
+        }
+        if (filtro.prefijo() != null) {
+            // Prefijo sin comodín inicial: MySQL lo resuelve como rango sobre el índice de nombre
+            jpql.append(" and p.nombre like :prefijo escape '").append(ESCAPE_LIKE).append("'");
+            parametros.put("prefijo", escaparLike(filtro.prefijo()) + "%");
+        }
+
+        String columna = "p." + filtro.orden().getAtributo();
+        String direccion = filtro.descendente() ? " desc" : " asc";
+        boolean porId = filtro.orden() == FiltroProductos.Orden.ID;
+        if (cursor != null) {
+            String comparacion = filtro.descendente() ? " < " : " > ";
+            if (porId) {
+                jpql.append(" and p.id").append(comparacion).append(":cursorId");
+            } else {
+                jpql.append(" and (").append(columna).append(comparacion).append(":cursorValor or (")
+                        .append(columna).append(" = :cursorValor and p.id").append(comparacion).append(":cursorId))");
+                parametros.put("cursorValor", cursor.valor());
+            }
+            parametros.put("cursorId", cursor.id());
+        }
+        jpql.append(" order by ");
+        if (!porId) {
+            jpql.append(columna).append(direccion).append(", ");
+        }
+        jpql.append("p.id").append(direccion);
+
+        TypedQuery<Producto> consulta = entityManager.createQuery(jpql.toString(), Producto.class)
+                .setHint(HINT_READ_ONLY, true)
+                .setMaxResults(limite);
+        parametros.forEach(consulta::setParameter);
+        return consulta.getResultList();
+    }
+
+    /**
+     * Calcular conteos, unidades y valorización en una sola pasada, sin cargar entidades
+     */
+    public EstadisticasInventario calcularEstadisticas(int umbralStockBajo) {
+        Object[] fila = entityManager.createQuery(JPQL_ESTADISTICAS, Object[].class)
+                .setParameter("umbral", umbralStockBajo)
+                .getSingleResult();
+
+        long total = entero(fila[0]);
+        long activos = entero(fila[1]);
+        return new EstadisticasInventario(total, activos, total - activos, entero(fila[2]),
+                fila[3] == null ? 0.0 : ((Number) fila[3]).doubleValue(), entero(fila[4]), entero(fila[5]),
+                umbralStockBajo, decimal(fila[6]), decimal(fila[7]), decimal(fila[8]));
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    // Las sumas de una tabla vacía son null
+
+    private static long entero(Object valor) {
+        return valor == null ? 0L : ((Number) valor).longValue();
+    }
+
+    private static Double decimal(Object valor) {
+        return valor == null ? null : ((Number) valor).doubleValue();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.entity.Producto;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escrituras masivas de productos con JDBC en lotes.
+ * Hibernate no puede agrupar los INSERT porque el ID se genera con IDENTITY.
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "productos.jdbc", histogram = true)
+public class ProductoJdbcRepository {
+
+    private static final String SQL_INSERTAR = """
+            INSERT INTO productos (codigo, nombre, descripcion, precio, cantidad, img, activo,
+                                   fecha_creacion, fecha_actualizacion, version)
+            VALUES (:codigo, :nombre, :descripcion, :precio, :cantidad, :img, :activo,
+                    :fechaCreacion, :fechaActualizacion, 0)
+            """;
+
+    private static final String SQL_ACTUALIZAR = """
+            UPDATE productos
+               SET nombre = :nombre, descripcion = :descripcion, precio = :precio, cantidad = :cantidad,
+                   img = :img, activo = :activo, fecha_actualizacion = :fechaActualizacion,
+                   version = version + 1
+             WHERE id = :id
+            """;
+
+    // Sin cantidad ni activo: las actualizaciones diferidas no los cambian y así no pisan los descuentos de inventario
+    private static final String SQL_ACTUALIZAR_DIFERIDO = """
+            UPDATE productos
+               SET nombre = :nombre, descripcion = :descripcion, precio = :precio, img = :img,
+                   fecha_actualizacion = :fechaActualizacion, version = GREATEST(version + 1, :version)
+             WHERE id = :id
+            """;
+
+    private static final String SQL_DESCONTAR = """
+            UPDATE productos
+               SET cantidad = cantidad - :cantidad, fecha_actualizacion = :fechaActualizacion,
+                   version = version + 1
+             WHERE id = :id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${productos.lote.tamano-batch:500}")
+    private int tamanoBatch;
+
+    /**
+     * Insertar productos en lotes JDBC, asignando a cada uno el ID generado
+     */
+    public void insertar(List<Producto> productos) {
+        for (int inicio = 0; inicio < productos.size(); inicio += tamanoBatch) {
+            List<Producto> lote = productos.subList(inicio, Math.min(inicio + tamanoBatch, productos.size()));
+            KeyHolder claves = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, parametros(lote), claves, new String[]{"id"});
+
+            List<Map<String, Object>> clavesGeneradas = claves.getKeyList();
+            for (int i = 0; i < lote.size(); i++) {
+                Number id = (Number) clavesGeneradas.get(i).values().iterator().next();
+                lote.get(i).setId(id.longValue());
+            }
+        }
+    }
+
+    /**
+     * Actualizar productos existentes (por ID) en lotes JDBC
+     */
+    public void actualizar(List<Producto> productos) {
+        for (int inicio = 0; inicio < productos.size(); inicio += tamanoBatch) {
+            List<Producto> lote = productos.subList(inicio, Math.min(inicio + tamanoBatch, productos.size()));
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, parametros(lote));
+        }
+    }
+
+    /**
+     * Escribir las actualizaciones diferidas acumuladas (una por producto) en lotes JDBC
+     * @return Filas afectadas por cada producto, en el mismo orden (0 si el producto ya no existe)
+     */
+    public int[] actualizarDiferidos(List<Producto> productos) {
+        int[] filas = new int[productos.size()];
+        for (int inicio = 0; inicio < productos.size(); inicio += tamanoBatch) {
+            List<Producto> lote = productos.subList(inicio, Math.min(inicio + tamanoBatch, productos.size()));
+            int[] afectadas = jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_DIFERIDO, parametros(lote));
+            System.arraycopy(afectadas, 0, filas, inicio, afectadas.length);
+        }
+        return filas;
+    }
+
+    /**
+     * Descontar cantidades acumuladas por producto (un UPDATE relativo por producto, en un solo lote)
+     */
+    public void descontarCantidades(Map<Long, Integer> descuentos, long fechaActualizacion) {
+        SqlParameterSource[] parametros = new SqlParameterSource[descuentos.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> descuento : descuentos.entrySet()) {
+            parametros[i++] = new MapSqlParameterSource()
+                    .addValue("id", descuento.getKey())
+                    .addValue("cantidad", descuento.getValue())
+                    .addValue("fechaActualizacion", fechaActualizacion);
+        }
+        jdbcTemplate.batchUpdate(SQL_DESCONTAR, parametros);
+    }
+
+    private SqlParameterSource[] parametros(List<Producto> productos) {
+        SqlParameterSource[] parametros = new SqlParameterSource[productos.size()];
+        for (int i = 0; i < productos.size(); i++) {
+            parametros[i] = new BeanPropertySqlParameterSource(productos.get(i));
+        }
+        return parametros;
+    }
+}
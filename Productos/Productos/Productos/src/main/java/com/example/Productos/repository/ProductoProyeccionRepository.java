@@ -0,0 +1,58 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.dto.CamposProducto;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas de productos que leen solo las columnas solicitadas (proyecciones dinámicas en JPQL).
+ * No se crean entidades, así que tampoco pasan por el contexto de persistencia ni se leen
+ * descripcion (TEXT) o img cuando no se piden.
+ */
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "productos.proyeccion", histogram = true)
+public class ProductoProyeccionRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Página por cursor (keyset sobre id), con un elemento extra para saber si hay más
+     */
+    public List<Map<String, Object>> buscarPagina(CamposProducto campos, boolean soloActivos, long despuesDeId,
+                                                  int limite) {
+        String jpql = "select " + campos.seleccion("p") + " from Producto p where p.id > :id"
+                + (soloActivos ? " and p.activo = true" : "") + " order by p.id asc";
+        return entityManager.createQuery(jpql, Object[].class)
+                .setParameter("id", despuesDeId)
+                .setMaxResults(limite)
+                .getResultStream()
+                .map(campos::desdeFila)
+                .toList();
+    }
+
+    public List<Map<String, Object>> buscarPorIds(CamposProducto campos, Collection<Long> ids) {
+        String jpql = "select " + campos.seleccion("p") + " from Producto p where p.id in :ids";
+        return entityManager.createQuery(jpql, Object[].class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .map(campos::desdeFila)
+                .toList();
+    }
+
+    /**
+     * Buscar por códigos; cada fila lleva también el código al final aunque no se haya solicitado
+     */
+    public List<Object[]> buscarPorCodigos(CamposProducto campos, Collection<String> codigos) {
+        String jpql = "select " + campos.seleccion("p") + ", p.codigo from Producto p where p.codigo in :codigos";
+        return entityManager.createQuery(jpql, Object[].class)
+                .setParameter("codigos", codigos)
+                .getResultList();
+    }
+}
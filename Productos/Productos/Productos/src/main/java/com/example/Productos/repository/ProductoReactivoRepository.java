@@ -0,0 +1,127 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.entity.Producto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Consultas de productos no bloqueantes con R2DBC, equivalentes a las de {@link ProductoRepository}.
+ * Los Flux respetan la demanda del suscriptor: el driver pide filas al servidor a medida que se consumen.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "productos.reactivo.habilitado", havingValue = "true")
+public class ProductoReactivoRepository {
+
+    private static final String SELECT = """
+            SELECT id, codigo, nombre, descripcion, precio, cantidad, img, activo,
+                   fecha_creacion, fecha_actualizacion, version
+              FROM productos
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Producto> findById(Long id) {
+        return databaseClient.sql(SELECT + " WHERE id = :id")
+                .bind("id", id)
+                .map(ProductoReactivoRepository::mapear)
+                .one();
+    }
+
+    public Mono<Producto> findByCodigo(String codigo) {
+        return databaseClient.sql(SELECT + " WHERE codigo = :codigo")
+                .bind("codigo", codigo)
+                .map(ProductoReactivoRepository::mapear)
+                .one();
+    }
+
+    public Flux<Producto> findAllById(Collection<Long> ids) {
+        return databaseClient.sql(SELECT + " WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ProductoReactivoRepository::mapear)
+                .all();
+    }
+
+    public Flux<Producto> findByActivoTrue() {
+        return databaseClient.sql(SELECT + " WHERE activo = TRUE ORDER BY id")
+                .map(ProductoReactivoRepository::mapear)
+                .all();
+    }
+
+    public Flux<Producto> findAll() {
+        return databaseClient.sql(SELECT + " ORDER BY id")
+                .map(ProductoReactivoRepository::mapear)
+                .all();
+    }
+
+    /**
+     * Página de productos cuyo nombre contiene el texto; el LIKE con comodín inicial recorre la tabla,
+     * por eso siempre se limita
+     */
+    public Flux<Producto> findByNombreContainingIgnoreCase(String nombre, long desde, int limite) {
+        return databaseClient.sql(SELECT + " WHERE LOWER(nombre) LIKE :patron ESCAPE '\\\\'"
+                        + " ORDER BY id LIMIT :limite OFFSET :desde")
+                .bind("patron", "%" + escaparLike(nombre.toLowerCase(Locale.ROOT)) + "%")
+                .bind("limite", limite)
+                .bind("desde", desde)
+                .map(ProductoReactivoRepository::mapear)
+                .all();
+    }
+
+    public Mono<Boolean> existsByCodigo(String codigo) {
+        return databaseClient.sql("SELECT 1 FROM productos WHERE codigo = :codigo LIMIT 1")
+                .bind("codigo", codigo)
+                .map(fila -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    // Paginación por cursor (keyset sobre id)
+
+    public Flux<Producto> findByActivoTrueAndIdGreaterThanOrderByIdAsc(Long id, int limite) {
+        return databaseClient.sql(SELECT + " WHERE activo = TRUE AND id > :id ORDER BY id LIMIT :limite")
+                .bind("id", id)
+                .bind("limite", limite)
+                .map(ProductoReactivoRepository::mapear)
+                .all();
+    }
+
+    public Flux<Producto> findByIdGreaterThanOrderByIdAsc(Long id, int limite) {
+        return databaseClient.sql(SELECT + " WHERE id > :id ORDER BY id LIMIT :limite")
+                .bind("id", id)
+                .bind("limite", limite)
+                .map(ProductoReactivoRepository::mapear)
+                .all();
+    }
+
+    private static Producto mapear(Readable fila) {
+        Producto producto = new Producto();
+        producto.setId(fila.get("id", Long.class));
+        producto.setCodigo(fila.get("codigo", String.class));
+        producto.setNombre(fila.get("nombre", String.class));
+        producto.setDescripcion(fila.get("descripcion", String.class));
+        producto.setPrecio(fila.get("precio", Double.class));
+        producto.setCantidad(fila.get("cantidad", Integer.class));
+        producto.setImg(fila.get("img", String.class));
+        producto.setActivo(fila.get("activo", Boolean.class));
+        producto.setFechaCreacion(fila.get("fecha_creacion", Long.class));
+        producto.setFechaActualizacion(fila.get("fecha_actualizacion", Long.class));
+        producto.setVersion(fila.get("version", Long.class));
+        return producto;
+    }
+
+    /**
+     * Escapa los comodines de LIKE para que el texto buscado se compare literalmente
+     */
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,15 +1,29 @@
 package com.example.Productos.repository;
 
 import com.example.Productos.entity.Producto;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
+    /**
+     * Filas por viaje al servidor al recorrer con cursor (requiere useCursorFetch=true en MySQL)
+     */
+    String TAMANO_FETCH_STREAMING = "500";
+
     Optional<Producto> findByCodigo(String codigo);
 
     List<Producto> findByActivoTrue();
@@ -17,4 +31,47 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
 
     boolean existsByCodigo(String codigo);
+
+    // Solo lectura: Hibernate no guarda copia para detectar cambios
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    List<Producto> findAllByCodigoIn(Collection<String> codigos);
+
+    @Query("select p.cantidad from Producto p where p.id = :id and p.activo = true")
+    Optional<Integer> findCantidadActivaById(Long id);
+
+    @Query("select p.cantidad from Producto p where p.id = :id")
+    Optional<Integer> findCantidadById(Long id);
+
+    // Paginación por cursor (keyset sobre id)
+
+    List<Producto> findByActivoTrueAndIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    List<Producto> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    // Sincronización incremental: cambios en (desde, hasta] posteriores al cursor (fecha, id)
+
+    @Query("""
+            select p from Producto p
+             where p.fechaActualizacion <= :hasta
+               and (p.fechaActualizacion > :fecha or (p.fechaActualizacion = :fecha and p.id > :id))
+             order by p.fechaActualizacion asc, p.id asc
+            """)
+    List<Producto> findCambiadosDespuesDe(Long fecha, Long id, Long hasta, Limit limite);
+
+    // Solo los IDs, para refrescar las vistas en memoria con los cambios de cualquier instancia
+    @Query("select p.id from Producto p where p.fechaActualizacion > :fecha")
+    List<Long> findIdsModificadosDespuesDe(Long fecha);
+
+    // Recorrido completo con cursor JDBC, el Stream debe cerrarse dentro de una transacción
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = TAMANO_FETCH_STREAMING))
+    Stream<Producto> streamByActivoTrueOrderByIdAsc();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = TAMANO_FETCH_STREAMING))
+    Stream<Producto> streamAllByOrderByIdAsc();
+
+    // Solo la columna código, para cargar el filtro de códigos sin materializar entidades
+    @Query("select p.codigo from Producto p")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = TAMANO_FETCH_STREAMING))
+    Stream<String> streamCodigos();
 }
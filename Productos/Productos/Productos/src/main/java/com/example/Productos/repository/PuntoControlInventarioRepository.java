@@ -0,0 +1,9 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.entity.PuntoControlInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PuntoControlInventarioRepository extends JpaRepository<PuntoControlInventario, Integer> {
+}
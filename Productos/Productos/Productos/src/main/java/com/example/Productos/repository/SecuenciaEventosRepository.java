@@ -0,0 +1,19 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.entity.SecuenciaEventos;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SecuenciaEventosRepository extends JpaRepository<SecuenciaEventos, Integer> {
+
+    // SELECT ... FOR UPDATE: la fila queda bloqueada hasta el fin de la transacción del lote
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from SecuenciaEventos s where s.id = :id")
+    Optional<SecuenciaEventos> bloquear(Integer id);
+}
@@ -0,0 +1,417 @@
+package com.example.Productos.search;
+
+import com.example.Productos.entity.Producto;
+import com.example.Productos.outbox.CambiosProductos;
+import com.example.Productos.outbox.CambiosProductos.Cambios;
+import com.example.Productos.outbox.CambiosProductos.Posicion;
+import com.example.Productos.repository.ProductoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido en memoria de n-gramas sobre nombre y descripción de los productos.
+ * El texto se normaliza sin acentos y en minúsculas, y los resultados se ordenan por relevancia.
+ * Las escrituras de esta instancia se indexan al confirmar; las de otras instancias, en cada refresco.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndiceBusquedaProductos {
+
+    private static final int TAMANO_NGRAMA = 3;
+
+    // Mejor coincidencia primero: más puntos y, a igualdad, menor ID
+    private static final Comparator<Coincidencia> POR_RELEVANCIA =
+            Comparator.comparingInt(Coincidencia::puntos).reversed().thenComparingLong(Coincidencia::id);
+
+    // Pesos de relevancia
+    private static final int PUNTOS_FRASE_NOMBRE = 100;
+    private static final int PUNTOS_PREFIJO_NOMBRE = 50;
+    private static final int PUNTOS_PALABRA_NOMBRE = 25;
+    private static final int PUNTOS_TERMINOS_NOMBRE = 40;
+    private static final int PUNTOS_FRASE_DESCRIPCION = 20;
+    private static final int PUNTOS_TERMINOS_DESCRIPCION = 10;
+
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CambiosProductos cambiosProductos;
+
+    private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> ngramasNombre = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> ngramasDescripcion = new ConcurrentHashMap<>();
+
+    // Productos eliminados mientras se construye el índice, para no volver a agregarlos
+    private final Set<Long> eliminadosDuranteConstruccion = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean construyendo;
+    private volatile boolean listo;
+    // Protegida por this: hasta dónde se buscaron cambios de otras instancias
+    private Posicion posicion;
+
+    /**
+     * Construye el índice recorriendo todos los productos al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void construir() {
+        log.info("Construyendo índice de búsqueda de productos");
+        long inicio = System.currentTimeMillis();
+        AtomicLong total = new AtomicLong();
+
+        construyendo = true;
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                posicion = cambiosProductos.posicionActual();
+                try (Stream<Producto> productos = productoRepository.streamAllByOrderByIdAsc()) {
+                    productos.forEach(producto -> {
+                        if (!eliminadosDuranteConstruccion.contains(producto.getId())) {
+                            indexar(producto);
+                            total.incrementAndGet();
+                        }
+                    });
+                }
+            });
+            listo = true;
+            log.info("Índice de búsqueda construido con {} productos en {} ms",
+                    total.get(), System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Error al construir el índice de búsqueda: {}", e.getMessage());
+        } finally {
+            construyendo = false;
+            eliminadosDuranteConstruccion.clear();
+        }
+    }
+
+    /**
+     * Volver a indexar los productos que cambiaron en cualquier instancia desde el refresco anterior
+     * y quitar los borrados permanentemente
+     */
+    @Scheduled(fixedDelayString = "${productos.busqueda.intervalo-refresco:10s}")
+    public synchronized void refrescar() {
+        if (!listo) {
+            return;
+        }
+
+        try {
+            // Transacción de escritura para leer del primario
+            Posicion siguiente = transactionTemplate.execute(estado -> {
+                Cambios cambios = cambiosProductos.leerDesde(posicion);
+                if (cambios.ids().isEmpty()) {
+                    return cambios.hasta();
+                }
+                Set<Long> faltantes = new HashSet<>(cambios.ids());
+                for (Producto producto : productoRepository.findAllById(cambios.ids())) {
+                    indexar(producto);
+                    faltantes.remove(producto.getId());
+                }
+                faltantes.forEach(this::eliminar);
+                log.debug("Índice de búsqueda refrescado con {} cambios", cambios.ids().size());
+                return cambios.hasta();
+            });
+            posicion = siguiente;
+        } catch (Exception e) {
+            log.error("Error al refrescar el índice de búsqueda: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si el índice terminó de construirse y puede responder búsquedas
+     */
+    public boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Agregar o reemplazar un producto en el índice
+     */
+    public void indexar(Producto producto) {
+        Documento nuevo = new Documento(producto.getId(), normalizar(producto.getNombre()),
+                normalizar(producto.getDescripcion()), producto.getFechaActualizacion());
+
+        documentos.compute(producto.getId(), (id, actual) -> {
+            // Durante la construcción puede llegar una versión más antigua que la ya indexada
+            if (actual != null && esMasReciente(actual, nuevo)) {
+                return actual;
+            }
+            if (actual != null) {
+                quitarNgramas(actual);
+            }
+            agregarNgramas(nuevo);
+            return nuevo;
+        });
+    }
+
+    /**
+     * Quitar un producto del índice
+     */
+    public void eliminar(Long id) {
+        if (construyendo) {
+            eliminadosDuranteConstruccion.add(id);
+        }
+        documentos.computeIfPresent(id, (clave, actual) -> {
+            quitarNgramas(actual);
+            return null;
+        });
+    }
+
+    /**
+     * Buscar productos por texto en nombre y descripción
+     * @param texto Texto a buscar
+     * @param desde Posición del primer resultado
+     * @param limite Cantidad máxima de resultados
+     * @return IDs de la página solicitada, ordenados por relevancia, y total de coincidencias
+     */
+    public ResultadoBusqueda buscar(String texto, int desde, int limite) {
+        String consulta = normalizar(texto);
+        List<String> terminos = terminos(consulta);
+        if (terminos.isEmpty()) {
+            return new ResultadoBusqueda(Collections.emptyList(), 0);
+        }
+
+        Set<String> ngramasConsulta = new HashSet<>();
+        for (String termino : terminos) {
+            agregarNgramasDeTermino(termino, ngramasConsulta);
+        }
+
+        Set<Long> candidatos;
+        if (ngramasConsulta.isEmpty()) {
+            // Términos más cortos que un n-grama: se buscan en las claves del índice, no en cada documento
+            candidatos = buscarCortos(ngramasNombre, terminos);
+            candidatos.addAll(buscarCortos(ngramasDescripcion, terminos));
+        } else {
+            candidatos = new HashSet<>(intersectar(ngramasNombre, ngramasConsulta));
+            candidatos.addAll(intersectar(ngramasDescripcion, ngramasConsulta));
+        }
+
+        // Solo se conservan las mejores desde + limite: la cabeza del montículo es la peor de ellas
+        long necesarias = (long) desde + limite;
+        PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(POR_RELEVANCIA.reversed());
+        int total = 0;
+        for (Long id : candidatos) {
+            Documento documento = documentos.get(id);
+            if (documento == null) {
+                continue;
+            }
+            int puntos = puntuar(documento, consulta, terminos);
+            if (puntos > 0) {
+                total++;
+                mejores.add(new Coincidencia(id, puntos));
+                if (mejores.size() > necesarias) {
+                    mejores.poll();
+                }
+            }
+        }
+
+        List<Coincidencia> ordenadas = new ArrayList<>(mejores);
+        ordenadas.sort(POR_RELEVANCIA);
+        List<Long> ids = new ArrayList<>(Math.max(0, ordenadas.size() - desde));
+        for (int i = desde; i < ordenadas.size(); i++) {
+            ids.add(ordenadas.get(i).id());
+        }
+        return new ResultadoBusqueda(ids, total);
+    }
+
+    /**
+     * Calcula la relevancia de un documento; 0 si no coincide
+     */
+    private int puntuar(Documento documento, String consulta, List<String> terminos) {
+        int puntos = 0;
+        String nombre = documento.nombre();
+        int posicion = nombre.indexOf(consulta);
+
+        if (posicion >= 0) {
+            puntos += PUNTOS_FRASE_NOMBRE;
+            if (posicion == 0) {
+                puntos += PUNTOS_PREFIJO_NOMBRE;
+            } else if (nombre.charAt(posicion - 1) == ' ') {
+                puntos += PUNTOS_PALABRA_NOMBRE;
+            }
+            // Los nombres más cortos (coincidencia más exacta) quedan primero
+            puntos += (10 * consulta.length()) / nombre.length();
+        } else if (contieneTodos(nombre, terminos)) {
+            puntos += PUNTOS_TERMINOS_NOMBRE;
+        }
+
+        String descripcion = documento.descripcion();
+        if (descripcion.contains(consulta)) {
+            puntos += PUNTOS_FRASE_DESCRIPCION;
+        } else if (puntos == 0 && contieneTodos(descripcion, terminos)) {
+            puntos += PUNTOS_TERMINOS_DESCRIPCION;
+        }
+
+        return puntos;
+    }
+
+    private boolean contieneTodos(String texto, List<String> terminos) {
+        for (String termino : terminos) {
+            if (!texto.contains(termino)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Documentos que contienen todos los términos cortos: para cada uno, unión de las listas de las claves
+     * (n-gramas y palabras cortas) que lo contienen
+     */
+    private Set<Long> buscarCortos(Map<String, Set<Long>> indice, List<String> terminos) {
+        Set<Long> resultado = null;
+        for (String termino : terminos) {
+            Set<Long> conTermino = new HashSet<>();
+            indice.forEach((clave, ids) -> {
+                if (clave.contains(termino)) {
+                    conTermino.addAll(ids);
+                }
+            });
+            if (resultado == null) {
+                resultado = conTermino;
+            } else {
+                resultado.retainAll(conTermino);
+            }
+            if (resultado.isEmpty()) {
+                break;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Intersección de las listas de ocurrencias, empezando por la más corta
+     */
+    private Set<Long> intersectar(Map<String, Set<Long>> indice, Set<String> ngramas) {
+        List<Set<Long>> listas = new ArrayList<>(ngramas.size());
+        for (String ngrama : ngramas) {
+            Set<Long> ids = indice.get(ngrama);
+            if (ids == null || ids.isEmpty()) {
+                return Collections.emptySet();
+            }
+            listas.add(ids);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    private void agregarNgramas(Documento documento) {
+        for (String ngrama : ngramas(documento.nombre())) {
+            ngramasNombre.computeIfAbsent(ngrama, clave -> ConcurrentHashMap.newKeySet()).add(documento.id());
+        }
+        for (String ngrama : ngramas(documento.descripcion())) {
+            ngramasDescripcion.computeIfAbsent(ngrama, clave -> ConcurrentHashMap.newKeySet()).add(documento.id());
+        }
+    }
+
+    private void quitarNgramas(Documento documento) {
+        for (String ngrama : ngramas(documento.nombre())) {
+            quitarDeLista(ngramasNombre, ngrama, documento.id());
+        }
+        for (String ngrama : ngramas(documento.descripcion())) {
+            quitarDeLista(ngramasDescripcion, ngrama, documento.id());
+        }
+    }
+
+    private void quitarDeLista(Map<String, Set<Long>> indice, String ngrama, Long id) {
+        indice.computeIfPresent(ngrama, (clave, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private Set<String> ngramas(String texto) {
+        Set<String> resultado = new HashSet<>();
+        for (String termino : terminos(texto)) {
+            if (termino.length() < TAMANO_NGRAMA) {
+                // Las palabras cortas no tienen n-gramas: se indexan completas
+                resultado.add(termino);
+            } else {
+                agregarNgramasDeTermino(termino, resultado);
+            }
+        }
+        return resultado;
+    }
+
+    private void agregarNgramasDeTermino(String termino, Set<String> destino) {
+        for (int i = 0; i + TAMANO_NGRAMA <= termino.length(); i++) {
+            destino.add(termino.substring(i, i + TAMANO_NGRAMA));
+        }
+    }
+
+    private List<String> terminos(String textoNormalizado) {
+        List<String> resultado = new ArrayList<>();
+        for (String termino : textoNormalizado.split(" ")) {
+            if (!termino.isEmpty()) {
+                resultado.add(termino);
+            }
+        }
+        return resultado;
+    }
+
+    private boolean esMasReciente(Documento actual, Documento nuevo) {
+        return actual.fechaActualizacion() != null && nuevo.fechaActualizacion() != null
+                && actual.fechaActualizacion() > nuevo.fechaActualizacion();
+    }
+
+    /**
+     * Normaliza el texto: sin acentos, en minúsculas y con un solo espacio entre palabras
+     */
+    private static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder resultado = new StringBuilder(descompuesto.length());
+        boolean espacioPendiente = false;
+
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (espacioPendiente && resultado.length() > 0) {
+                    resultado.append(' ');
+                }
+                espacioPendiente = false;
+                resultado.append(Character.toLowerCase(c));
+            } else {
+                espacioPendiente = true;
+            }
+        }
+        return resultado.toString();
+    }
+
+    private record Documento(Long id, String nombre, String descripcion, Long fechaActualizacion) {
+    }
+
+    private record Coincidencia(Long id, int puntos) {
+    }
+
+    /**
+     * IDs de la página de resultados y total de coincidencias
+     */
+    public record ResultadoBusqueda(List<Long> ids, int total) {
+    }
+}
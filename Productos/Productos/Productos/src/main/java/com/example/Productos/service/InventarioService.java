@@ -0,0 +1,49 @@
+package com.example.Productos.service;
+
+import com.example.Productos.dto.EstadoInventario;
+import com.example.Productos.dto.ReservaInventario;
+
+public interface InventarioService {
+
+    /**
+     * Reservar unidades de un producto activo
+     * @param productoId ID del producto
+     * @param cantidad Unidades a reservar
+     * @return Reserva creada, vigente hasta confirmarse, liberarse o vencer
+     * @throws IllegalStateException si no hay existencias suficientes
+     */
+    ReservaInventario reservar(Long productoId, Integer cantidad);
+
+    /**
+     * Liberar una reserva, devolviendo sus unidades al disponible
+     * @param reservaId ID de la reserva
+     * @return Reserva liberada
+     */
+    ReservaInventario liberar(String reservaId);
+
+    /**
+     * Confirmar una reserva; el descuento se escribe en base de datos en segundo plano
+     * @param reservaId ID de la reserva
+     * @return Reserva confirmada
+     */
+    ReservaInventario confirmar(String reservaId);
+
+    /**
+     * Consultar las existencias de un producto
+     * @param productoId ID del producto
+     * @return Cantidad persistida, reservada, pendiente y disponible
+     */
+    EstadoInventario consultar(Long productoId);
+
+    /**
+     * Releer la cantidad persistida de un producto tras modificarla fuera del motor de reservas
+     * @param productoId ID del producto
+     */
+    void sincronizar(Long productoId);
+
+    /**
+     * Olvidar el contador de un producto eliminado
+     * @param productoId ID del producto
+     */
+    void descartar(Long productoId);
+}
@@ -1,9 +1,21 @@
 package com.example.Productos.service;
 
+import com.example.Productos.dto.CamposProducto;
+import com.example.Productos.dto.EstadisticasInventario;
+import com.example.Productos.dto.FiltroProductos;
+import com.example.Productos.dto.PaginaBusqueda;
+import com.example.Productos.dto.PaginaCambios;
+import com.example.Productos.dto.PaginaFiltro;
+import com.example.Productos.dto.PaginaProductos;
+import com.example.Productos.dto.PaginaSincronizacion;
+import com.example.Productos.dto.ResultadoConsultaLote;
+import com.example.Productos.dto.ResultadoLote;
 import com.example.Productos.entity.Producto;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductoService {
 
@@ -14,6 +26,13 @@ public interface ProductoService {
      */
     Producto crearProducto(Producto producto);
 
+    /**
+     * Crear o actualizar (por código) un lote de productos con escrituras JDBC agrupadas
+     * @param productos Productos a guardar
+     * @return Resultado de cada fila (creado, actualizado o error de validación)
+     */
+    ResultadoLote guardarProductosEnLote(List<Producto> productos);
+
     /**
      * Obtener todos los productos activos
      * @return Lista de productos activos
@@ -34,6 +53,24 @@ public interface ProductoService {
      */
     Optional<Producto> obtenerProductoPorCodigo(String codigo);
 
+    /**
+     * Obtener varios productos por ID y/o código en una sola llamada
+     * @param ids IDs a buscar (puede ser null)
+     * @param codigos Códigos a buscar (puede ser null)
+     * @return Mapas por ID y por código con null para los que no existen
+     */
+    ResultadoConsultaLote<Producto> obtenerProductosEnLote(List<Long> ids, List<String> codigos);
+
+    /**
+     * Obtener varios productos por ID y/o código con solo los campos indicados
+     * @param ids IDs a buscar (puede ser null)
+     * @param codigos Códigos a buscar (puede ser null)
+     * @param campos Campos a incluir en cada producto
+     * @return Mapas por ID y por código con null para los que no existen
+     */
+    ResultadoConsultaLote<Map<String, Object>> obtenerProductosEnLote(List<Long> ids, List<String> codigos,
+                                                                      CamposProducto campos);
+
     /**
      * Buscar productos por nombre
      * @param nombre Nombre del producto
@@ -41,6 +78,60 @@ public interface ProductoService {
      */
     List<Producto> buscarPorNombre(String nombre);
 
+    /**
+     * Buscar productos por texto en nombre y descripción, ordenados por relevancia
+     * @param texto Texto a buscar
+     * @param pagina Número de página empezando en 0 (null para la primera)
+     * @param limite Tamaño de página (null para el valor por defecto)
+     * @return Página de productos que coincidan
+     */
+    PaginaBusqueda<Producto> buscarProductos(String texto, Integer pagina, Integer limite);
+
+    /**
+     * Buscar productos por texto con solo los campos indicados
+     * @param texto Texto a buscar
+     * @param pagina Número de página empezando en 0 (null para la primera)
+     * @param limite Tamaño de página (null para el valor por defecto)
+     * @param campos Campos a incluir en cada producto
+     * @return Página de productos que coincidan
+     */
+    PaginaBusqueda<Map<String, Object>> buscarProductos(String texto, Integer pagina, Integer limite,
+                                                        CamposProducto campos);
+
+    /**
+     * Filtrar productos por precio, cantidad, estado y prefijo de nombre, paginando por cursor
+     * @param filtro Condiciones y orden de los resultados
+     * @param cursor Cursor de la página anterior ("valor:id", null para la primera)
+     * @param limite Tamaño de página
+     * @return Página de productos en el orden indicado
+     */
+    PaginaFiltro filtrarProductos(FiltroProductos filtro, String cursor, Integer limite);
+
+    /**
+     * Obtener conteos y valorización del inventario con una consulta agregada
+     * @param umbralStockBajo Cantidad máxima para contar un producto como stock bajo (null para el configurado)
+     * @return Estadísticas del inventario
+     */
+    EstadisticasInventario obtenerEstadisticas(Integer umbralStockBajo);
+
+    /**
+     * Obtener productos creados, modificados o desactivados después de un timestamp
+     * @param desde fechaActualizacion (epoch millis) de la última sincronización
+     * @param marcaAgua Límite superior devuelto en la primera página (null para calcularlo)
+     * @param cursor Cursor de la página anterior (null para la primera)
+     * @param limite Tamaño de página
+     * @return Página de productos ordenada por (fechaActualizacion, id)
+     */
+    PaginaSincronizacion obtenerProductosModificadosDesde(Long desde, Long marcaAgua, String cursor, Integer limite);
+
+    /**
+     * Obtener los cambios de productos publicados después de un desplazamiento
+     * @param desde Última secuencia ya procesada por el consumidor (0 para empezar)
+     * @param limite Cantidad máxima de eventos
+     * @return Página de eventos en orden de secuencia
+     */
+    PaginaCambios obtenerCambios(Long desde, Integer limite);
+
     /**
      * Actualizar un producto
      * @param id ID del producto a actualizar
@@ -49,6 +140,16 @@ public interface ProductoService {
      */
     Producto actualizarProducto(Long id, Producto producto);
 
+    /**
+     * Actualizar un producto solo si sigue en la versión esperada
+     * @param id ID del producto a actualizar
+     * @param producto Datos actualizados
+     * @param versionEsperada Versión que el cliente leyó (null para no verificar)
+     * @return Producto actualizado
+     * @throws org.springframework.dao.OptimisticLockingFailureException si la versión no coincide
+     */
+    Producto actualizarProducto(Long id, Producto producto, Long versionEsperada);
+
     /**
      * Eliminar un producto (borrado lógico)
      * @param id ID del producto a eliminar
@@ -73,4 +174,47 @@ public interface ProductoService {
      * @return Lista de todos los productos
      */
     List<Producto> obtenerTodosProductos();
+
+    /**
+     * Obtener una página de productos activos a partir de un cursor
+     * @param cursor ID del último producto recibido (null para la primera página)
+     * @param limite Tamaño de página (null para el valor por defecto)
+     * @return Página de productos activos
+     */
+    PaginaProductos<Producto> obtenerProductosPaginados(Long cursor, Integer limite);
+
+    /**
+     * Obtener una página de productos activos con solo los campos indicados
+     * @param cursor ID del último producto recibido (null para la primera página)
+     * @param limite Tamaño de página (null para el valor por defecto)
+     * @param campos Campos a incluir en cada producto (solo se leen esas columnas)
+     * @return Página de productos activos
+     */
+    PaginaProductos<Map<String, Object>> obtenerProductosPaginados(Long cursor, Integer limite,
+                                                                   CamposProducto campos);
+
+    /**
+     * Obtener una página de todos los productos (incluyendo inactivos) a partir de un cursor
+     * @param cursor ID del último producto recibido (null para la primera página)
+     * @param limite Tamaño de página (null para el valor por defecto)
+     * @return Página de productos
+     */
+    PaginaProductos<Producto> obtenerTodosProductosPaginados(Long cursor, Integer limite);
+
+    /**
+     * Obtener una página de todos los productos (incluyendo inactivos) con solo los campos indicados
+     * @param cursor ID del último producto recibido (null para la primera página)
+     * @param limite Tamaño de página (null para el valor por defecto)
+     * @param campos Campos a incluir en cada producto (solo se leen esas columnas)
+     * @return Página de productos
+     */
+    PaginaProductos<Map<String, Object>> obtenerTodosProductosPaginados(Long cursor, Integer limite,
+                                                                        CamposProducto campos);
+
+    /**
+     * Recorrer los productos con un cursor JDBC sin cargarlos todos en memoria
+     * @param incluirInactivos true para incluir productos inactivos
+     * @param consumidor Función que recibe cada producto en orden de ID
+     */
+    void recorrerProductos(boolean incluirInactivos, Consumer<Producto> consumidor);
 }
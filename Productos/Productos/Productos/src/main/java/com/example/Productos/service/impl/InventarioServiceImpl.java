@@ -0,0 +1,457 @@
+package com.example.Productos.service.impl;
+
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.dto.EstadoInventario;
+import com.example.Productos.dto.ReservaInventario;
+import com.example.Productos.entity.PuntoControlInventario;
+import com.example.Productos.inventario.ContadorStock;
+import com.example.Productos.inventario.DiarioInventario;
+import com.example.Productos.inventario.DiarioInventario.Entrada;
+import com.example.Productos.inventario.DiarioInventario.Registro;
+import com.example.Productos.inventario.DiarioInventario.TipoRegistro;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.repository.PuntoControlInventarioRepository;
+import com.example.Productos.service.InventarioService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Motor de reservas de inventario.
+ * Las reservas se resuelven en memoria con contadores por producto (compare-and-set, sin bloqueos de fila),
+ * cada operación queda en un diario durable antes de responder, y los descuentos confirmados se acumulan
+ * por producto y se escriben en base de datos en lotes periódicos junto con el punto de control del diario.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventarioServiceImpl implements InventarioService {
+
+    private final ProductoRepository productoRepository;
+    private final ProductoJdbcRepository productoJdbcRepository;
+    private final PuntoControlInventarioRepository puntoControlRepository;
+    private final ProductoCache productoCache;
+    private final ConsultasEnCurso consultasEnCurso;
+    private final CatalogoPrecomprimido catalogo;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${productos.inventario.diario:datos/inventario.diario}")
+    private String rutaDiario;
+
+    @Value("${productos.inventario.ttl-reserva:15m}")
+    private Duration ttlReserva;
+
+    @Value("${productos.inventario.tamano-compactacion:64MB}")
+    private DataSize tamanoCompactacion;
+
+    private final ConcurrentHashMap<Long, ContadorStock> contadores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ReservaInventario> reservas = new ConcurrentHashMap<>();
+    private final Set<Long> productosConPendiente = ConcurrentHashMap.newKeySet();
+
+    // Las operaciones toman el bloqueo de lectura; la escritura de descuentos y la compactación toman
+    // el de escritura para ver un estado consistente con la última secuencia del diario
+    private final ReentrantReadWriteLock bloqueoDiario = new ReentrantReadWriteLock();
+
+    // Serializa la escritura de descuentos con la relectura de cantidades persistidas
+    private final ReentrantLock bloqueoPersistencia = new ReentrantLock();
+
+    private DiarioInventario diario;
+    private TransactionTemplate transaccion;
+    private TransactionTemplate transaccionLectura;
+
+    /**
+     * Reconstruir reservas y descuentos pendientes a partir del diario y el punto de control
+     */
+    @PostConstruct
+    void recuperar() throws IOException {
+        transaccion = new TransactionTemplate(transactionManager);
+        transaccionLectura = new TransactionTemplate(transactionManager);
+        transaccionLectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaccionLectura.setReadOnly(true);
+
+        diario = new DiarioInventario(Path.of(rutaDiario));
+        List<Registro> registros = diario.abrir();
+
+        long puntoControl = transaccion.execute(estado -> puntoControlRepository
+                .findById(PuntoControlInventario.ID_UNICO)
+                .orElseGet(() -> puntoControlRepository.save(
+                        new PuntoControlInventario(PuntoControlInventario.ID_UNICO, 0L)))
+                .getSecuencia());
+        // Si el diario se perdió, las nuevas secuencias deben quedar por encima del punto de control
+        diario.asegurarSecuenciaMinima(puntoControl);
+
+        Map<Long, Integer> pendientePorProducto = new HashMap<>();
+        for (Registro registro : registros) {
+            switch (registro.tipo()) {
+                case RESERVA -> reservas.put(registro.reservaId(), new ReservaInventario(registro.reservaId(),
+                        registro.productoId(), registro.cantidad(), registro.expira()));
+                case LIBERACION, VENCIMIENTO -> reservas.remove(registro.reservaId());
+                case CONFIRMACION, PENDIENTE -> {
+                    if (registro.reservaId() != null) {
+                        reservas.remove(registro.reservaId());
+                    }
+                    if (registro.secuencia() > puntoControl) {
+                        pendientePorProducto.merge(registro.productoId(), registro.cantidad(), Integer::sum);
+                    }
+                }
+            }
+        }
+
+        Map<Long, Integer> reservadoPorProducto = new HashMap<>();
+        for (ReservaInventario reserva : reservas.values()) {
+            reservadoPorProducto.merge(reserva.getProductoId(), reserva.getCantidad(), Integer::sum);
+        }
+
+        Set<Long> productos = new HashSet<>(reservadoPorProducto.keySet());
+        productos.addAll(pendientePorProducto.keySet());
+        for (Long productoId : productos) {
+            Optional<Integer> cantidad = productoRepository.findCantidadById(productoId);
+            if (cantidad.isEmpty()) {
+                log.warn("Producto con ID {} del diario de inventario ya no existe, se descartan sus reservas", productoId);
+                reservas.values().removeIf(reserva -> reserva.getProductoId().equals(productoId));
+                continue;
+            }
+            int pendiente = pendientePorProducto.getOrDefault(productoId, 0);
+            contadores.put(productoId, new ContadorStock(cantidad.get(),
+                    reservadoPorProducto.getOrDefault(productoId, 0), pendiente));
+            if (pendiente > 0) {
+                productosConPendiente.add(productoId);
+            }
+        }
+
+        log.info("Inventario recuperado: {} registros en el diario, {} reservas vigentes, {} productos con descuentos pendientes",
+                registros.size(), reservas.size(), productosConPendiente.size());
+    }
+
+    @PreDestroy
+    void cerrar() throws IOException {
+        escribirDescuentos();
+        diario.close();
+    }
+
+    @Override
+    public ReservaInventario reservar(Long productoId, Integer cantidad) {
+        validarCantidad(cantidad);
+        ContadorStock contador = obtenerContador(productoId);
+
+        ReservaInventario reserva = new ReservaInventario(UUID.randomUUID().toString(), productoId, cantidad,
+                System.currentTimeMillis() + ttlReserva.toMillis());
+        Entrada entrada;
+        bloqueoDiario.readLock().lock();
+        try {
+            if (!contador.reservar(cantidad)) {
+                throw new IllegalStateException("Existencias insuficientes para el producto con ID: " + productoId
+                        + " (disponible: " + Math.max(contador.getDisponible(), 0) + ")");
+            }
+            try {
+                entrada = escribirDiario(TipoRegistro.RESERVA, reserva);
+            } catch (RuntimeException e) {
+                contador.liberar(cantidad);
+                throw e;
+            }
+            reservas.put(reserva.getReservaId(), reserva);
+        } finally {
+            bloqueoDiario.readLock().unlock();
+        }
+
+        asegurarDurable(entrada);
+        log.debug("Reserva {} de {} unidades del producto {}", reserva.getReservaId(), cantidad, productoId);
+        return reserva;
+    }
+
+    @Override
+    public ReservaInventario liberar(String reservaId) {
+        ReservaInventario reserva = obtenerReserva(reservaId);
+        Entrada entrada = terminarReserva(reserva, TipoRegistro.LIBERACION);
+        asegurarDurable(entrada);
+        return reserva;
+    }
+
+    @Override
+    public ReservaInventario confirmar(String reservaId) {
+        ReservaInventario reserva = obtenerReserva(reservaId);
+        if (reserva.getExpira() < System.currentTimeMillis()) {
+            // Aunque el vencimiento periódico todavía no la haya retirado, su plazo ya terminó
+            throw new IllegalArgumentException("La reserva venció: " + reservaId);
+        }
+        if (!contadores.containsKey(reserva.getProductoId())) {
+            throw new IllegalArgumentException("Producto no encontrado con ID: " + reserva.getProductoId());
+        }
+        Entrada entrada = terminarReserva(reserva, TipoRegistro.CONFIRMACION);
+        asegurarDurable(entrada);
+        return reserva;
+    }
+
+    @Override
+    public EstadoInventario consultar(Long productoId) {
+        ContadorStock contador = obtenerContador(productoId);
+        int pendiente = contador.getPendiente();
+        return new EstadoInventario(productoId, contador.getBase(), contador.getComprometido() - pendiente,
+                pendiente, Math.max(contador.getDisponible(), 0));
+    }
+
+    @Override
+    public void sincronizar(Long productoId) {
+        ContadorStock contador = contadores.get(productoId);
+        if (contador == null) {
+            // Sin contador en memoria: se cargará con la cantidad nueva en la próxima reserva
+            return;
+        }
+
+        bloqueoPersistencia.lock();
+        try {
+            Optional<Integer> cantidad = transaccionLectura.execute(
+                    estado -> productoRepository.findCantidadById(productoId));
+            if (cantidad.isPresent()) {
+                contador.sincronizarBase(cantidad.get());
+            } else {
+                descartar(productoId);
+            }
+        } finally {
+            bloqueoPersistencia.unlock();
+        }
+    }
+
+    @Override
+    public void descartar(Long productoId) {
+        contadores.remove(productoId);
+        productosConPendiente.remove(productoId);
+    }
+
+    /**
+     * Escribir en base de datos los descuentos confirmados, un UPDATE por producto en un solo lote
+     */
+    @Scheduled(fixedDelayString = "${productos.inventario.intervalo-escritura:1s}")
+    public void escribirDescuentos() {
+        if (productosConPendiente.isEmpty()) {
+            return;
+        }
+
+        bloqueoPersistencia.lock();
+        try {
+            Map<Long, Integer> descuentos = new HashMap<>();
+            long secuencia;
+            bloqueoDiario.writeLock().lock();
+            try {
+                secuencia = diario.ultimaSecuencia();
+                for (Iterator<Long> iterador = productosConPendiente.iterator(); iterador.hasNext(); ) {
+                    Long productoId = iterador.next();
+                    iterador.remove();
+                    ContadorStock contador = contadores.get(productoId);
+                    int descuento = contador == null ? 0 : contador.tomarPendiente();
+                    if (descuento > 0) {
+                        descuentos.put(productoId, descuento);
+                    }
+                }
+            } finally {
+                bloqueoDiario.writeLock().unlock();
+            }
+
+            if (descuentos.isEmpty()) {
+                return;
+            }
+
+            try {
+                long ahora = System.currentTimeMillis();
+                transaccion.executeWithoutResult(estado -> {
+                    productoJdbcRepository.descontarCantidades(descuentos, ahora);
+                    puntoControlRepository.save(new PuntoControlInventario(PuntoControlInventario.ID_UNICO, secuencia));
+                });
+            } catch (RuntimeException e) {
+                log.error("Error al escribir descuentos de inventario, se reintentará: {}", e.getMessage());
+                descuentos.forEach((productoId, descuento) -> {
+                    ContadorStock contador = contadores.get(productoId);
+                    if (contador != null) {
+                        contador.restaurarPendiente(descuento);
+                        productosConPendiente.add(productoId);
+                    }
+                });
+                return;
+            }
+
+            descuentos.forEach((productoId, descuento) -> {
+                ContadorStock contador = contadores.get(productoId);
+                if (contador != null) {
+                    contador.aplicarDescuento(descuento);
+                }
+                productoCache.invalidar(productoId, null);
+            });
+            // Las lecturas ya en curso pueden traer la cantidad anterior
+            consultasEnCurso.olvidar();
+            catalogo.marcarCambios(descuentos.keySet());
+            log.debug("Descuentos de inventario escritos para {} productos hasta la secuencia {}",
+                    descuentos.size(), secuencia);
+
+            if (diario.tamano() > tamanoCompactacion.toBytes()) {
+                compactarDiario();
+            }
+        } finally {
+            bloqueoPersistencia.unlock();
+        }
+    }
+
+    /**
+     * Liberar las reservas vencidas
+     */
+    @Scheduled(fixedDelayString = "${productos.inventario.intervalo-vencimiento:10s}")
+    public void vencerReservas() {
+        long ahora = System.currentTimeMillis();
+        List<Entrada> entradas = new ArrayList<>();
+        for (ReservaInventario reserva : reservas.values()) {
+            if (reserva.getExpira() < ahora) {
+                try {
+                    entradas.add(terminarReserva(reserva, TipoRegistro.VENCIMIENTO));
+                } catch (IllegalArgumentException e) {
+                    // Confirmada o liberada mientras se recorría
+                }
+            }
+        }
+
+        if (!entradas.isEmpty()) {
+            asegurarDurable(entradas.get(entradas.size() - 1));
+            log.info("Reservas vencidas liberadas: {}", entradas.size());
+        }
+    }
+
+    /**
+     * Reemplazar el diario por el estado vigente: reservas abiertas y descuentos aún no escritos
+     */
+    private void compactarDiario() {
+        bloqueoDiario.writeLock().lock();
+        try {
+            List<Registro> registros = new ArrayList<>();
+            for (ReservaInventario reserva : reservas.values()) {
+                registros.add(new Registro(diario.siguienteSecuencia(), TipoRegistro.RESERVA, reserva.getReservaId(),
+                        reserva.getProductoId(), reserva.getCantidad(), reserva.getExpira()));
+            }
+            contadores.forEach((productoId, contador) -> {
+                int pendiente = contador.getPendiente();
+                if (pendiente > 0) {
+                    registros.add(new Registro(diario.siguienteSecuencia(), TipoRegistro.PENDIENTE, null,
+                            productoId, pendiente, 0));
+                }
+            });
+            diario.reescribir(registros);
+            log.info("Diario de inventario compactado a {} registros", registros.size());
+        } catch (IOException e) {
+            log.error("Error al compactar el diario de inventario: {}", e.getMessage());
+        } finally {
+            bloqueoDiario.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retirar una reserva vigente y registrar cómo terminó (liberación, vencimiento o confirmación)
+     */
+    private Entrada terminarReserva(ReservaInventario reserva, TipoRegistro tipo) {
+        bloqueoDiario.readLock().lock();
+        try {
+            if (!reservas.remove(reserva.getReservaId(), reserva)) {
+                throw new IllegalArgumentException("Reserva no encontrada o ya finalizada: " + reserva.getReservaId());
+            }
+
+            Entrada entrada;
+            try {
+                entrada = escribirDiario(tipo, reserva);
+            } catch (RuntimeException e) {
+                reservas.put(reserva.getReservaId(), reserva);
+                throw e;
+            }
+
+            ContadorStock contador = contadores.get(reserva.getProductoId());
+            if (contador != null) {
+                if (tipo == TipoRegistro.CONFIRMACION) {
+                    contador.confirmar(reserva.getCantidad());
+                    productosConPendiente.add(reserva.getProductoId());
+                } else {
+                    contador.liberar(reserva.getCantidad());
+                }
+            }
+            return entrada;
+        } finally {
+            bloqueoDiario.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtener el contador del producto, cargándolo de base de datos la primera vez
+     */
+    private ContadorStock obtenerContador(Long productoId) {
+        if (productoId == null || productoId <= 0) {
+            throw new IllegalArgumentException("El ID debe ser un número válido mayor a 0");
+        }
+
+        ContadorStock contador = contadores.get(productoId);
+        if (contador == null) {
+            contador = contadores.computeIfAbsent(productoId, id -> productoRepository.findCantidadActivaById(id)
+                    .map(cantidad -> new ContadorStock(cantidad, 0, 0))
+                    .orElse(null));
+        }
+        if (contador == null) {
+            throw new IllegalArgumentException("Producto no encontrado con ID: " + productoId);
+        }
+        return contador;
+    }
+
+    private ReservaInventario obtenerReserva(String reservaId) {
+        if (reservaId == null || reservaId.isBlank()) {
+            throw new IllegalArgumentException("El ID de la reserva no puede estar vacío");
+        }
+        ReservaInventario reserva = reservas.get(reservaId);
+        if (reserva == null) {
+            throw new IllegalArgumentException("Reserva no encontrada o ya finalizada: " + reservaId);
+        }
+        return reserva;
+    }
+
+    private void validarCantidad(Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a reservar debe ser mayor a 0");
+        }
+    }
+
+    private Entrada escribirDiario(TipoRegistro tipo, ReservaInventario reserva) {
+        try {
+            return diario.escribir(tipo, reserva.getReservaId(), reserva.getProductoId(), reserva.getCantidad(),
+                    reserva.getExpira());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el diario de inventario", e);
+        }
+    }
+
+    private void asegurarDurable(Entrada entrada) {
+        try {
+            diario.asegurarDurable(entrada);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo sincronizar el diario de inventario", e);
+        }
+    }
+}
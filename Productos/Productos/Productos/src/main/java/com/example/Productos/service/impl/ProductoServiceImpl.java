@@ -1,15 +1,67 @@
 package com.example.Productos.service.impl;
 
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.ConsultasEnCurso.Operacion;
+import com.example.Productos.cache.FiltroCodigos;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.config.LecturaPropiasEscrituras;
+import com.example.Productos.dto.CamposProducto;
+import com.example.Productos.dto.EstadisticasInventario;
+import com.example.Productos.dto.FiltroProductos;
+import com.example.Productos.dto.PaginaBusqueda;
+import com.example.Productos.dto.PaginaCambios;
+import com.example.Productos.dto.PaginaFiltro;
+import com.example.Productos.dto.PaginaProductos;
+import com.example.Productos.dto.PaginaSincronizacion;
+import com.example.Productos.dto.ResultadoConsultaLote;
+import com.example.Productos.dto.ResultadoLote;
+import com.example.Productos.dto.ResultadoLote.EstadoFila;
+import com.example.Productos.dto.ResultadoLote.ResultadoFila;
+import com.example.Productos.entity.EventoProducto;
+import com.example.Productos.entity.EventoProducto.TipoEvento;
 import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.EscrituraDiferidaProductos;
+import com.example.Productos.outbox.BandejaSalidaProductos;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.ProductoFiltroRepository;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.repository.ProductoProyeccionRepository;
 import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import com.example.Productos.service.InventarioService;
 import com.example.Productos.service.ProductoService;
+import com.example.Productos.validator.ProductoValidador;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -18,23 +70,63 @@ import java.util.Optional;
 public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoRepository productoRepository;
-
-    // Constantes de validación
-    private static final int CODIGO_MIN_LENGTH = 3;
-    private static final int CODIGO_MAX_LENGTH = 20;
-    private static final int NOMBRE_MIN_LENGTH = 3;
-    private static final int NOMBRE_MAX_LENGTH = 100;
-    private static final double PRECIO_MINIMO = 0.01;
+    private final ProductoJdbcRepository productoJdbcRepository;
+    private final ProductoProyeccionRepository proyeccionRepository;
+    private final ProductoFiltroRepository filtroRepository;
+    private final EntityManager entityManager;
+    private final ProductoCache productoCache;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final ProductoValidador productoValidador;
+    private final InventarioService inventarioService;
+    private final BandejaSalidaProductos bandejaSalida;
+    private final EventoProductoRepository eventoProductoRepository;
+    private final CatalogoPrecomprimido catalogo;
+    private final ConsultasEnCurso consultasEnCurso;
+    private final FiltroCodigos filtroCodigos;
+    private final EscrituraDiferidaProductos escrituraDiferida;
+    private final PlatformTransactionManager transactionManager;
+
+    // Transacción de solo lectura que abre únicamente quien ejecuta una consulta coalescida
+    private TransactionTemplate transaccionLectura;
+    // Lecturas que llenan la caché: siempre del primario, porque lo cargado se sirve durante todo el TTL
+    // y una réplica atrasada podría devolver la fila anterior a una escritura ya invalidada
+    private TransactionTemplate transaccionCache;
+    // Escrituras que primero vacían la escritura diferida: su transacción se abre después, para no
+    // retener una conexión del pool mientras la escritura diferida usa otra
+    private TransactionTemplate transaccion;
+
+    // Margen para no adelantar la marca de agua a escrituras que aún no confirman su transacción
+    @Value("${productos.sincronizacion.margen:5s}")
+    private Duration margenSincronizacion;
+
+    @Value("${productos.estadisticas.umbral-stock-bajo:5}")
+    private int umbralStockBajo;
+
+    // Constantes de paginación y carga masiva
+    private static final int LIMITE_PAGINA_DEFECTO = 100;
+    private static final int LIMITE_PAGINA_MAXIMO = 1000;
+    private static final int TAMANO_LOTE_MAXIMO = 5000;
+    // Máximo de valores por cláusula IN al cargar lotes desde la base de datos
+    private static final int TAMANO_BLOQUE_IN = 1000;
+
+    @PostConstruct
+    void inicializar() {
+        transaccionLectura = new TransactionTemplate(transactionManager);
+        transaccionLectura.setReadOnly(true);
+        transaccionCache = new TransactionTemplate(transactionManager);
+        transaccionCache.setName(LecturaPropiasEscrituras.LECTURA_EN_PRIMARIO);
+        transaccion = new TransactionTemplate(transactionManager);
+    }
 
     @Override
     public Producto crearProducto(Producto producto) {
-        log.info("Iniciando creación de producto con código: {}", producto.getCodigo());
+        log.debug("Iniciando creación de producto con código: {}", producto.getCodigo());
 
         // Validaciones
-        validarProductoParaCreacion(producto);
+        productoValidador.validarParaCreacion(producto);
 
-        // Verificar que no exista un producto con el mismo código
-        if (productoRepository.existsByCodigo(producto.getCodigo())) {
+        // Verificar que no exista un producto con el mismo código (sin consulta si el filtro lo descarta)
+        if (filtroCodigos.existe(producto.getCodigo(), productoRepository::existsByCodigo)) {
             throw new IllegalArgumentException("Ya existe un producto con el código: " + producto.getCodigo());
         }
 
@@ -42,62 +134,448 @@ public class ProductoServiceImpl implements ProductoService {
         producto.setActivo(true);
         producto.setFechaCreacion(System.currentTimeMillis());
         producto.setFechaActualizacion(System.currentTimeMillis());
-
-        Producto productoCreado = productoRepository.save(producto);
-        log.info("Producto creado exitosamente con ID: {}", productoCreado.getId());
+        producto.setVersion(null);
+
+        filtroCodigos.agregar(producto.getCodigo());
+        Producto productoCreado;
+        try {
+            productoCreado = productoRepository.save(producto);
+        } catch (DataIntegrityViolationException e) {
+            // Otra solicitud creó el mismo código entre la verificación y el INSERT
+            throw new IllegalArgumentException("Ya existe un producto con el código: " + producto.getCodigo());
+        }
+        bandejaSalida.registrar(TipoEvento.CREADO, productoCreado, null);
+        invalidarCache(productoCreado.getId(), productoCreado.getCodigo());
+        despuesDeConfirmar(() -> indiceBusqueda.indexar(productoCreado));
+        despuesDeConfirmar(() -> catalogo.marcarCambio(productoCreado.getId()));
+        log.debug("Producto creado exitosamente con ID: {}", productoCreado.getId());
 
         return productoCreado;
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ResultadoLote guardarProductosEnLote(List<Producto> productos) {
+        if (productos == null || productos.isEmpty()) {
+            throw new IllegalArgumentException("El lote de productos no puede estar vacío");
+        }
+
+        if (productos.size() > TAMANO_LOTE_MAXIMO) {
+            throw new IllegalArgumentException("El lote no puede exceder " + TAMANO_LOTE_MAXIMO + " productos");
+        }
+
+        log.debug("Iniciando carga masiva de {} productos", productos.size());
+        // El UPDATE masivo reemplaza la fila completa: primero se escriben las actualizaciones diferidas
+        escrituraDiferida.escribirPendientes();
+        return transaccion.execute(estado -> guardarEnLote(productos));
+    }
+
+    private ResultadoLote guardarEnLote(List<Producto> productos) {
+        // Validar todas las filas y detectar códigos repetidos dentro del lote
+        List<ResultadoFila> resultados = new ArrayList<>(productos.size());
+        Map<String, Integer> filasPorCodigo = new LinkedHashMap<>();
+        for (int i = 0; i < productos.size(); i++) {
+            Producto producto = productos.get(i);
+            String codigo = producto == null ? null : producto.getCodigo();
+            ResultadoFila resultado = new ResultadoFila(i, codigo, null, null, null);
+            resultados.add(resultado);
+
+            try {
+                productoValidador.validarParaCreacion(producto);
+                if (filasPorCodigo.putIfAbsent(codigo, i) != null) {
+                    throw new IllegalArgumentException("Código repetido en el lote: " + codigo);
+                }
+            } catch (IllegalArgumentException e) {
+                resultado.setEstado(EstadoFila.ERROR);
+                resultado.setMensaje(e.getMessage());
+            }
+        }
+
+        // Una sola consulta para saber qué códigos ya existen
+        Map<String, Producto> existentesPorCodigo = new HashMap<>();
+        if (!filasPorCodigo.isEmpty()) {
+            for (Producto existente : productoRepository.findAllByCodigoIn(filasPorCodigo.keySet())) {
+                existentesPorCodigo.put(existente.getCodigo(), existente);
+            }
+        }
+
+        long ahora = System.currentTimeMillis();
+        List<Producto> nuevos = new ArrayList<>();
+        List<Producto> existentes = new ArrayList<>();
+        for (Map.Entry<String, Integer> fila : filasPorCodigo.entrySet()) {
+            Producto producto = productos.get(fila.getValue());
+            Producto existente = existentesPorCodigo.get(fila.getKey());
+            producto.setActivo(producto.getActivo() == null || producto.getActivo());
+            producto.setFechaActualizacion(ahora);
+            if (existente == null) {
+                producto.setId(null);
+                producto.setFechaCreacion(ahora);
+                producto.setVersion(0L);
+                nuevos.add(producto);
+            } else {
+                // Reflejar en memoria lo que el UPDATE conserva o incrementa
+                producto.setId(existente.getId());
+                producto.setFechaCreacion(existente.getFechaCreacion());
+                producto.setVersion(existente.getVersion() + 1);
+                existentes.add(producto);
+            }
+        }
+
+        nuevos.forEach(producto -> filtroCodigos.agregar(producto.getCodigo()));
+        productoJdbcRepository.insertar(nuevos);
+        productoJdbcRepository.actualizar(existentes);
+
+        List<EventoProducto> eventos = new ArrayList<>(nuevos.size() + existentes.size());
+        for (Producto producto : nuevos) {
+            eventos.add(bandejaSalida.crearEvento(TipoEvento.CREADO, producto, null, bandejaSalida.capturar(producto)));
+        }
+        for (Producto producto : existentes) {
+            eventos.add(bandejaSalida.crearEvento(TipoEvento.ACTUALIZADO, producto,
+                    bandejaSalida.capturar(existentesPorCodigo.get(producto.getCodigo())),
+                    bandejaSalida.capturar(producto)));
+        }
+        bandejaSalida.registrarLote(eventos);
+
+        Set<Integer> filasNuevas = new HashSet<>();
+        for (Producto producto : nuevos) {
+            filasNuevas.add(filasPorCodigo.get(producto.getCodigo()));
+        }
+        for (int fila : filasPorCodigo.values()) {
+            Producto producto = productos.get(fila);
+            ResultadoFila resultado = resultados.get(fila);
+            resultado.setId(producto.getId());
+            resultado.setEstado(filasNuevas.contains(fila) ? EstadoFila.CREADO : EstadoFila.ACTUALIZADO);
+            invalidarCache(producto.getId(), producto.getCodigo());
+            despuesDeConfirmar(() -> indiceBusqueda.indexar(producto));
+        }
+        for (Producto producto : existentes) {
+            despuesDeConfirmar(() -> inventarioService.sincronizar(producto.getId()));
+        }
+        List<Long> idsGuardados = filasPorCodigo.values().stream().map(fila -> productos.get(fila).getId()).toList();
+        despuesDeConfirmar(() -> catalogo.marcarCambios(idsGuardados));
+
+        int errores = productos.size() - filasPorCodigo.size();
+        log.info("Carga masiva completada: {} creados, {} actualizados, {} con error",
+                nuevos.size(), existentes.size(), errores);
+
+        return new ResultadoLote(productos.size(), nuevos.size(), existentes.size(), errores, resultados);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Producto> obtenerTodosLosProductos() {
-        log.info("Obteniendo todos los productos activos");
-        return productoRepository.findByActivoTrue();
+        log.debug("Obteniendo todos los productos activos");
+        return escrituraDiferida.superponer(productoRepository.findByActivoTrue());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Producto> obtenerTodosProductos() {
-        log.info("Obteniendo todos los productos (incluyendo inactivos)");
-        return productoRepository.findAll();
+        log.debug("Obteniendo todos los productos (incluyendo inactivos)");
+        return escrituraDiferida.superponer(productoRepository.findAll());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Optional<Producto> obtenerProductoPorId(Long id) {
-        log.info("Buscando producto por ID: {}", id);
-        validarId(id);
-        return productoRepository.findById(id);
+    public PaginaProductos<Producto> obtenerProductosPaginados(Long cursor, Integer limite) {
+        log.debug("Obteniendo página de productos activos desde cursor: {}", cursor);
+        int tamano = normalizarLimite(limite);
+        List<Producto> productos = escrituraDiferida.superponer(productoRepository
+                .findByActivoTrueAndIdGreaterThanOrderByIdAsc(normalizarCursor(cursor), Limit.of(tamano + 1)));
+        return crearPagina(productos, tamano, Producto::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaProductos<Map<String, Object>> obtenerProductosPaginados(Long cursor, Integer limite,
+                                                                          CamposProducto campos) {
+        log.debug("Obteniendo página parcial de productos activos desde cursor: {}", cursor);
+        int tamano = normalizarLimite(limite);
+        List<Map<String, Object>> productos = superponerFilas(proyeccionRepository.buscarPagina(campos, true,
+                normalizarCursor(cursor), tamano + 1), campos);
+        return crearPagina(productos, tamano, fila -> (Long) fila.get(CamposProducto.Campo.ID.getNombre()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaProductos<Producto> obtenerTodosProductosPaginados(Long cursor, Integer limite) {
+        log.debug("Obteniendo página de todos los productos desde cursor: {}", cursor);
+        int tamano = normalizarLimite(limite);
+        List<Producto> productos = escrituraDiferida.superponer(productoRepository
+                .findByIdGreaterThanOrderByIdAsc(normalizarCursor(cursor), Limit.of(tamano + 1)));
+        return crearPagina(productos, tamano, Producto::getId);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public PaginaProductos<Map<String, Object>> obtenerTodosProductosPaginados(Long cursor, Integer limite,
+                                                                               CamposProducto campos) {
+        log.debug("Obteniendo página parcial de todos los productos desde cursor: {}", cursor);
+        int tamano = normalizarLimite(limite);
+        List<Map<String, Object>> productos = superponerFilas(proyeccionRepository.buscarPagina(campos, false,
+                normalizarCursor(cursor), tamano + 1), campos);
+        return crearPagina(productos, tamano, fila -> (Long) fila.get(CamposProducto.Campo.ID.getNombre()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrerProductos(boolean incluirInactivos, Consumer<Producto> consumidor) {
+        log.debug("Recorriendo productos con cursor (incluir inactivos: {})", incluirInactivos);
+        try (Stream<Producto> productos = incluirInactivos
+                ? productoRepository.streamAllByOrderByIdAsc()
+                : productoRepository.streamByActivoTrueOrderByIdAsc()) {
+            productos.forEach(producto -> {
+                consumidor.accept(producto);
+                // Liberar la entidad del contexto de persistencia para mantener la memoria constante
+                entityManager.detach(producto);
+            });
+        }
+    }
+
+    // Las lecturas concurrentes de la misma clave esperan, con tiempo límite, a la primera; esta carga la caché
+    // (una sola vez por clave en Caffeine) y abre la transacción dentro de la carga, así quien espera
+    // no retiene una conexión del pool mientras tanto
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<Producto> obtenerProductoPorId(Long id) {
+        log.debug("Buscando producto por ID: {}", id);
+        productoValidador.validarId(id);
+        Optional<Producto> pendiente = escrituraDiferida.obtener(id);
+        if (pendiente.isPresent()) {
+            return pendiente;
+        }
+        Optional<Producto> enCache = productoCache.buscarPorId(id);
+        if (enCache.isPresent()) {
+            return enCache;
+        }
+        return consultasEnCurso.ejecutar(Operacion.POR_ID, id, () -> productoCache.obtenerPorId(id,
+                clave -> transaccionCache.execute(estado -> productoRepository.findById(clave))));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Producto> obtenerProductoPorCodigo(String codigo) {
-        log.info("Buscando producto por código: {}", codigo);
-        validarCodigo(codigo);
-        return productoRepository.findByCodigo(codigo);
+        log.debug("Buscando producto por código: {}", codigo);
+        productoValidador.validarCodigo(codigo);
+        Optional<Producto> pendiente = escrituraDiferida.obtenerPorCodigo(codigo);
+        if (pendiente.isPresent()) {
+            return pendiente;
+        }
+        Optional<Producto> enCache = productoCache.buscarPorCodigo(codigo);
+        if (enCache.isPresent()) {
+            return enCache;
+        }
+        return consultasEnCurso.ejecutar(Operacion.POR_CODIGO, codigo, () -> productoCache.obtenerPorCodigo(codigo,
+                clave -> transaccionCache.execute(estado -> productoRepository.findByCodigo(clave))));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResultadoConsultaLote<Producto> obtenerProductosEnLote(List<Long> ids, List<String> codigos) {
+        List<Long> idsSolicitados = ids != null ? ids : List.of();
+        List<String> codigosSolicitados = codigos != null ? codigos : List.of();
+        log.debug("Buscando lote de {} IDs y {} códigos", idsSolicitados.size(), codigosSolicitados.size());
+        validarConsultaLote(idsSolicitados, codigosSolicitados);
+
+        // Los faltantes se cargan en la caché, por eso se leen del primario
+        return transaccionCache.execute(estado -> {
+            Map<Long, Producto> encontradosPorId = idsSolicitados.isEmpty()
+                    ? Map.of()
+                    : escrituraDiferida.superponer(
+                            productoCache.obtenerTodosPorId(idsSolicitados, this::cargarPorIds));
+            Map<String, Producto> encontradosPorCodigo = codigosSolicitados.isEmpty()
+                    ? Map.of()
+                    : escrituraDiferida.superponer(
+                            productoCache.obtenerTodosPorCodigo(codigosSolicitados, this::cargarPorCodigos));
+            return crearResultadoLote(idsSolicitados, codigosSolicitados, encontradosPorId, encontradosPorCodigo);
+        });
     }
 
     @Override
     @Transactional(readOnly = true)
+    public ResultadoConsultaLote<Map<String, Object>> obtenerProductosEnLote(List<Long> ids, List<String> codigos,
+                                                                             CamposProducto campos) {
+        List<Long> idsSolicitados = ids != null ? ids : List.of();
+        List<String> codigosSolicitados = codigos != null ? codigos : List.of();
+        log.debug("Buscando lote parcial de {} IDs y {} códigos", idsSolicitados.size(), codigosSolicitados.size());
+        validarConsultaLote(idsSolicitados, codigosSolicitados);
+
+        Map<Long, Map<String, Object>> encontradosPorId = idsSolicitados.isEmpty()
+                ? Map.of()
+                : proyectarPorIds(idsSolicitados, campos);
+        Map<String, Map<String, Object>> encontradosPorCodigo = codigosSolicitados.isEmpty()
+                ? Map.of()
+                : proyectarPorCodigos(codigosSolicitados, campos);
+        return crearResultadoLote(idsSolicitados, codigosSolicitados, encontradosPorId, encontradosPorCodigo);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Producto> buscarPorNombre(String nombre) {
-        log.info("Buscando productos por nombre: {}", nombre);
-        validarNombre(nombre);
-        return productoRepository.findByNombreContainingIgnoreCase(nombre);
+        log.debug("Buscando productos por nombre: {}", nombre);
+        productoValidador.validarNombre(nombre);
+        return consultasEnCurso.ejecutar(Operacion.POR_NOMBRE, nombre,
+                () -> transaccionLectura.execute(estado -> ejecutarBusquedaPorNombre(nombre)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PaginaBusqueda<Producto> buscarProductos(String texto, Integer pagina, Integer limite) {
+        log.debug("Buscando productos por texto: {}", texto);
+        productoValidador.validarNombre(texto);
+        int tamano = normalizarLimite(limite);
+        int numeroPagina = normalizarPagina(pagina);
+        return consultasEnCurso.ejecutar(Operacion.BUSQUEDA, List.of(texto, numeroPagina, tamano),
+                () -> transaccionLectura.execute(estado -> ejecutarBusqueda(texto, numeroPagina, tamano)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PaginaBusqueda<Map<String, Object>> buscarProductos(String texto, Integer pagina, Integer limite,
+                                                               CamposProducto campos) {
+        log.debug("Buscando productos por texto con campos parciales: {}", texto);
+        productoValidador.validarNombre(texto);
+        int tamano = normalizarLimite(limite);
+        int numeroPagina = normalizarPagina(pagina);
+        return consultasEnCurso.ejecutar(Operacion.BUSQUEDA, List.of(texto, numeroPagina, tamano, campos),
+                () -> transaccionLectura.execute(estado -> ejecutarBusqueda(texto, numeroPagina, tamano, campos)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaFiltro filtrarProductos(FiltroProductos filtro, String cursor, Integer limite) {
+        log.debug("Filtrando productos: {}", filtro);
+        int tamano = normalizarLimite(limite);
+        FiltroProductos.Cursor posicion = cursor == null || cursor.isBlank() ? null : filtro.leerCursor(cursor);
+
+        List<Producto> productos = filtroRepository.buscar(filtro, posicion, tamano + 1);
+        boolean hayMas = productos.size() > tamano;
+        List<Producto> pagina = hayMas ? productos.subList(0, tamano) : productos;
+        // El cursor sale de la fila leída: un valor diferido aún no está en el índice
+        String siguienteCursor = hayMas ? filtro.cursorDe(pagina.get(pagina.size() - 1)) : null;
+        return new PaginaFiltro(escrituraDiferida.superponer(pagina), siguienteCursor, tamano, hayMas);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EstadisticasInventario obtenerEstadisticas(Integer umbral) {
+        log.debug("Calculando estadísticas del inventario");
+        if (umbral != null && umbral < 0) {
+            throw new IllegalArgumentException("El umbral de stock bajo no puede ser negativo");
+        }
+        return filtroRepository.calcularEstadisticas(umbral != null ? umbral : umbralStockBajo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaSincronizacion obtenerProductosModificadosDesde(Long desde, Long marcaAgua, String cursor,
+                                                                 Integer limite) {
+        log.debug("Obteniendo productos modificados desde: {}", desde);
+        if (desde == null || desde < 0) {
+            throw new IllegalArgumentException("El timestamp no puede ser negativo");
+        }
+        int tamano = normalizarLimite(limite);
+
+        // La marca de agua queda fija entre páginas y nunca pasa de ahora - margen
+        long limiteSeguro = System.currentTimeMillis() - margenSincronizacion.toMillis();
+        long hasta = marcaAgua == null ? limiteSeguro : Math.min(marcaAgua, limiteSeguro);
+        if (hasta <= desde) {
+            return new PaginaSincronizacion(List.of(), desde, null, tamano, false);
+        }
+
+        long cursorFecha = desde;
+        long cursorId = Long.MAX_VALUE;
+        if (cursor != null) {
+            String[] partes = cursor.split(":");
+            try {
+                cursorFecha = Long.parseLong(partes[0]);
+                cursorId = Long.parseLong(partes[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+        }
+
+        List<Producto> productos = productoRepository.findCambiadosDespuesDe(cursorFecha, cursorId, hasta,
+                Limit.of(tamano + 1));
+        boolean hayMas = productos.size() > tamano;
+        List<Producto> pagina = hayMas ? productos.subList(0, tamano) : productos;
+        String siguienteCursor = null;
+        if (hayMas) {
+            Producto ultimo = pagina.get(pagina.size() - 1);
+            siguienteCursor = ultimo.getFechaActualizacion() + ":" + ultimo.getId();
+        }
+        return new PaginaSincronizacion(pagina, hasta, siguienteCursor, tamano, hayMas);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaCambios obtenerCambios(Long desde, Integer limite) {
+        log.debug("Obteniendo cambios de productos desde la secuencia: {}", desde);
+        int tamano = normalizarLimite(limite);
+        long inicio = normalizarCursor(desde);
+        List<EventoProducto> eventos = eventoProductoRepository.findBySecuenciaGreaterThanOrderBySecuenciaAsc(
+                inicio, Limit.of(tamano + 1));
+
+        boolean hayMas = eventos.size() > tamano;
+        List<EventoProducto> pagina = hayMas ? eventos.subList(0, tamano) : eventos;
+        // Sin eventos nuevos el consumidor repite la consulta con el mismo desplazamiento
+        Long siguienteDesde = pagina.isEmpty() ? inicio : pagina.get(pagina.size() - 1).getSecuencia();
+        return new PaginaCambios(pagina, siguienteDesde, tamano, hayMas);
     }
 
-   @Override
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Producto actualizarProducto(Long id, Producto producto) {
-        log.info("Iniciando actualización de producto con ID: {}", id);
+        return actualizarProducto(id, producto, null);
+    }
 
-        validarId(id);
-        // validarProductoParaActualizacion(producto); // Opcional
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Producto actualizarProducto(Long id, Producto producto, Long versionEsperada) {
+        log.debug("Iniciando actualización de producto con ID: {}", id);
+
+        productoValidador.validarId(id);
+        productoValidador.validarParaActualizacion(producto);
+
+        if (versionEsperada == null && escrituraDiferida.estaHabilitada()) {
+            Producto actual = escrituraDiferida.obtener(id)
+                    .or(() -> productoCache.obtenerPorId(id,
+                            clave -> transaccionCache.execute(estado -> productoRepository.findById(clave))))
+                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + id));
+            if (escrituraDiferida.admite(actual, producto)) {
+                Producto productoActualizado = escrituraDiferida.registrar(actual, producto);
+                log.debug("Actualización diferida registrada para el producto con ID: {}", id);
+                return productoActualizado;
+            }
+        }
+        // Antes de abrir la transacción, que parte así del último valor confirmado al cliente
+        escrituraDiferida.escribirSiPendiente(id);
+        return transaccion.execute(estado -> actualizarEnTransaccion(id, producto, versionEsperada));
+    }
 
+    private Producto actualizarEnTransaccion(Long id, Producto producto, Long versionEsperada) {
         Producto productoExistente = productoRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + id));
 
-        // ... validaciones de código ...
+        if (versionEsperada != null && !versionEsperada.equals(productoExistente.getVersion())) {
+            throw new OptimisticLockingFailureException("El producto con ID " + id
+                    + " fue modificado por otra solicitud (versión actual: " + productoExistente.getVersion() + ")");
+        }
+
+        // Si cambia el código, verificar que no lo use otro producto
+        if (!productoExistente.getCodigo().equals(producto.getCodigo())) {
+            if (filtroCodigos.existe(producto.getCodigo(), productoRepository::existsByCodigo)) {
+                throw new IllegalArgumentException("Ya existe un producto con el código: " + producto.getCodigo());
+            }
+            filtroCodigos.agregar(producto.getCodigo());
+        }
+
+        invalidarCache(id, productoExistente.getCodigo());
+        String antes = bandejaSalida.capturar(productoExistente);
+        if (!productoExistente.getCantidad().equals(producto.getCantidad())) {
+            // El motor de reservas debe partir de la nueva cantidad persistida
+            despuesDeConfirmar(() -> inventarioService.sincronizar(id));
+        }
 
         // Actualizar campos
         productoExistente.setCodigo(producto.getCodigo());
@@ -109,163 +587,340 @@ public class ProductoServiceImpl implements ProductoService {
         productoExistente.setActivo(producto.getActivo());
         productoExistente.setFechaActualizacion(System.currentTimeMillis());
 
-        Producto productoActualizado = productoRepository.save(productoExistente);
-        log.info("Producto actualizado exitosamente con ID: {}", id);
+        // Flush inmediato para que el evento lleve la versión ya incrementada
+        Producto productoActualizado = productoRepository.saveAndFlush(productoExistente);
+        bandejaSalida.registrar(TipoEvento.ACTUALIZADO, productoActualizado, antes);
+        // Una actualización diferida registrada después de escribirSiPendiente conservaría código, cantidad y estado
+        despuesDeConfirmar(() -> escrituraDiferida.rebasar(productoActualizado));
+        despuesDeConfirmar(() -> indiceBusqueda.indexar(productoActualizado));
+        despuesDeConfirmar(() -> catalogo.marcarCambio(id));
+        log.debug("Producto actualizado exitosamente con ID: {}", id);
 
         return productoActualizado;
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void eliminarProducto(Long id) {
-        log.info("Iniciando borrado lógico de producto con ID: {}", id);
-
-        validarId(id);
-
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + id));
-
-        producto.setActivo(false);
-        producto.setFechaActualizacion(System.currentTimeMillis());
-        productoRepository.save(producto);
-
-        log.info("Producto desactivado exitosamente con ID: {}", id);
+        log.debug("Iniciando borrado lógico de producto con ID: {}", id);
+
+        productoValidador.validarId(id);
+        escrituraDiferida.escribirSiPendiente(id);
+
+        transaccion.executeWithoutResult(estado -> {
+            Producto producto = productoRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + id));
+
+            String antes = bandejaSalida.capturar(producto);
+            producto.setActivo(false);
+            producto.setFechaActualizacion(System.currentTimeMillis());
+            productoRepository.saveAndFlush(producto);
+            bandejaSalida.registrar(TipoEvento.DESACTIVADO, producto, antes);
+            invalidarCache(id, producto.getCodigo());
+            despuesDeConfirmar(() -> escrituraDiferida.rebasar(producto));
+            despuesDeConfirmar(() -> indiceBusqueda.indexar(producto));
+            despuesDeConfirmar(() -> catalogo.marcarCambio(id));
+        });
+
+        log.debug("Producto desactivado exitosamente con ID: {}", id);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void eliminarProductoPermanentemente(Long id) {
-        log.info("Iniciando borrado permanente de producto con ID: {}", id);
-
-        validarId(id);
-
-        if (!productoRepository.existsById(id)) {
-            throw new IllegalArgumentException("Producto no encontrado con ID: " + id);
-        }
-
-        productoRepository.deleteById(id);
-        log.info("Producto eliminado permanentemente con ID: {}", id);
+        log.debug("Iniciando borrado permanente de producto con ID: {}", id);
+
+        productoValidador.validarId(id);
+        escrituraDiferida.escribirSiPendiente(id);
+
+        transaccion.executeWithoutResult(estado -> {
+            Producto producto = productoRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + id));
+
+            String antes = bandejaSalida.capturar(producto);
+            productoRepository.delete(producto);
+            bandejaSalida.registrar(TipoEvento.ELIMINADO, producto, antes);
+            invalidarCache(id, producto.getCodigo());
+            despuesDeConfirmar(() -> escrituraDiferida.descartar(id));
+            despuesDeConfirmar(() -> indiceBusqueda.eliminar(id));
+            despuesDeConfirmar(() -> catalogo.marcarCambio(id));
+            despuesDeConfirmar(() -> inventarioService.descartar(id));
+        });
+        log.debug("Producto eliminado permanentemente con ID: {}", id);
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean existeProductoPorCodigo(String codigo) {
-        log.info("Verificando existencia de producto con código: {}", codigo);
-        validarCodigo(codigo);
-        return productoRepository.existsByCodigo(codigo);
+        log.debug("Verificando existencia de producto con código: {}", codigo);
+        productoValidador.validarCodigo(codigo);
+        return productoCache.contieneCodigo(codigo) || filtroCodigos.existe(codigo, productoRepository::existsByCodigo);
     }
 
-    // Métodos de validación internos
-
     /**
-     * Valida un producto para su creación
+     * Busca por nombre en el índice, o en base de datos mientras el índice se construye
      */
-    private void validarProductoParaCreacion(Producto producto) {
-        log.debug("Validando producto para creación");
-
-        if (producto == null) {
-            throw new IllegalArgumentException("El producto no puede ser nulo");
+    private List<Producto> ejecutarBusquedaPorNombre(String nombre) {
+        if (!indiceBusqueda.estaListo()) {
+            return escrituraDiferida.superponer(productoRepository.findByNombreContainingIgnoreCase(nombre));
         }
 
-        validarCodigo(producto.getCodigo());
-        validarNombre(producto.getNombre());
-        validarPrecio(producto.getPrecio());
-        validarCantidad(producto.getCantidad());
+        return cargarEnOrden(indiceBusqueda.buscar(nombre, 0, Integer.MAX_VALUE).ids());
     }
 
     /**
-     * Valida un producto para su actualización
+     * Obtiene una página de resultados de búsqueda por texto
      */
-    private void validarProductoParaActualizacion(Producto producto) {
-        log.debug("Validando producto para actualización");
+    private PaginaBusqueda<Producto> ejecutarBusqueda(String texto, int numeroPagina, int tamano) {
+        long desde = (long) numeroPagina * tamano;
+
+        if (!indiceBusqueda.estaListo()) {
+            // El índice aún se está construyendo: se usa la consulta en base de datos
+            List<Producto> productos = escrituraDiferida.superponer(
+                    productoRepository.findByNombreContainingIgnoreCase(texto));
+            int inicio = (int) Math.min(desde, productos.size());
+            int fin = Math.min(inicio + tamano, productos.size());
+            return new PaginaBusqueda<>(productos.subList(inicio, fin), numeroPagina, tamano, productos.size());
+        }
+
+        IndiceBusquedaProductos.ResultadoBusqueda resultado =
+                indiceBusqueda.buscar(texto, (int) Math.min(desde, Integer.MAX_VALUE), tamano);
+        return new PaginaBusqueda<>(cargarEnOrden(resultado.ids()), numeroPagina, tamano, resultado.total());
+    }
 
-        if (producto == null) {
-            throw new IllegalArgumentException("El producto no puede ser nulo");
+    /**
+     * Obtiene una página de resultados de búsqueda por texto con solo los campos indicados
+     */
+    private PaginaBusqueda<Map<String, Object>> ejecutarBusqueda(String texto, int numeroPagina, int tamano,
+                                                                 CamposProducto campos) {
+        if (!indiceBusqueda.estaListo()) {
+            // Sin índice la consulta en base de datos ya carga las entidades completas
+            PaginaBusqueda<Producto> completa = ejecutarBusqueda(texto, numeroPagina, tamano);
+            return new PaginaBusqueda<>(completa.getProductos().stream().map(campos::desdeProducto).toList(),
+                    numeroPagina, tamano, completa.getTotal());
         }
 
-        validarCodigo(producto.getCodigo());
-        validarNombre(producto.getNombre());
-        validarPrecio(producto.getPrecio());
-        validarCantidad(producto.getCantidad());
+        long desde = (long) numeroPagina * tamano;
+        IndiceBusquedaProductos.ResultadoBusqueda resultado =
+                indiceBusqueda.buscar(texto, (int) Math.min(desde, Integer.MAX_VALUE), tamano);
+        Map<Long, Map<String, Object>> productos = proyectarPorIds(resultado.ids(), campos);
+        List<Map<String, Object>> enOrden = new ArrayList<>(resultado.ids().size());
+        for (Long id : resultado.ids()) {
+            Map<String, Object> producto = productos.get(id);
+            if (producto != null) {
+                enOrden.add(producto);
+            }
+        }
+        return new PaginaBusqueda<>(enOrden, numeroPagina, tamano, resultado.total());
     }
 
     /**
-     * Valida el código del producto
+     * Carga los productos indicados (desde caché cuando es posible) conservando el orden de los IDs.
+     * La búsqueda puede leer de una réplica, por eso los que no estaban en caché no se guardan en ella.
      */
-    private void validarCodigo(String codigo) {
-        if (codigo == null || codigo.trim().isEmpty()) {
-            throw new IllegalArgumentException("El código del producto no puede estar vacío");
+    private List<Producto> cargarEnOrden(List<Long> ids) {
+        Map<Long, Producto> leidos = new HashMap<>(productoCache.buscarTodosPorId(ids));
+        leidos.putAll(cargarPorIds(ids.stream().filter(id -> !leidos.containsKey(id)).toList()));
+        Map<Long, Producto> productos = escrituraDiferida.superponer(leidos);
+        List<Producto> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Producto producto = productos.get(id);
+            if (producto != null) {
+                resultado.add(producto);
+            }
         }
+        return resultado;
+    }
 
-        codigo = codigo.trim();
+    private Map<Long, Producto> cargarPorIds(Collection<? extends Long> ids) {
+        List<Long> pendientes = new ArrayList<>(ids);
+        Map<Long, Producto> productos = new HashMap<>(pendientes.size());
+        for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_BLOQUE_IN) {
+            List<Long> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_BLOQUE_IN, pendientes.size()));
+            productoRepository.findAllById(bloque).forEach(p -> productos.put(p.getId(), p));
+        }
+        return productos;
+    }
 
-        if (codigo.length() < CODIGO_MIN_LENGTH || codigo.length() > CODIGO_MAX_LENGTH) {
-            throw new IllegalArgumentException(
-                    String.format("El código debe tener entre %d y %d caracteres",
-                            CODIGO_MIN_LENGTH, CODIGO_MAX_LENGTH));
+    private Map<String, Producto> cargarPorCodigos(Set<String> codigos) {
+        List<String> pendientes = new ArrayList<>(codigos);
+        Map<String, Producto> productos = new HashMap<>(pendientes.size());
+        for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_BLOQUE_IN) {
+            List<String> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_BLOQUE_IN, pendientes.size()));
+            productoRepository.findAllByCodigoIn(bloque).forEach(p -> productos.put(p.getCodigo(), p));
         }
+        return productos;
+    }
 
-        if (!codigo.matches("^[a-zA-Z0-9-_]+$")) {
-            throw new IllegalArgumentException("El código solo puede contener letras, números, guiones y guiones bajos");
+    /**
+     * Reemplaza las filas parciales de productos con una actualización diferida pendiente
+     */
+    private List<Map<String, Object>> superponerFilas(List<Map<String, Object>> filas, CamposProducto campos) {
+        if (!escrituraDiferida.hayPendientes()) {
+            return filas;
         }
+        List<Map<String, Object>> resultado = new ArrayList<>(filas.size());
+        for (Map<String, Object> fila : filas) {
+            resultado.add(escrituraDiferida.obtener((Long) fila.get(CamposProducto.Campo.ID.getNombre()))
+                    .map(campos::desdeProducto)
+                    .orElse(fila));
+        }
+        return resultado;
     }
 
     /**
-     * Valida el nombre del producto
+     * Proyecta los productos indicados: los que están en caché se recortan en memoria y el resto
+     * se lee de la base de datos con solo las columnas solicitadas (sin llenar la caché con productos parciales)
      */
-    private void validarNombre(String nombre) {
-        if (nombre == null || nombre.trim().isEmpty()) {
-            throw new IllegalArgumentException("El nombre del producto no puede estar vacío");
+    private Map<Long, Map<String, Object>> proyectarPorIds(Collection<Long> ids, CamposProducto campos) {
+        Map<Long, Producto> enCache = new HashMap<>(productoCache.buscarTodosPorId(ids));
+        enCache.putAll(escrituraDiferida.obtenerTodos(ids));
+        Map<Long, Map<String, Object>> productos = new HashMap<>();
+        enCache.forEach((id, producto) -> productos.put(id, campos.desdeProducto(producto)));
+
+        List<Long> pendientes = ids.stream().filter(id -> !enCache.containsKey(id)).distinct().toList();
+        for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_BLOQUE_IN) {
+            List<Long> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_BLOQUE_IN, pendientes.size()));
+            proyeccionRepository.buscarPorIds(campos, bloque)
+                    .forEach(fila -> productos.put((Long) fila.get(CamposProducto.Campo.ID.getNombre()), fila));
         }
+        return productos;
+    }
 
-        nombre = nombre.trim();
+    /**
+     * Igual que {@link #proyectarPorIds} pero por código
+     */
+    private Map<String, Map<String, Object>> proyectarPorCodigos(Collection<String> codigos, CamposProducto campos) {
+        Map<String, Producto> enCache = productoCache.buscarTodosPorCodigo(codigos);
+        enCache.putAll(escrituraDiferida.obtenerTodosPorCodigo(codigos));
+        Map<String, Map<String, Object>> productos = new HashMap<>();
+        enCache.forEach((codigo, producto) -> productos.put(codigo, campos.desdeProducto(producto)));
+
+        List<String> pendientes = codigos.stream().filter(codigo -> !enCache.containsKey(codigo)).distinct().toList();
+        for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_BLOQUE_IN) {
+            List<String> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_BLOQUE_IN, pendientes.size()));
+            // La consulta agrega el código al final de cada fila para poder indexar el resultado
+            for (Object[] fila : proyeccionRepository.buscarPorCodigos(campos, bloque)) {
+                productos.put((String) fila[fila.length - 1], campos.desdeFila(fila));
+            }
+        }
+        return productos;
+    }
 
-        if (nombre.length() < NOMBRE_MIN_LENGTH || nombre.length() > NOMBRE_MAX_LENGTH) {
-            throw new IllegalArgumentException(
-                    String.format("El nombre debe tener entre %d y %d caracteres",
-                            NOMBRE_MIN_LENGTH, NOMBRE_MAX_LENGTH));
+    /**
+     * Valida el tamaño y el contenido de una consulta por lote
+     */
+    private void validarConsultaLote(List<Long> ids, List<String> codigos) {
+        int total = ids.size() + codigos.size();
+        if (total == 0) {
+            throw new IllegalArgumentException("Debe indicar al menos un ID o código");
+        }
+        if (total > TAMANO_LOTE_MAXIMO) {
+            throw new IllegalArgumentException("El lote no puede exceder " + TAMANO_LOTE_MAXIMO + " IDs y códigos");
         }
+        ids.forEach(productoValidador::validarId);
+        codigos.forEach(productoValidador::validarCodigo);
     }
 
     /**
-     * Valida el precio del producto
+     * Arma el resultado por lote: cada clave solicitada aparece en la respuesta y null indica que no existe
      */
-    private void validarPrecio(Double precio) {
-        if (precio == null) {
-            throw new IllegalArgumentException("El precio del producto no puede ser nulo");
+    private <T> ResultadoConsultaLote<T> crearResultadoLote(List<Long> ids, List<String> codigos,
+                                                            Map<Long, T> encontradosPorId,
+                                                            Map<String, T> encontradosPorCodigo) {
+        Map<Long, T> porId = new LinkedHashMap<>();
+        ids.forEach(id -> porId.put(id, encontradosPorId.get(id)));
+        Map<String, T> porCodigo = new LinkedHashMap<>();
+        codigos.forEach(codigo -> porCodigo.put(codigo, encontradosPorCodigo.get(codigo)));
+
+        int encontrados = (int) (porId.values().stream().filter(Objects::nonNull).count()
+                + porCodigo.values().stream().filter(Objects::nonNull).count());
+        int noEncontrados = porId.size() + porCodigo.size() - encontrados;
+        return new ResultadoConsultaLote<>(porId, porCodigo, encontrados, noEncontrados);
+    }
+
+    /**
+     * Invalida la caché ahora y de nuevo al confirmar la transacción, para descartar
+     * lecturas concurrentes que hayan cargado el valor anterior
+     */
+    private void invalidarCache(Long id, String codigo) {
+        productoCache.invalidar(id, codigo);
+        despuesDeConfirmar(() -> {
+            consultasEnCurso.olvidar();
+            productoCache.invalidar(id, codigo);
+        });
+    }
+
+    /**
+     * Ejecuta la acción al confirmar la transacción actual, o de inmediato si no hay una activa
+     */
+    private void despuesDeConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
         }
 
-        if (precio < PRECIO_MINIMO) {
-            throw new IllegalArgumentException(
-                    String.format("El precio debe ser mayor a %.2f", PRECIO_MINIMO));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Construye la página a partir de una consulta que pidió un elemento extra
+     */
+    private <T> PaginaProductos<T> crearPagina(List<T> productos, int tamano, Function<T, Long> id) {
+        boolean hayMas = productos.size() > tamano;
+        List<T> pagina = hayMas ? productos.subList(0, tamano) : productos;
+        Long siguienteCursor = hayMas ? id.apply(pagina.get(pagina.size() - 1)) : null;
+        return new PaginaProductos<>(pagina, siguienteCursor, tamano, hayMas);
+    }
+
+    /**
+     * Valida el tamaño de página y aplica el máximo permitido
+     */
+    private int normalizarLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_PAGINA_DEFECTO;
         }
 
-        if (precio > 999999.99) {
-            throw new IllegalArgumentException("El precio no puede exceder 999999.99");
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser un número positivo");
         }
+
+        return Math.min(limite, LIMITE_PAGINA_MAXIMO);
     }
 
     /**
-     * Valida la cantidad del producto
+     * Valida el número de página
      */
-    private void validarCantidad(Integer cantidad) {
-        if (cantidad == null) {
-            throw new IllegalArgumentException("La cantidad del producto no puede ser nula");
+    private int normalizarPagina(Integer pagina) {
+        if (pagina == null) {
+            return 0;
         }
 
-        if (cantidad < 0) {
-            throw new IllegalArgumentException("La cantidad no puede ser negativa");
+        if (pagina < 0) {
+            throw new IllegalArgumentException("La página no puede ser negativa");
         }
 
-        if (cantidad > 1000000) {
-            throw new IllegalArgumentException("La cantidad no puede exceder 1,000,000");
-        }
+        return pagina;
     }
 
     /**
-     * Valida un ID
+     * Valida el cursor de paginación
      */
-    private void validarId(Long id) {
-        if (id == null || id <= 0) {
-            throw new IllegalArgumentException("El ID debe ser un número positivo");
+    private long normalizarCursor(Long cursor) {
+        if (cursor == null) {
+            return 0L;
         }
+
+        if (cursor < 0) {
+            throw new IllegalArgumentException("El cursor no puede ser negativo");
+        }
+
+        return cursor;
     }
+
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.example.Productos.validator;
+
+import com.example.Productos.entity.Producto;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validaciones de productos compartidas por la creación, la actualización y la carga masiva.
+ * Recorre los caracteres directamente, sin expresiones regulares ni copias del texto,
+ * de modo que el camino exitoso no reserva memoria.
+ */
+@Component
+public class ProductoValidador {
+
+    // Constantes de validación
+    private static final int CODIGO_MIN_LENGTH = 3;
+    private static final int CODIGO_MAX_LENGTH = 20;
+    private static final int NOMBRE_MIN_LENGTH = 3;
+    private static final int NOMBRE_MAX_LENGTH = 100;
+    private static final double PRECIO_MINIMO = 0.01;
+    private static final double PRECIO_MAXIMO = 999999.99;
+    private static final int CANTIDAD_MAXIMA = 1000000;
+
+    // Mensajes precalculados
+    private static final String MENSAJE_PRODUCTO_NULO = "El producto no puede ser nulo";
+    private static final String MENSAJE_CODIGO_VACIO = "El código del producto no puede estar vacío";
+    private static final String MENSAJE_CODIGO_LONGITUD =
+            "El código debe tener entre " + CODIGO_MIN_LENGTH + " y " + CODIGO_MAX_LENGTH + " caracteres";
+    private static final String MENSAJE_CODIGO_CARACTERES =
+            "El código solo puede contener letras, números, guiones y guiones bajos";
+    private static final String MENSAJE_NOMBRE_VACIO = "El nombre del producto no puede estar vacío";
+    private static final String MENSAJE_NOMBRE_LONGITUD =
+            "El nombre debe tener entre " + NOMBRE_MIN_LENGTH + " y " + NOMBRE_MAX_LENGTH + " caracteres";
+    private static final String MENSAJE_PRECIO_NULO = "El precio del producto no puede ser nulo";
+    private static final String MENSAJE_PRECIO_MINIMO = "El precio debe ser mayor a 0.01";
+    private static final String MENSAJE_PRECIO_MAXIMO = "El precio no puede exceder 999999.99";
+    private static final String MENSAJE_CANTIDAD_NULA = "La cantidad del producto no puede ser nula";
+    private static final String MENSAJE_CANTIDAD_NEGATIVA = "La cantidad no puede ser negativa";
+    private static final String MENSAJE_CANTIDAD_MAXIMA = "La cantidad no puede exceder 1,000,000";
+    private static final String MENSAJE_ID = "El ID debe ser un número positivo";
+
+    /**
+     * Valida un producto para su creación
+     */
+    public void validarParaCreacion(Producto producto) {
+        validarCompleto(producto);
+    }
+
+    /**
+     * Valida un producto para su actualización
+     */
+    public void validarParaActualizacion(Producto producto) {
+        validarCompleto(producto);
+    }
+
+    /**
+     * Valida el código del producto (se ignoran los espacios al inicio y al final)
+     */
+    public void validarCodigo(String codigo) {
+        if (codigo == null) {
+            throw new IllegalArgumentException(MENSAJE_CODIGO_VACIO);
+        }
+
+        int inicio = inicioSinEspacios(codigo);
+        int fin = finSinEspacios(codigo, inicio);
+        int longitud = fin - inicio;
+
+        if (longitud == 0) {
+            throw new IllegalArgumentException(MENSAJE_CODIGO_VACIO);
+        }
+
+        if (longitud < CODIGO_MIN_LENGTH || longitud > CODIGO_MAX_LENGTH) {
+            throw new IllegalArgumentException(MENSAJE_CODIGO_LONGITUD);
+        }
+
+        for (int i = inicio; i < fin; i++) {
+            if (!esCaracterDeCodigo(codigo.charAt(i))) {
+                throw new IllegalArgumentException(MENSAJE_CODIGO_CARACTERES);
+            }
+        }
+    }
+
+    /**
+     * Valida el nombre del producto (se ignoran los espacios al inicio y al final)
+     */
+    public void validarNombre(String nombre) {
+        if (nombre == null) {
+            throw new IllegalArgumentException(MENSAJE_NOMBRE_VACIO);
+        }
+
+        int inicio = inicioSinEspacios(nombre);
+        int longitud = finSinEspacios(nombre, inicio) - inicio;
+
+        if (longitud == 0) {
+            throw new IllegalArgumentException(MENSAJE_NOMBRE_VACIO);
+        }
+
+        if (longitud < NOMBRE_MIN_LENGTH || longitud > NOMBRE_MAX_LENGTH) {
+            throw new IllegalArgumentException(MENSAJE_NOMBRE_LONGITUD);
+        }
+    }
+
+    /**
+     * Valida el precio del producto
+     */
+    public void validarPrecio(Double precio) {
+        if (precio == null) {
+            throw new IllegalArgumentException(MENSAJE_PRECIO_NULO);
+        }
+
+        if (precio < PRECIO_MINIMO) {
+            throw new IllegalArgumentException(MENSAJE_PRECIO_MINIMO);
+        }
+
+        if (precio > PRECIO_MAXIMO) {
+            throw new IllegalArgumentException(MENSAJE_PRECIO_MAXIMO);
+        }
+    }
+
+    /**
+     * Valida la cantidad del producto
+     */
+    public void validarCantidad(Integer cantidad) {
+        if (cantidad == null) {
+            throw new IllegalArgumentException(MENSAJE_CANTIDAD_NULA);
+        }
+
+        if (cantidad < 0) {
+            throw new IllegalArgumentException(MENSAJE_CANTIDAD_NEGATIVA);
+        }
+
+        if (cantidad > CANTIDAD_MAXIMA) {
+            throw new IllegalArgumentException(MENSAJE_CANTIDAD_MAXIMA);
+        }
+    }
+
+    /**
+     * Valida un ID
+     */
+    public void validarId(Long id) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException(MENSAJE_ID);
+        }
+    }
+
+    private void validarCompleto(Producto producto) {
+        if (producto == null) {
+            throw new IllegalArgumentException(MENSAJE_PRODUCTO_NULO);
+        }
+
+        validarCodigo(producto.getCodigo());
+        validarNombre(producto.getNombre());
+        validarPrecio(producto.getPrecio());
+        validarCantidad(producto.getCantidad());
+    }
+
+    /**
+     * Posición del primer carácter que String.trim() conservaría
+     */
+    private static int inicioSinEspacios(String texto) {
+        int inicio = 0;
+        while (inicio < texto.length() && texto.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        return inicio;
+    }
+
+    /**
+     * Posición siguiente al último carácter que String.trim() conservaría
+     */
+    private static int finSinEspacios(String texto, int inicio) {
+        int fin = texto.length();
+        while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        return fin;
+    }
+
+    private static boolean esCaracterDeCodigo(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '-'
+                || c == '_';
+    }
+}
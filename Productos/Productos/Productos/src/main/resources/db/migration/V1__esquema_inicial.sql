@@ -0,0 +1,40 @@
+-- Esquema inicial: el mismo que genera Hibernate a partir de las entidades
+
+CREATE TABLE IF NOT EXISTS productos (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    codigo              VARCHAR(255) NOT NULL,
+    nombre              VARCHAR(255) NOT NULL,
+    descripcion         TEXT,
+    precio              DOUBLE       NOT NULL,
+    cantidad            INT          NOT NULL,
+    img                 VARCHAR(255),
+    activo              BIT,
+    fecha_creacion      BIGINT       NOT NULL,
+    fecha_actualizacion BIGINT,
+    version             BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_productos_codigo UNIQUE (codigo),
+    INDEX idx_productos_fecha_actualizacion (fecha_actualizacion, id),
+    INDEX idx_productos_activo_precio (activo, precio, id),
+    INDEX idx_productos_activo_cantidad (activo, cantidad, id),
+    INDEX idx_productos_activo_nombre (activo, nombre, id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS productos_eventos (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    secuencia   BIGINT,
+    tipo        VARCHAR(20)  NOT NULL,
+    producto_id BIGINT       NOT NULL,
+    codigo      VARCHAR(255) NOT NULL,
+    antes       TEXT,
+    despues     TEXT,
+    fecha       BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT idx_productos_eventos_secuencia UNIQUE (secuencia)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS inventario_punto_control (
+    id        INT    NOT NULL,
+    secuencia BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,10 @@
+-- Última secuencia asignada por el relay de la bandeja de salida, independiente de la retención de eventos
+CREATE TABLE IF NOT EXISTS productos_eventos_secuencia (
+    id        INT    NOT NULL,
+    secuencia BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO productos_eventos_secuencia (id, secuencia)
+SELECT 1, COALESCE(MAX(secuencia), 0) FROM productos_eventos
+ON DUPLICATE KEY UPDATE secuencia = GREATEST(productos_eventos_secuencia.secuencia, VALUES(secuencia));
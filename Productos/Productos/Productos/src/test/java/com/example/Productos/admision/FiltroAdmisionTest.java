@@ -0,0 +1,26 @@
+package com.example.Productos.admision;
+
+import com.example.Productos.admision.LimiteAdaptativo.Prioridad;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FiltroAdmisionTest {
+
+    @Test
+    void lasLecturasPorClaveSonLigeras() {
+        assertThat(FiltroAdmision.clasificar("GET", "/api/productos/42")).isEqualTo(Prioridad.LIGERA);
+        assertThat(FiltroAdmision.clasificar("GET", "/api/productos/codigo/A-1")).isEqualTo(Prioridad.LIGERA);
+        assertThat(FiltroAdmision.clasificar("GET", "/api/productos/existe/A-1")).isEqualTo(Prioridad.LIGERA);
+    }
+
+    @Test
+    void listadosBusquedasYEscriturasSonPesadas() {
+        assertThat(FiltroAdmision.clasificar("GET", "/api/productos")).isEqualTo(Prioridad.PESADA);
+        assertThat(FiltroAdmision.clasificar("GET", "/api/productos/todos")).isEqualTo(Prioridad.PESADA);
+        assertThat(FiltroAdmision.clasificar("GET", "/api/productos/buscar")).isEqualTo(Prioridad.PESADA);
+        assertThat(FiltroAdmision.clasificar("GET", "/api/productos/codigo/")).isEqualTo(Prioridad.PESADA);
+        assertThat(FiltroAdmision.clasificar("PUT", "/api/productos/42")).isEqualTo(Prioridad.PESADA);
+        assertThat(FiltroAdmision.clasificar("POST", "/api/productos")).isEqualTo(Prioridad.PESADA);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.Productos.admision;
+
+import com.example.Productos.admision.LimiteAdaptativo.Prioridad;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteAdaptativoTest {
+
+    private static final long RAPIDA = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long LENTA = TimeUnit.SECONDS.toNanos(2);
+
+    private final LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 100, 0.5, 0.5,
+            Duration.ofMillis(50), Duration.ofMillis(500));
+
+    @Test
+    void lasPesadasSeRechazanAntesQueLasLigeras() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limite.adquirir(Prioridad.PESADA)).isTrue();
+        }
+
+        assertThat(limite.adquirir(Prioridad.PESADA)).isFalse();
+        for (int i = 0; i < 5; i++) {
+            assertThat(limite.adquirir(Prioridad.LIGERA)).isTrue();
+        }
+        assertThat(limite.adquirir(Prioridad.LIGERA)).isFalse();
+        assertThat(limite.rechazadas(Prioridad.PESADA)).isEqualTo(1);
+        assertThat(limite.rechazadas(Prioridad.LIGERA)).isEqualTo(1);
+    }
+
+    @Test
+    void laLatenciaAltaReduceElLimiteUnaVezPorVentana() {
+        limite.adquirir(Prioridad.PESADA);
+        limite.adquirir(Prioridad.PESADA);
+
+        limite.liberar(Prioridad.PESADA, LENTA);
+        limite.liberar(Prioridad.PESADA, LENTA);
+
+        assertThat(limite.getLimite()).isEqualTo(5.0);
+        assertThat(limite.enCurso(Prioridad.PESADA)).isZero();
+    }
+
+    @Test
+    void creceSoloMientrasElLimiteSeUsa() {
+        limite.adquirir(Prioridad.LIGERA);
+        limite.liberar(Prioridad.LIGERA, RAPIDA);
+        assertThat(limite.getLimite()).isEqualTo(10.0);
+
+        for (int i = 0; i < 10; i++) {
+            limite.adquirir(Prioridad.LIGERA);
+        }
+        limite.liberar(Prioridad.LIGERA, RAPIDA);
+        assertThat(limite.getLimite()).isEqualTo(10.1);
+    }
+
+    @Test
+    void laDuracionNegativaNoAjusta() {
+        limite.adquirir(Prioridad.PESADA);
+        limite.liberar(Prioridad.PESADA, -1);
+
+        assertThat(limite.getLimite()).isEqualTo(10.0);
+        assertThat(limite.enCurso(Prioridad.PESADA)).isZero();
+    }
+}
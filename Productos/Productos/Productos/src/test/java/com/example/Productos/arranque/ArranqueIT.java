@@ -0,0 +1,143 @@
+package com.example.Productos.arranque;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mide el arranque de la aplicación empaquetada: el tiempo que informa Spring ("Started ... in X seconds")
+ * y el tiempo hasta responder la primera solicitud, con la JVM estándar y con AOT + CDS.
+ * Lo ejecuta el perfil Maven "rapido" sobre el jar extraído en target/rapido:
+ * <pre>
+ * mvn -Prapido verify -Darranque.omitir=false -Darranque.repeticiones=5
+ * </pre>
+ * Fuera de Maven, arranque.jar es el nombre del jar ejecutable dentro de arranque.directorio
+ * (p. ej. -Darranque.jar=Productos-0.0.1-SNAPSHOT.jar).
+ */
+@EnabledIfSystemProperty(named = "arranque.jar", matches = ".+")
+class ArranqueIT {
+
+    private static final Pattern INICIADO = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final long TIEMPO_MAXIMO_MS = TimeUnit.SECONDS.toMillis(120);
+
+    private final Path directorio = Path.of(System.getProperty("arranque.directorio", "target/rapido"));
+    private final String jar = System.getProperty("arranque.jar");
+    private final int repeticiones = Integer.getInteger("arranque.repeticiones", 3);
+    private final int puerto = Integer.getInteger("arranque.puerto", 18081);
+    private final String ruta = System.getProperty("arranque.ruta", "/api/productos?limite=1");
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    void medirArranque() throws Exception {
+        List<String> estandar = List.of();
+        List<String> optimizado = new ArrayList<>(List.of("-Dspring.aot.enabled=true"));
+        if (Files.exists(directorio.resolve("application.jsa"))) {
+            optimizado.add("-XX:SharedArchiveFile=application.jsa");
+        }
+
+        long[][] resultadoEstandar = medir("JVM estándar", estandar);
+        long[][] resultadoOptimizado = medir("AOT + CDS", optimizado);
+
+        assertThat(resultadoEstandar[1]).doesNotContain(-1L);
+        assertThat(resultadoOptimizado[1]).doesNotContain(-1L);
+    }
+
+    /**
+     * Arrancar la aplicación varias veces con las opciones indicadas
+     * @return Milisegundos informados por Spring y hasta la primera respuesta, por repetición
+     */
+    private long[][] medir(String modo, List<String> opciones) throws Exception {
+        long[] arranque = new long[repeticiones];
+        long[] primeraSolicitud = new long[repeticiones];
+        for (int i = 0; i < repeticiones; i++) {
+            Path salida = Files.createTempFile("arranque", ".log");
+            List<String> comando = new ArrayList<>();
+            comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            comando.addAll(opciones);
+            comando.add("-Dspring.profiles.active=rapido");
+            comando.add("-Dserver.port=" + puerto);
+            comando.add("-jar");
+            comando.add(jar);
+
+            long inicio = System.nanoTime();
+            Process proceso = new ProcessBuilder(comando)
+                    .directory(directorio.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(salida.toFile())
+                    .start();
+            try {
+                primeraSolicitud[i] = esperarPrimeraRespuesta(proceso, inicio);
+                arranque[i] = leerArranque(salida);
+            } finally {
+                proceso.destroy();
+                if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+                    proceso.destroyForcibly().waitFor();
+                }
+                Files.deleteIfExists(salida);
+            }
+        }
+
+        System.out.printf("%s: arranque p50 %d ms (mín. %d ms), primera solicitud p50 %d ms (mín. %d ms)%n",
+                modo, mediana(arranque), Arrays.stream(arranque).min().orElse(-1),
+                mediana(primeraSolicitud), Arrays.stream(primeraSolicitud).min().orElse(-1));
+        return new long[][]{arranque, primeraSolicitud};
+    }
+
+    /**
+     * Reintentar la solicitud hasta obtener una respuesta que no sea error del servidor
+     * @return Milisegundos desde que se lanzó el proceso, o -1 si no respondió a tiempo
+     */
+    private long esperarPrimeraRespuesta(Process proceso, long inicio) throws InterruptedException {
+        HttpRequest solicitud = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        while (proceso.isAlive()) {
+            long transcurrido = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            if (transcurrido > TIEMPO_MAXIMO_MS) {
+                return -1;
+            }
+            try {
+                HttpResponse<Void> respuesta = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding());
+                if (respuesta.statusCode() < 500) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                }
+            } catch (IOException e) {
+                // Aún no escucha en el puerto
+            }
+            Thread.sleep(10);
+        }
+        return -1;
+    }
+
+    private long leerArranque(Path salida) throws IOException {
+        Matcher coincidencia = INICIADO.matcher(Files.readString(salida, StandardCharsets.UTF_8));
+        return coincidencia.find() ? Math.round(Double.parseDouble(coincidencia.group(1)) * 1000) : -1;
+    }
+
+    private long mediana(long[] valores) {
+        long[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        return ordenados[ordenados.length / 2];
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.Productos.cache;
+
+import com.example.Productos.cache.ConsultasEnCurso.Operacion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Coalescencia con consultas que se bloquean hasta que la prueba las libera
+ */
+class ConsultasEnCursoTest {
+
+    private final ExecutorService hilos = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void detener() {
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void lasConsultasIdenticasCompartenUnaSolaEjecucion() throws Exception {
+        ConsultasEnCurso consultas = new ConsultasEnCurso(Duration.ofSeconds(5));
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        consultas.bindTo(registro);
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        Future<String> lider = hilos.submit(() -> consultas.ejecutar(Operacion.POR_NOMBRE, "mesa", () -> {
+            ejecuciones.incrementAndGet();
+            iniciada.countDown();
+            esperar(liberar);
+            return "producto";
+        }));
+        iniciada.await();
+
+        List<Future<String>> seguidores = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            seguidores.add(hilos.submit(() -> consultas.ejecutar(Operacion.POR_NOMBRE, "mesa", () -> {
+                ejecuciones.incrementAndGet();
+                return "otro";
+            })));
+        }
+        while (contador(registro, "porNombre", "colapsadas") < 5) {
+            Thread.onSpinWait();
+        }
+        liberar.countDown();
+
+        assertThat(lider.get(5, TimeUnit.SECONDS)).isEqualTo("producto");
+        for (Future<String> seguidor : seguidores) {
+            assertThat(seguidor.get(5, TimeUnit.SECONDS)).isEqualTo("producto");
+        }
+        assertThat(ejecuciones).hasValue(1);
+        assertThat(contador(registro, "porNombre", "ejecutadas")).isEqualTo(1);
+    }
+
+    @Test
+    void lasLecturasPorIdYCodigoColapsanConTiempoLimiteYContadoresPropios() throws Exception {
+        ConsultasEnCurso consultas = new ConsultasEnCurso(Duration.ofMillis(100));
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        consultas.bindTo(registro);
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<String> lider = hilos.submit(() -> consultas.ejecutar(Operacion.POR_ID, 7L, () -> {
+            iniciada.countDown();
+            esperar(liberar);
+            return "producto";
+        }));
+        iniciada.await();
+
+        // El mismo valor con otra operación es otra clave
+        assertThat(consultas.ejecutar(Operacion.POR_CODIGO, 7L, () -> "por código")).isEqualTo("por código");
+        assertThatThrownBy(() -> consultas.ejecutar(Operacion.POR_ID, 7L, () -> "nunca"))
+                .isInstanceOf(QueryTimeoutException.class);
+        liberar.countDown();
+
+        assertThat(lider.get(5, TimeUnit.SECONDS)).isEqualTo("producto");
+        assertThat(contador(registro, "porId", "colapsadas")).isEqualTo(1);
+        assertThat(contador(registro, "porId", "expiradas")).isEqualTo(1);
+        assertThat(contador(registro, "porCodigo", "ejecutadas")).isEqualTo(1);
+    }
+
+    @Test
+    void lasClavesDistintasNoEsperanEntreSi() throws Exception {
+        ConsultasEnCurso consultas = new ConsultasEnCurso(Duration.ofSeconds(5));
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<Integer> bloqueada = hilos.submit(() -> consultas.ejecutar(Operacion.BUSQUEDA, List.of("mesa", 0), () -> {
+            iniciada.countDown();
+            esperar(liberar);
+            return 0;
+        }));
+        iniciada.await();
+
+        assertThat(consultas.ejecutar(Operacion.BUSQUEDA, List.of("mesa", 1), () -> 1)).isEqualTo(1);
+        liberar.countDown();
+        assertThat(bloqueada.get(5, TimeUnit.SECONDS)).isEqualTo(0);
+    }
+
+    @Test
+    void expiraLaEsperaSiLaConsultaEnCursoNoTermina() throws Exception {
+        ConsultasEnCurso consultas = new ConsultasEnCurso(Duration.ofMillis(50));
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        hilos.submit(() -> consultas.ejecutar(Operacion.POR_NOMBRE, "mesa", () -> {
+            iniciada.countDown();
+            esperar(liberar);
+            return List.of();
+        }));
+        iniciada.await();
+
+        assertThatThrownBy(() -> consultas.ejecutar(Operacion.POR_NOMBRE, "mesa", List::of))
+                .isInstanceOf(QueryTimeoutException.class);
+        liberar.countDown();
+    }
+
+    @Test
+    void propagaElErrorATodosLosQueEsperan() throws Exception {
+        ConsultasEnCurso consultas = new ConsultasEnCurso(Duration.ofSeconds(5));
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<Object> lider = hilos.submit(() -> consultas.ejecutar(Operacion.POR_NOMBRE, "silla", () -> {
+            iniciada.countDown();
+            esperar(liberar);
+            throw new IllegalStateException("base de datos no disponible");
+        }));
+        iniciada.await();
+        Future<Object> seguidor = hilos.submit(() -> consultas.ejecutar(Operacion.POR_NOMBRE, "silla", () -> "nunca"));
+        Thread.sleep(50);
+        liberar.countDown();
+
+        assertThatThrownBy(() -> lider.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> seguidor.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void olvidarHaceQueLaSiguienteLecturaConsulteDeNuevo() throws Exception {
+        ConsultasEnCurso consultas = new ConsultasEnCurso(Duration.ofSeconds(5));
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<String> anterior = hilos.submit(() -> consultas.ejecutar(Operacion.POR_NOMBRE, "mesa", () -> {
+            iniciada.countDown();
+            esperar(liberar);
+            return "anterior";
+        }));
+        iniciada.await();
+
+        consultas.olvidar();
+        assertThat(consultas.ejecutar(Operacion.POR_NOMBRE, "mesa", () -> "actual")).isEqualTo("actual");
+        liberar.countDown();
+        assertThat(anterior.get(5, TimeUnit.SECONDS)).isEqualTo("anterior");
+    }
+
+    @Test
+    void laConsultaAnteriorAlTerminarNoRetiraLaNueva() throws Exception {
+        ConsultasEnCurso consultas = new ConsultasEnCurso(Duration.ofSeconds(5));
+        CountDownLatch anteriorIniciada = new CountDownLatch(1);
+        CountDownLatch liberarAnterior = new CountDownLatch(1);
+        CountDownLatch nuevaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarNueva = new CountDownLatch(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        Future<String> anterior = hilos.submit(() -> consultas.ejecutar(Operacion.BUSQUEDA, "mesa", () -> {
+            anteriorIniciada.countDown();
+            esperar(liberarAnterior);
+            return "anterior";
+        }));
+        anteriorIniciada.await();
+        consultas.olvidar();
+        Future<String> nueva = hilos.submit(() -> consultas.ejecutar(Operacion.BUSQUEDA, "mesa", () -> {
+            ejecuciones.incrementAndGet();
+            nuevaIniciada.countDown();
+            esperar(liberarNueva);
+            return "actual";
+        }));
+        nuevaIniciada.await();
+
+        liberarAnterior.countDown();
+        assertThat(anterior.get(5, TimeUnit.SECONDS)).isEqualTo("anterior");
+        Future<String> seguidor = hilos.submit(() -> consultas.ejecutar(Operacion.BUSQUEDA, "mesa", () -> {
+            ejecuciones.incrementAndGet();
+            return "otra";
+        }));
+        Thread.sleep(50);
+        liberarNueva.countDown();
+
+        assertThat(nueva.get(5, TimeUnit.SECONDS)).isEqualTo("actual");
+        assertThat(seguidor.get(5, TimeUnit.SECONDS)).isEqualTo("actual");
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    private static double contador(SimpleMeterRegistry registro, String operacion, String resultado) {
+        return registro.get("productos.coalescencia.consultas")
+                .tag("operacion", operacion)
+                .tag("resultado", resultado)
+                .functionCounter()
+                .count();
+    }
+
+    private static void esperar(CountDownLatch liberar) {
+        try {
+            liberar.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
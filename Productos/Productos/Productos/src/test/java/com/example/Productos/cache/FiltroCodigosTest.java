@@ -0,0 +1,129 @@
+package com.example.Productos.cache;
+
+import com.example.Productos.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FiltroCodigosTest {
+
+    private static final int CAPACIDAD = 10_000;
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    // Códigos que devuelve la base de datos en la próxima reconstrucción
+    private final List<String> enBase = new ArrayList<>();
+    private final AtomicInteger consultas = new AtomicInteger();
+    private final Predicate<String> consulta = codigo -> {
+        consultas.incrementAndGet();
+        return enBase.stream().anyMatch(codigo::equalsIgnoreCase);
+    };
+
+    @Test
+    void nuncaDescartaUnCodigoAgregado() {
+        FiltroCodigos.Bits bits = new FiltroCodigos.Bits(CAPACIDAD, 0.01);
+        for (int i = 0; i < CAPACIDAD; i++) {
+            bits.agregar("PROD-" + i);
+        }
+
+        for (int i = 0; i < CAPACIDAD; i++) {
+            assertThat(bits.puedeContener("PROD-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void laTasaDeFalsosPositivosQuedaCercaDelObjetivo() {
+        FiltroCodigos.Bits bits = new FiltroCodigos.Bits(CAPACIDAD, 0.01);
+        for (int i = 0; i < CAPACIDAD; i++) {
+            bits.agregar("PROD-" + i);
+        }
+
+        int falsosPositivos = 0;
+        int consultas = 100_000;
+        for (int i = 0; i < consultas; i++) {
+            if (bits.puedeContener("NUEVO-" + i)) {
+                falsosPositivos++;
+            }
+        }
+
+        assertThat((double) falsosPositivos / consultas).isLessThan(0.02);
+        assertThat(bits.tasaEstimada()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void noDistingueMayusculasComoLaColumnaCodigo() {
+        FiltroCodigos.Bits bits = new FiltroCodigos.Bits(CAPACIDAD, 0.01);
+        bits.agregar("Prod-Abc_1");
+
+        assertThat(bits.puedeContener("PROD-ABC_1")).isTrue();
+        assertThat(bits.puedeContener("prod-abc_1")).isTrue();
+    }
+
+    @Test
+    void consultaLaBaseSoloParaCodigosQueElFiltroNoDescarta() {
+        FiltroCodigos filtro = crearFiltro();
+        enBase.add("ABC-1");
+        filtro.reconstruir();
+
+        assertThat(filtro.existe("abc-1", consulta)).isTrue();
+        assertThat(consultas).hasValue(1);
+        assertThat(filtro.existe("XYZ-9", consulta)).isFalse();
+        assertThat(consultas).hasValue(1);
+    }
+
+    @Test
+    void conservaLosCodigosAgregadosAntesYDuranteLaReconstruccion() {
+        FiltroCodigos filtro = crearFiltro();
+        filtro.reconstruir();
+        // Su transacción aún no confirma: la lectura de la reconstrucción no lo ve
+        filtro.agregar("ANTES-1");
+        when(productoRepository.streamCodigos()).thenAnswer(invocacion -> {
+            filtro.agregar("DURANTE-1");
+            return enBase.stream();
+        });
+        filtro.reconstruir();
+        enBase.addAll(List.of("ANTES-1", "DURANTE-1"));
+
+        assertThat(filtro.existe("antes-1", consulta)).isTrue();
+        assertThat(filtro.existe("durante-1", consulta)).isTrue();
+        assertThat(consultas).hasValue(2);
+    }
+
+    @Test
+    void laReconstruccionOlvidaLosCodigosEliminados() {
+        FiltroCodigos filtro = crearFiltro();
+        enBase.add("BORRADO-1");
+        filtro.reconstruir();
+        enBase.clear();
+        filtro.reconstruir();
+
+        assertThat(filtro.existe("BORRADO-1", consulta)).isFalse();
+        assertThat(consultas).hasValue(0);
+    }
+
+    @Test
+    void deshabilitadoSiempreConsultaLaBase() {
+        FiltroCodigos filtro = new FiltroCodigos(productoRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), false, 0.01, 1000);
+        filtro.reconstruir();
+        filtro.agregar("ABC-1");
+
+        assertThat(filtro.existe("XYZ-9", consulta)).isFalse();
+        assertThat(consultas).hasValue(1);
+    }
+
+    private FiltroCodigos crearFiltro() {
+        when(productoRepository.count()).thenAnswer(invocacion -> (long) enBase.size());
+        when(productoRepository.streamCodigos()).thenAnswer(invocacion -> new ArrayList<>(enBase).stream());
+        return new FiltroCodigos(productoRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), true, 0.01, 1000);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.Productos.cache;
+
+import com.example.Productos.entity.Producto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductoCacheTest {
+
+    private final ProductoCache cache = new ProductoCache(100, Duration.ofMinutes(5));
+    private final ExecutorService hilos = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void detener() {
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void cargaUnaVezYLuegoSirveDesdeLaCache() {
+        cache.obtenerPorCodigo("A-1", codigo -> Optional.of(producto(1L, codigo, "Teclado")));
+
+        assertThat(cache.buscarPorId(1L)).map(Producto::getNombre).contains("Teclado");
+        assertThat(cache.buscarPorCodigo("A-1")).map(Producto::getId).contains(1L);
+        assertThat(cache.contieneCodigo("A-1")).isTrue();
+        assertThat(cache.obtenerPorId(1L, id -> Optional.of(producto(id, "A-1", "Otro"))))
+                .map(Producto::getNombre).contains("Teclado");
+    }
+
+    @Test
+    void invalidarQuitaAmbasEntradas() {
+        cache.obtenerPorCodigo("A-1", codigo -> Optional.of(producto(1L, codigo, "Teclado")));
+
+        cache.invalidar(1L, "A-1");
+
+        assertThat(cache.buscarPorId(1L)).isEmpty();
+        assertThat(cache.buscarPorCodigo("A-1")).isEmpty();
+        assertThat(cache.contieneCodigo("A-1")).isFalse();
+    }
+
+    @Test
+    void guardaYDevuelveCopiasDesligadasDeLasEntidades() {
+        Producto cargado = producto(1L, "A-1", "Teclado");
+        Producto devuelto = cache.obtenerPorId(1L, id -> Optional.of(cargado)).orElseThrow();
+
+        // Ni la entidad del cargador ni lo devuelto comparten estado con la entrada en caché
+        cargado.setNombre("Modificado por la sesión");
+        devuelto.setNombre("Modificado por el llamador");
+        cache.buscarPorId(1L).orElseThrow().setCantidad(0);
+
+        Producto enCache = cache.buscarPorId(1L).orElseThrow();
+        assertThat(enCache).isNotSameAs(cargado).isNotSameAs(devuelto);
+        assertThat(enCache.getNombre()).isEqualTo("Teclado");
+        assertThat(enCache.getCantidad()).isEqualTo(5);
+    }
+
+    @Test
+    void lasConsultasEnLoteTambienGuardanCopias() {
+        Producto cargado = producto(2L, "B-2", "Ratón");
+        Map<String, Producto> porCodigo = cache.obtenerTodosPorCodigo(List.of("B-2"), codigos -> Map.of("B-2", cargado));
+        cargado.setNombre("Modificado");
+        porCodigo.get("B-2").setNombre("Modificado");
+
+        assertThat(cache.buscarTodosPorId(List.of(2L)).get(2L).getNombre()).isEqualTo("Ratón");
+        assertThat(cache.buscarTodosPorCodigo(List.of("B-2")).get("B-2").getNombre()).isEqualTo("Ratón");
+    }
+
+    @Test
+    void invalidarDuranteUnaCargaPorCodigoNoDejaElValorAnterior() throws Exception {
+        CountDownLatch cargando = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        Future<?> carga = hilos.submit(() -> cache.obtenerPorCodigo("A-1", codigo -> {
+            cargando.countDown();
+            esperar(continuar);
+            return Optional.of(producto(1L, codigo, "Anterior"));
+        }));
+        cargando.await();
+
+        // La escritura confirmada invalida mientras la carga con el valor anterior sigue en curso
+        Future<?> invalidacion = hilos.submit(() -> cache.invalidar(1L, "A-1"));
+        Thread.sleep(100);
+        continuar.countDown();
+        carga.get(5, TimeUnit.SECONDS);
+        invalidacion.get(5, TimeUnit.SECONDS);
+
+        assertThat(cache.buscarPorId(1L)).isEmpty();
+        assertThat(cache.buscarPorCodigo("A-1")).isEmpty();
+    }
+
+    @Test
+    void invalidarDuranteUnaCargaPorIdNoDejaElValorAnterior() throws Exception {
+        CountDownLatch cargando = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        Future<Optional<Producto>> carga = hilos.submit(() -> cache.obtenerPorId(1L, id -> {
+            cargando.countDown();
+            esperar(continuar);
+            return Optional.of(producto(id, "A-1", "Anterior"));
+        }));
+        cargando.await();
+
+        Future<?> invalidacion = hilos.submit(() -> cache.invalidar(1L, "A-1"));
+        Thread.sleep(100);
+        continuar.countDown();
+        invalidacion.get(5, TimeUnit.SECONDS);
+
+        // Quien cargó recibe lo que leyó, pero no queda en caché
+        assertThat(carga.get(5, TimeUnit.SECONDS)).map(Producto::getNombre).contains("Anterior");
+        assertThat(cache.buscarPorId(1L)).isEmpty();
+        assertThat(cache.obtenerPorId(1L, id -> Optional.of(producto(id, "A-1", "Nuevo"))))
+                .map(Producto::getNombre).contains("Nuevo");
+    }
+
+    @Test
+    void sinLaEntradaPorIdLasLecturasPorCodigoConcurrentesRecarganUnaSolaVez() throws Exception {
+        ExecutorService lectores = Executors.newFixedThreadPool(4);
+        try {
+            cache.obtenerPorCodigo("A-1", codigo -> Optional.of(producto(1L, codigo, "Teclado")));
+            // Los descuentos de inventario invalidan solo por ID
+            cache.invalidar(1L, null);
+
+            AtomicInteger cargas = new AtomicInteger();
+            CountDownLatch continuar = new CountDownLatch(1);
+            List<Future<Optional<Producto>>> lecturas = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                lecturas.add(lectores.submit(() -> cache.obtenerPorCodigo("A-1", codigo -> {
+                    cargas.incrementAndGet();
+                    esperar(continuar);
+                    return Optional.of(producto(1L, codigo, "Teclado rebajado"));
+                })));
+            }
+            Thread.sleep(100);
+            continuar.countDown();
+
+            for (Future<Optional<Producto>> lectura : lecturas) {
+                assertThat(lectura.get(5, TimeUnit.SECONDS)).map(Producto::getNombre).contains("Teclado rebajado");
+            }
+            assertThat(cargas).hasValue(1);
+        } finally {
+            lectores.shutdownNow();
+        }
+    }
+
+    @Test
+    void unCodigoQuePasoAOtroProductoSeVuelveACargarPorCodigo() {
+        cache.obtenerPorCodigo("A-1", codigo -> Optional.of(producto(1L, codigo, "Teclado")));
+        cache.invalidar(1L, null);
+
+        Optional<Producto> encontrado = cache.obtenerPorCodigo("A-1",
+                codigo -> Optional.of(producto(2L, codigo, "Monitor")));
+
+        assertThat(encontrado).map(Producto::getId).contains(2L);
+        assertThat(cache.buscarPorCodigo("A-1")).map(Producto::getNombre).contains("Monitor");
+        assertThat(cache.buscarPorId(1L)).isEmpty();
+    }
+
+    private static Producto producto(Long id, String codigo, String nombre) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setCodigo(codigo);
+        producto.setNombre(nombre);
+        producto.setPrecio(10.0);
+        producto.setCantidad(5);
+        producto.setVersion(0L);
+        return producto;
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.Productos.carga;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga contra una instancia en ejecución, para comparar el modelo de hilos
+ * de plataforma con el perfil "virtual". Se ejecuta solo si se indica la URL, por ejemplo:
+ * <pre>
+ * mvn test -Dtest=CargaProductosTest -Dcarga.url=http://localhost:8081/api/productos/1
+ *          -Dcarga.concurrencia=1000 -Dcarga.duracion=30
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "carga.url", matches = ".+")
+class CargaProductosTest {
+
+    @Test
+    void medirRendimiento() throws Exception {
+        URI url = URI.create(System.getProperty("carga.url"));
+        int concurrencia = Integer.getInteger("carga.concurrencia", 500);
+        long duracionMs = TimeUnit.SECONDS.toMillis(Integer.getInteger("carga.duracion", 30));
+
+        HttpClient cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest solicitud = HttpRequest.newBuilder(url).GET().build();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(concurrencia);
+        long fin = System.currentTimeMillis() + duracionMs;
+        List<Future<long[]>> tareas = new ArrayList<>();
+
+        for (int i = 0; i < concurrencia; i++) {
+            tareas.add(ejecutor.submit(() -> {
+                List<Long> latencias = new ArrayList<>();
+                long errores = 0;
+                while (System.currentTimeMillis() < fin) {
+                    long inicio = System.nanoTime();
+                    try {
+                        HttpResponse<Void> respuesta = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding());
+                        if (respuesta.statusCode() >= 500) {
+                            errores++;
+                        }
+                    } catch (Exception e) {
+                        errores++;
+                    }
+                    latencias.add(System.nanoTime() - inicio);
+                }
+                long[] resultado = new long[latencias.size() + 1];
+                resultado[0] = errores;
+                for (int j = 0; j < latencias.size(); j++) {
+                    resultado[j + 1] = latencias.get(j);
+                }
+                return resultado;
+            }));
+        }
+
+        long errores = 0;
+        List<long[]> parciales = new ArrayList<>();
+        for (Future<long[]> tarea : tareas) {
+            long[] resultado = tarea.get();
+            errores += resultado[0];
+            parciales.add(Arrays.copyOfRange(resultado, 1, resultado.length));
+        }
+        ejecutor.shutdown();
+
+        long[] latencias = parciales.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double segundos = duracionMs / 1000.0;
+        System.out.printf("Solicitudes: %d, errores: %d, rendimiento: %.1f req/s%n",
+                latencias.length, errores, latencias.length / segundos);
+        System.out.printf("Latencia p50: %.2f ms, p99: %.2f ms, p999: %.2f ms%n",
+                percentil(latencias, 0.50), percentil(latencias, 0.99), percentil(latencias, 0.999));
+
+        assertThat(latencias).isNotEmpty();
+    }
+
+    private double percentil(long[] ordenadas, double percentil) {
+        int indice = (int) Math.min(ordenadas.length - 1, Math.ceil(percentil * ordenadas.length) - 1);
+        return ordenadas[Math.max(indice, 0)] / 1_000_000.0;
+    }
+}
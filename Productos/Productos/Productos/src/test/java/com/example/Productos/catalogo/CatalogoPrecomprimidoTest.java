@@ -0,0 +1,105 @@
+package com.example.Productos.catalogo;
+
+import com.example.Productos.entity.Producto;
+import com.example.Productos.outbox.CambiosProductos;
+import com.example.Productos.outbox.CambiosProductos.Cambios;
+import com.example.Productos.outbox.CambiosProductos.Posicion;
+import com.example.Productos.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogoPrecomprimidoTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final CambiosProductos cambiosProductos = mock(CambiosProductos.class);
+    private final Posicion inicial = new Posicion(1000L, 5L);
+    private final Posicion siguiente = new Posicion(2000L, 6L);
+
+    private CatalogoPrecomprimido catalogo;
+
+    @BeforeEach
+    void preparar(@TempDir Path directorio) {
+        catalogo = new CatalogoPrecomprimido(productoRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(EntityManager.class),
+                JsonMapper.builder().build(), cambiosProductos);
+        ReflectionTestUtils.setField(catalogo, "directorio", directorio);
+        ReflectionTestUtils.setField(catalogo, "nivelCompresion", 6);
+        ReflectionTestUtils.setField(catalogo, "intervaloMinimoPublicacion", Duration.ZERO);
+
+        when(cambiosProductos.posicionActual()).thenReturn(inicial);
+        when(productoRepository.streamByActivoTrueOrderByIdAsc()).thenReturn(Stream.of(
+                producto(1L, "Teclado", true), producto(2L, "Ratón", true), producto(3L, "Monitor", true)));
+        catalogo.construir();
+    }
+
+    @Test
+    void incorporaLosCambiosDeOtrasInstanciasAlReconciliar() throws Exception {
+        String etagInicial = catalogo.getInstantanea().etag();
+        // Otra instancia renombró el 1, desactivó el 2 y borró el 3
+        when(cambiosProductos.leerDesde(inicial)).thenReturn(new Cambios(Set.of(1L, 2L, 3L), siguiente));
+        when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(
+                producto(1L, "Teclado mecánico", true), producto(2L, "Ratón", false)));
+
+        catalogo.reconciliar();
+        catalogo.regenerar();
+
+        String json = Files.readString(catalogo.getInstantanea().json());
+        assertThat(json).contains("Teclado mecánico").doesNotContain("Ratón").doesNotContain("Monitor");
+        assertThat(catalogo.getInstantanea().etag()).isNotEqualTo(etagInicial);
+    }
+
+    @Test
+    void cadaReconciliacionContinuaDesdeLaAnterior() {
+        when(cambiosProductos.leerDesde(inicial)).thenReturn(new Cambios(Set.of(), siguiente));
+        when(cambiosProductos.leerDesde(siguiente)).thenReturn(new Cambios(Set.of(), siguiente));
+
+        catalogo.reconciliar();
+        catalogo.reconciliar();
+
+        verify(cambiosProductos).leerDesde(inicial);
+        verify(cambiosProductos).leerDesde(siguiente);
+    }
+
+    @Test
+    void siFallaLaReconciliacionSeReintentaDesdeLaMismaPosicion() {
+        when(cambiosProductos.leerDesde(inicial))
+                .thenThrow(new IllegalStateException("sin conexión"))
+                .thenReturn(new Cambios(Set.of(), siguiente));
+
+        catalogo.reconciliar();
+        catalogo.reconciliar();
+
+        verify(cambiosProductos, times(2)).leerDesde(inicial);
+    }
+
+    private static Producto producto(Long id, String nombre, boolean activo) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setCodigo("P-" + id);
+        producto.setNombre(nombre);
+        producto.setPrecio(10.0);
+        producto.setCantidad(5);
+        producto.setActivo(activo);
+        return producto;
+    }
+}
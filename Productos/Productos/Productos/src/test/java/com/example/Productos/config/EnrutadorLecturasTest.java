@@ -0,0 +1,116 @@
+package com.example.Productos.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enrutamiento con dos bases H2 en memoria: cada una responde su propio nombre
+ */
+class EnrutadorLecturasTest {
+
+    private final DataSource primario = crearBase("primario");
+    private final DataSource replica = crearBase("replica");
+
+    @AfterEach
+    void limpiar() {
+        LecturaPropiasEscrituras.limpiar();
+    }
+
+    @Test
+    void enviaLecturasAReplicaYEscriturasAlPrimario() {
+        Entorno entorno = new Entorno(Map.of("replica-0", replica));
+
+        assertThat(entorno.leer(true)).isEqualTo("replica");
+        assertThat(entorno.leer(false)).isEqualTo("primario");
+    }
+
+    @Test
+    void leeLasPropiasEscriturasDesdeElPrimario() {
+        Entorno entorno = new Entorno(Map.of("replica-0", replica));
+
+        entorno.transaccion(false).executeWithoutResult(estado ->
+                entorno.jdbc.update("update origen set nombre = nombre"));
+
+        assertThat(entorno.leer(true)).isEqualTo("primario");
+        LecturaPropiasEscrituras.limpiar();
+        assertThat(entorno.leer(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void recurreAlPrimarioSiLaReplicaNoResponde() {
+        DataSource caida = new DriverManagerDataSource("jdbc:h2:mem:inexistente;IFEXISTS=TRUE", "sa", "");
+        Entorno entorno = new Entorno(Map.of("replica-0", caida));
+
+        assertThat(entorno.enrutador.getReplicasSanas()).isEmpty();
+        assertThat(entorno.leer(true)).isEqualTo("primario");
+    }
+
+    @Test
+    void descartaReplicasConRetrasoExcesivo() {
+        // La consulta de retraso devuelve 30 s con un máximo de 5 s
+        EnrutadorLecturas enrutador = new EnrutadorLecturas(primario, Map.of("replica-0", replica),
+                Duration.ofSeconds(5), "select 30 as retraso", "retraso");
+        enrutador.afterPropertiesSet();
+
+        assertThat(enrutador.getReplicasSanas()).isEmpty();
+    }
+
+    @Test
+    void reparteLecturasEntreReplicasSanas() {
+        DataSource otraReplica = crearBase("replica");
+        Entorno entorno = new Entorno(Map.of("replica-0", replica, "replica-1", otraReplica));
+
+        assertThat(entorno.enrutador.getReplicasSanas()).containsExactlyInAnyOrder("replica-0", "replica-1");
+        assertThat(List.of(entorno.leer(true), entorno.leer(true))).containsOnly("replica");
+    }
+
+    private static DataSource crearBase(String nombre) {
+        String url = "jdbc:h2:mem:" + nombre + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table origen (nombre varchar(20))");
+        jdbc.update("insert into origen values (?)", nombre);
+        return dataSource;
+    }
+
+    private class Entorno {
+
+        final EnrutadorLecturas enrutador;
+        final JdbcTemplate jdbc;
+        final DataSourceTransactionManager transactionManager;
+
+        Entorno(Map<String, DataSource> replicas) {
+            enrutador = new EnrutadorLecturas(primario, replicas, Duration.ofSeconds(5), "", "");
+            enrutador.afterPropertiesSet();
+
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primario);
+            dataSource.setReadOnlyDataSource(enrutador);
+            jdbc = new JdbcTemplate(dataSource);
+            transactionManager = new DataSourceTransactionManager(dataSource);
+            transactionManager.addListener(new LecturaPropiasEscrituras(Duration.ofSeconds(5)));
+        }
+
+        TransactionTemplate transaccion(boolean soloLectura) {
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            transaccion.setReadOnly(soloLectura);
+            return transaccion;
+        }
+
+        String leer(boolean soloLectura) {
+            return transaccion(soloLectura).execute(estado ->
+                    jdbc.queryForObject("select nombre from origen", String.class));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.Productos.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FiltroRegistroSolicitudesTest {
+
+    private static final long RAPIDA = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long LENTA = TimeUnit.MILLISECONDS.toNanos(800);
+
+    @Test
+    void sinMuestreoSoloRegistraErroresYSolicitudesLentas() {
+        FiltroRegistroSolicitudes filtro = new FiltroRegistroSolicitudes(0.0, Duration.ofMillis(500));
+
+        assertThat(filtro.debeRegistrar(200, RAPIDA)).isFalse();
+        assertThat(filtro.debeRegistrar(200, LENTA)).isTrue();
+        assertThat(filtro.debeRegistrar(404, RAPIDA)).isTrue();
+        assertThat(filtro.debeRegistrar(500, RAPIDA)).isTrue();
+    }
+
+    @Test
+    void loQueSeRegistraSiempreVaEnWarnParaNoDescartarseConLaColaLlena() {
+        FiltroRegistroSolicitudes filtro = new FiltroRegistroSolicitudes(1.0, Duration.ofMillis(500));
+
+        assertThat(filtro.nivel(200, RAPIDA)).isEqualTo(Level.INFO);
+        assertThat(filtro.nivel(200, LENTA)).isEqualTo(Level.WARN);
+        assertThat(filtro.nivel(404, RAPIDA)).isEqualTo(Level.WARN);
+        assertThat(filtro.nivel(500, RAPIDA)).isEqualTo(Level.WARN);
+    }
+
+    @Test
+    void conMuestreoCompletoRegistraTodas() {
+        FiltroRegistroSolicitudes filtro = new FiltroRegistroSolicitudes(1.0, Duration.ofMillis(500));
+
+        assertThat(filtro.debeRegistrar(200, RAPIDA)).isTrue();
+    }
+
+    @Test
+    void rechazaFraccionesFueraDeRango() {
+        assertThatThrownBy(() -> new FiltroRegistroSolicitudes(1.5, Duration.ofMillis(500)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
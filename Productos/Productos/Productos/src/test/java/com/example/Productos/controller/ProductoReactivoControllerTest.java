@@ -0,0 +1,142 @@
+package com.example.Productos.controller;
+
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.EscrituraDiferidaProductos;
+import com.example.Productos.repository.ProductoReactivoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import com.example.Productos.search.IndiceBusquedaProductos.ResultadoBusqueda;
+import com.example.Productos.service.ProductoService;
+import com.example.Productos.validator.ProductoValidador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductoReactivoControllerTest {
+
+    private static final String RUTA = "/api/reactivo/productos";
+
+    private final ProductoReactivoRepository productoRepository = mock(ProductoReactivoRepository.class);
+    private final IndiceBusquedaProductos indiceBusqueda = mock(IndiceBusquedaProductos.class);
+    private final EscrituraDiferidaProductos escrituraDiferida = mock(EscrituraDiferidaProductos.class);
+    private final ProductoCache productoCache = new ProductoCache(100, Duration.ofMinutes(5));
+
+    private WebTestClient cliente;
+
+    @BeforeEach
+    void preparar() {
+        when(escrituraDiferida.superponer(any(Producto.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+        when(escrituraDiferida.superponer(anyList())).thenAnswer(invocacion -> invocacion.getArgument(0));
+        when(escrituraDiferida.superponer(anyMap())).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        cliente = WebTestClient.bindToController(new ProductoReactivoController(productoRepository,
+                mock(ProductoService.class), productoCache, new ProductoValidador(), indiceBusqueda,
+                escrituraDiferida)).build();
+    }
+
+    @Test
+    void obtenerPorIdLeeDeBaseDeDatosConEtag() {
+        when(productoRepository.findById(1L)).thenReturn(Mono.just(producto(1L, "Teclado", 3L)));
+
+        cliente.get().uri(RUTA + "/1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody().jsonPath("$.data.nombre").isEqualTo("Teclado");
+    }
+
+    @Test
+    void obtenerPorIdDevuelveElValorPendienteDeEscribir() {
+        when(escrituraDiferida.obtener(1L)).thenReturn(Optional.of(producto(1L, "Teclado nuevo", 4L)));
+        when(productoRepository.findById(1L)).thenReturn(Mono.just(producto(1L, "Teclado", 3L)));
+
+        cliente.get().uri(RUTA + "/1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"")
+                .expectBody().jsonPath("$.data.nombre").isEqualTo("Teclado nuevo");
+    }
+
+    @Test
+    void obtenerPorCodigoRespondeNoModificadoSiElEtagCoincide() {
+        when(productoRepository.findByCodigo("A-1")).thenReturn(Mono.just(producto(1L, "Teclado", 3L)));
+
+        cliente.get().uri(RUTA + "/codigo/A-1").header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\"").exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void obtenerPorIdInexistenteResponde404() {
+        when(productoRepository.findById(9L)).thenReturn(Mono.empty());
+
+        cliente.get().uri(RUTA + "/9").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void buscarUsaElIndiceYConservaElOrdenPorRelevancia() {
+        when(indiceBusqueda.estaListo()).thenReturn(true);
+        when(indiceBusqueda.buscar("teclado", 10, 10)).thenReturn(new ResultadoBusqueda(List.of(2L, 1L), 12));
+        productoCache.obtenerPorId(1L, id -> Optional.of(producto(id, "Teclado", 1L)));
+        when(productoRepository.findAllById(List.of(2L)))
+                .thenReturn(Flux.just(producto(2L, "Teclado mecánico", 1L)));
+
+        cliente.get().uri(RUTA + "/buscar?nombre=teclado&pagina=1&limite=10").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.productos[0].id").isEqualTo(2)
+                .jsonPath("$.data.productos[1].id").isEqualTo(1)
+                .jsonPath("$.data.total").isEqualTo(12);
+        verify(productoRepository, never()).findByNombreContainingIgnoreCase(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void buscarSinIndiceLimitaLaConsultaAUnaPagina() {
+        when(productoRepository.findByNombreContainingIgnoreCase(eq("teclado"), eq(0L), eq(3)))
+                .thenReturn(Flux.just(producto(1L, "Teclado", 1L), producto(2L, "Teclado mecánico", 1L),
+                        producto(3L, "Teclado numérico", 1L)));
+
+        cliente.get().uri(RUTA + "/buscar?nombre=teclado&limite=2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.productos.length()").isEqualTo(2)
+                .jsonPath("$.data.total").isEqualTo(3);
+    }
+
+    @Test
+    void losParametrosInvalidosResponden400() {
+        cliente.get().uri(RUTA + "/0").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.titulo").isEqualTo("Error de validación");
+        cliente.get().uri(RUTA + "/buscar?nombre=teclado&limite=0").exchange().expectStatus().isBadRequest();
+        cliente.get().uri(RUTA + "/buscar?nombre=teclado&pagina=-1").exchange().expectStatus().isBadRequest();
+        cliente.get().uri(RUTA + "/buscar?nombre= ").exchange().expectStatus().isBadRequest();
+    }
+
+    private static Producto producto(Long id, String nombre, Long version) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setCodigo("A-" + id);
+        producto.setNombre(nombre);
+        producto.setActivo(true);
+        producto.setVersion(version);
+        return producto;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.Productos.dto;
+
+import com.example.Productos.dto.CamposProducto.Campo;
+import com.example.Productos.entity.Producto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class CamposProductoTest {
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"   "})
+    void sinParametroDevuelveElProductoCompleto(String fields) {
+        assertThat(CamposProducto.desdeParametro(fields)).isNull();
+    }
+
+    @Test
+    void incluyeSiempreElIdSinRepetirCampos() {
+        CamposProducto campos = CamposProducto.desdeParametro("codigo, NOMBRE,precio,codigo,,id");
+
+        assertThat(campos.campos()).containsExactly(Campo.ID, Campo.CODIGO, Campo.NOMBRE, Campo.PRECIO);
+        assertThat(campos.seleccion("p")).isEqualTo("p.id, p.codigo, p.nombre, p.precio");
+    }
+
+    @Test
+    void rechazaCamposDesconocidos() {
+        assertThatThrownBy(() -> CamposProducto.desdeParametro("codigo,costo"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Campo desconocido: costo");
+    }
+
+    @Test
+    void recortaFilasYProductosALosCamposSolicitados() {
+        CamposProducto campos = CamposProducto.desdeParametro("nombre,precio");
+        Producto producto = new Producto();
+        producto.setId(7L);
+        producto.setNombre("Mesa");
+        producto.setPrecio(99.5);
+        producto.setDescripcion("Texto largo");
+
+        assertThat(campos.desdeProducto(producto))
+                .containsExactly(
+                        entry("id", 7L),
+                        entry("nombre", "Mesa"),
+                        entry("precio", 99.5));
+        assertThat(campos.desdeFila(new Object[]{7L, "Mesa", 99.5, "COD-7"}))
+                .isEqualTo(campos.desdeProducto(producto));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.Productos.dto;
+
+import com.example.Productos.dto.FiltroProductos.Cursor;
+import com.example.Productos.dto.FiltroProductos.Orden;
+import com.example.Productos.entity.Producto;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FiltroProductosTest {
+
+    @Test
+    void sinOrdenSeOrdenaPorIdAscendente() {
+        FiltroProductos filtro = FiltroProductos.desdeParametros(null, null, null, 5, true, "  ", null, null);
+
+        assertThat(filtro.orden()).isEqualTo(Orden.ID);
+        assertThat(filtro.descendente()).isFalse();
+        assertThat(filtro.prefijo()).isNull();
+    }
+
+    @Test
+    void rechazaRangosInvertidosYParametrosDesconocidos() {
+        assertThatThrownBy(() -> FiltroProductos.desdeParametros(10.0, 5.0, null, null, null, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El precio mínimo no puede ser mayor al máximo");
+        assertThatThrownBy(() -> FiltroProductos.desdeParametros(null, null, null, null, null, null, "costo", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Orden desconocido: costo");
+        assertThatThrownBy(() -> FiltroProductos.desdeParametros(null, null, null, null, null, null, null, "arriba"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Dirección desconocida: arriba");
+    }
+
+    @Test
+    void elCursorConservaElValorDeLaColumnaYElId() {
+        FiltroProductos porNombre = FiltroProductos.desdeParametros(null, null, null, null, null, null, "nombre", "desc");
+        Producto producto = new Producto();
+        producto.setId(42L);
+        producto.setNombre("Cable: USB-C");
+
+        String cursor = porNombre.cursorDe(producto);
+
+        assertThat(porNombre.leerCursor(cursor)).isEqualTo(new Cursor("Cable: USB-C", 42L));
+    }
+
+    @Test
+    void rechazaCursoresQueNoCorrespondenAlOrden() {
+        FiltroProductos porPrecio = FiltroProductos.desdeParametros(null, null, null, null, null, null, "precio", null);
+
+        assertThat(porPrecio.leerCursor("19.99:7")).isEqualTo(new Cursor(19.99, 7L));
+        assertThatThrownBy(() -> porPrecio.leerCursor("barato:7"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido: barato:7");
+        assertThatThrownBy(() -> porPrecio.leerCursor("19.99"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
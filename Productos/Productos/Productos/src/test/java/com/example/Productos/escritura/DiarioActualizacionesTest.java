@@ -0,0 +1,57 @@
+package com.example.Productos.escritura;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiarioActualizacionesTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void recuperaLasLineasCompletasYDescartaUnaEscrituraInterrumpida() throws Exception {
+        Path ruta = directorio.resolve("actualizaciones.diario");
+        try (DiarioActualizaciones diario = new DiarioActualizaciones(ruta)) {
+            assertThat(diario.abrir()).isEmpty();
+            diario.asegurarDurable(diario.escribir("{\"a\":1}"));
+            diario.asegurarDurable(diario.escribir("{\"b\":2}"));
+        }
+        Files.writeString(ruta, "{\"c\":", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (DiarioActualizaciones diario = new DiarioActualizaciones(ruta)) {
+            assertThat(diario.abrir()).containsExactly("{\"a\":1}", "{\"b\":2}");
+            diario.escribir("{\"d\":4}");
+        }
+
+        try (DiarioActualizaciones diario = new DiarioActualizaciones(ruta)) {
+            assertThat(diario.abrir()).containsExactly("{\"a\":1}", "{\"b\":2}", "{\"d\":4}");
+        }
+    }
+
+    @Test
+    void reescribirConservaSoloLoPendiente() throws Exception {
+        Path ruta = directorio.resolve("actualizaciones.diario");
+        try (DiarioActualizaciones diario = new DiarioActualizaciones(ruta)) {
+            diario.abrir();
+            DiarioActualizaciones.Entrada entrada = diario.escribir("{\"a\":1}");
+            diario.escribir("{\"b\":2}");
+
+            diario.reescribir(List.of("{\"b\":2}"));
+            // La entrada anterior a la reescritura no espera otro fsync
+            diario.asegurarDurable(entrada);
+            diario.escribir("{\"c\":3}");
+        }
+
+        try (DiarioActualizaciones diario = new DiarioActualizaciones(ruta)) {
+            assertThat(diario.abrir()).containsExactly("{\"b\":2}", "{\"c\":3}");
+        }
+    }
+}
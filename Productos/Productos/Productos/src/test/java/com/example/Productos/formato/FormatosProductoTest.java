@@ -0,0 +1,75 @@
+package com.example.Productos.formato;
+
+import com.example.Productos.dto.PaginaProductos;
+import com.example.Productos.entity.Producto;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FormatosProductoTest {
+
+    @Test
+    void elFormatoCompactoDebeSerElPreferido() {
+        assertThat(FormatosProducto.prefiereCompacto("application/x-protobuf, application/json;q=0.5")).isTrue();
+        assertThat(FormatosProducto.prefiereCompacto("application/json;q=0.9, application/cbor")).isTrue();
+        assertThat(FormatosProducto.prefiereCompacto("application/json, application/cbor")).isFalse();
+        assertThat(FormatosProducto.prefiereCompacto("*/*")).isFalse();
+        assertThat(FormatosProducto.prefiereCompacto(null)).isFalse();
+        assertThat(FormatosProducto.prefiereCompacto("no es un tipo")).isFalse();
+    }
+
+    @Test
+    void laListaProtobufSeLeeConElEsquema() throws Exception {
+        Producto producto = new Producto();
+        producto.setId(7L);
+        producto.setCodigo("A-7");
+        producto.setNombre("Teclado");
+        producto.setPrecio(19.5);
+        producto.setCantidad(3);
+        producto.setVersion(2L);
+        ListaProductos lista = ListaProductos.desde(new PaginaProductos<>(List.of(producto), 7L, 1, true));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream salida = CodedOutputStream.newInstance(bytes);
+        ProductoProtobufHttpMessageConverter.escribirLista(salida, lista);
+        salida.flush();
+
+        CodedInputStream entrada = CodedInputStream.newInstance(bytes.toByteArray());
+        Map<Integer, Object> camposLista = new LinkedHashMap<>();
+        Map<Integer, Object> camposProducto = new LinkedHashMap<>();
+        for (int etiqueta = entrada.readTag(); etiqueta != 0; etiqueta = entrada.readTag()) {
+            switch (etiqueta >>> 3) {
+                case 1 -> {
+                    int limite = entrada.pushLimit(entrada.readRawVarint32());
+                    for (int campo = entrada.readTag(); campo != 0; campo = entrada.readTag()) {
+                        switch (campo >>> 3) {
+                            case 2, 3, 4, 7 -> camposProducto.put(campo >>> 3, entrada.readString());
+                            case 5 -> camposProducto.put(5, entrada.readDouble());
+                            case 6 -> camposProducto.put(6, entrada.readInt32());
+                            case 8 -> camposProducto.put(8, entrada.readBool());
+                            default -> camposProducto.put(campo >>> 3, entrada.readInt64());
+                        }
+                    }
+                    entrada.popLimit(limite);
+                }
+                case 2 -> camposLista.put(2, entrada.readString());
+                case 3 -> camposLista.put(3, entrada.readInt32());
+                case 4 -> camposLista.put(4, entrada.readBool());
+                default -> entrada.skipField(etiqueta);
+            }
+        }
+
+        // activo, fechaCreacion y fechaActualizacion tienen valor por defecto en la entidad
+        assertThat(camposProducto).containsEntry(1, 7L).containsEntry(2, "A-7").containsEntry(3, "Teclado")
+                .containsEntry(5, 19.5).containsEntry(6, 3).containsEntry(8, true).containsEntry(11, 2L)
+                .doesNotContainKeys(4, 7);
+        assertThat(camposLista).containsEntry(2, "7").containsEntry(3, 1).containsEntry(4, true);
+    }
+}
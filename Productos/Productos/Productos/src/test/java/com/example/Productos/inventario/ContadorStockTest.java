@@ -0,0 +1,91 @@
+package com.example.Productos.inventario;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContadorStockTest {
+
+    @Test
+    void reservasConcurrentesNuncaSuperanLasExistencias() throws InterruptedException {
+        ContadorStock contador = new ContadorStock(100, 0, 0);
+        AtomicInteger reservadas = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread hilo = new Thread(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < 50; j++) {
+                    if (contador.reservar(1)) {
+                        reservadas.incrementAndGet();
+                    }
+                }
+            });
+            hilo.start();
+            hilos.add(hilo);
+        }
+        inicio.countDown();
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        assertThat(reservadas).hasValue(100);
+        assertThat(contador.getDisponible()).isZero();
+    }
+
+    @Test
+    void noReservaMasDeLoDisponible() {
+        ContadorStock contador = new ContadorStock(5, 2, 1);
+
+        assertThat(contador.getDisponible()).isEqualTo(2);
+        assertThat(contador.reservar(3)).isFalse();
+        assertThat(contador.reservar(2)).isTrue();
+        assertThat(contador.getDisponible()).isZero();
+    }
+
+    @Test
+    void liberarDevuelveLasUnidades() {
+        ContadorStock contador = new ContadorStock(5, 0, 0);
+        contador.reservar(4);
+        contador.liberar(4);
+
+        assertThat(contador.getDisponible()).isEqualTo(5);
+    }
+
+    @Test
+    void elDescuentoConfirmadoSigueComprometidoHastaEscribirse() {
+        ContadorStock contador = new ContadorStock(10, 0, 0);
+        contador.reservar(3);
+        contador.confirmar(3);
+
+        int pendiente = contador.tomarPendiente();
+        assertThat(pendiente).isEqualTo(3);
+        assertThat(contador.getDisponible()).isEqualTo(7);
+
+        contador.aplicarDescuento(pendiente);
+        assertThat(contador.getBase()).isEqualTo(7);
+        assertThat(contador.getComprometido()).isZero();
+        assertThat(contador.getDisponible()).isEqualTo(7);
+    }
+
+    @Test
+    void restaurarPendienteLoVuelveATomar() {
+        ContadorStock contador = new ContadorStock(10, 0, 0);
+        contador.reservar(2);
+        contador.confirmar(2);
+        contador.restaurarPendiente(contador.tomarPendiente());
+
+        assertThat(contador.getPendiente()).isEqualTo(2);
+        assertThat(contador.getDisponible()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.Productos.inventario;
+
+import com.example.Productos.inventario.DiarioInventario.Entrada;
+import com.example.Productos.inventario.DiarioInventario.Registro;
+import com.example.Productos.inventario.DiarioInventario.TipoRegistro;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class DiarioInventarioTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void reabreConLosRegistrosEscritos() throws IOException {
+        Path ruta = directorio.resolve("inventario.diario");
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            assertThat(diario.abrir()).isEmpty();
+            diario.escribir(TipoRegistro.RESERVA, "r1", 1L, 3, 1000L);
+            Entrada entrada = diario.escribir(TipoRegistro.CONFIRMACION, "r1", 1L, 3, 1000L);
+            diario.asegurarDurable(entrada);
+        }
+
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            List<Registro> registros = diario.abrir();
+
+            assertThat(registros).extracting(Registro::tipo)
+                    .containsExactly(TipoRegistro.RESERVA, TipoRegistro.CONFIRMACION);
+            assertThat(registros.get(0)).isEqualTo(new Registro(1, TipoRegistro.RESERVA, "r1", 1L, 3, 1000L));
+            assertThat(diario.ultimaSecuencia()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void descartaElUltimoRegistroCortadoYContinuaDespues() throws IOException {
+        Path ruta = directorio.resolve("inventario.diario");
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            diario.abrir();
+            diario.escribir(TipoRegistro.RESERVA, "r1", 1L, 3, 1000L);
+        }
+        // Escritura interrumpida: la línea no llegó a terminarse
+        Files.writeString(ruta, "2;RESERVA;r2;1;", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            assertThat(diario.abrir()).extracting(Registro::reservaId).containsExactly("r1");
+            diario.escribir(TipoRegistro.RESERVA, "r3", 1L, 1, 1000L);
+        }
+
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            assertThat(diario.abrir()).extracting(Registro::secuencia, Registro::reservaId)
+                    .containsExactly(tuple(1L, "r1"), tuple(2L, "r3"));
+        }
+    }
+
+    @Test
+    void descartaDesdeUnRegistroInvalido() throws IOException {
+        Path ruta = directorio.resolve("inventario.diario");
+        Files.writeString(ruta, "1;RESERVA;r1;1;3;1000\n2;DESCONOCIDO;r2;1;3;1000\n3;RESERVA;r3;1;3;1000\n",
+                StandardCharsets.UTF_8);
+
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            assertThat(diario.abrir()).extracting(Registro::reservaId).containsExactly("r1");
+            assertThat(diario.tamano()).isEqualTo(Files.size(ruta));
+        }
+    }
+
+    @Test
+    void reescribirReemplazaLosRegistrosSinReutilizarSecuencias() throws IOException {
+        Path ruta = directorio.resolve("inventario.diario");
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            diario.abrir();
+            diario.escribir(TipoRegistro.RESERVA, "r1", 1L, 3, 1000L);
+            Entrada anterior = diario.escribir(TipoRegistro.LIBERACION, "r1", 1L, 3, 1000L);
+            diario.escribir(TipoRegistro.RESERVA, "r2", 2L, 1, 1000L);
+
+            diario.reescribir(List.of(new Registro(diario.siguienteSecuencia(), TipoRegistro.RESERVA, "r2", 2L, 1,
+                    1000L)));
+            // El registro anterior quedó cubierto por el archivo nuevo, que ya es durable
+            diario.asegurarDurable(anterior);
+            diario.escribir(TipoRegistro.CONFIRMACION, "r2", 2L, 1, 1000L);
+        }
+
+        try (DiarioInventario diario = new DiarioInventario(ruta)) {
+            assertThat(diario.abrir()).extracting(Registro::secuencia).containsExactly(4L, 5L);
+            assertThat(Files.exists(directorio.resolve("inventario.diario.tmp"))).isFalse();
+        }
+    }
+
+    @Test
+    void respetaLaSecuenciaMinimaDelPuntoDeControl() throws IOException {
+        try (DiarioInventario diario = new DiarioInventario(directorio.resolve("inventario.diario"))) {
+            diario.abrir();
+            diario.asegurarSecuenciaMinima(40);
+
+            assertThat(diario.escribir(TipoRegistro.RESERVA, "r1", 1L, 1, 1000L).secuencia()).isEqualTo(41);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.entity.EventoProducto;
+import com.example.Productos.entity.EventoProducto.TipoEvento;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.repository.EventoProductoJdbcRepository;
+import com.example.Productos.repository.EventoProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BandejaSalidaProductosTest {
+
+    private final EventoProductoRepository eventoProductoRepository = mock(EventoProductoRepository.class);
+    private final EventoProductoJdbcRepository eventoProductoJdbcRepository = mock(EventoProductoJdbcRepository.class);
+    private final BandejaSalidaProductos bandeja = new BandejaSalidaProductos(eventoProductoRepository,
+            eventoProductoJdbcRepository, JsonMapper.builder().build());
+
+    @Test
+    void registraElEstadoAnteriorYElPosteriorSinSecuencia() {
+        Producto producto = producto("Teclado");
+        String antes = bandeja.capturar(producto("Teclado viejo"));
+
+        bandeja.registrar(TipoEvento.ACTUALIZADO, producto, antes);
+
+        EventoProducto evento = guardado();
+        assertThat(evento.getSecuencia()).isNull();
+        assertThat(evento.getTipo()).isEqualTo(TipoEvento.ACTUALIZADO);
+        assertThat(evento.getProductoId()).isEqualTo(1L);
+        assertThat(evento.getCodigo()).isEqualTo("P-1");
+        assertThat(evento.getAntes()).contains("\"nombre\":\"Teclado viejo\"");
+        assertThat(evento.getDespues()).contains("\"nombre\":\"Teclado\"");
+        assertThat(evento.getFecha()).isPositive();
+    }
+
+    @Test
+    void laEliminacionNoTieneEstadoPosterior() {
+        Producto producto = producto("Teclado");
+
+        bandeja.registrar(TipoEvento.ELIMINADO, producto, bandeja.capturar(producto));
+
+        EventoProducto evento = guardado();
+        assertThat(evento.getAntes()).isNotNull();
+        assertThat(evento.getDespues()).isNull();
+        assertThat(bandeja.capturar(null)).isNull();
+    }
+
+    @Test
+    void registrarLoteInsertaConJdbcEnElMismoOrden() {
+        List<EventoProducto> eventos = List.of(
+                bandeja.crearEvento(TipoEvento.CREADO, producto("Uno"), null, "{}"),
+                bandeja.crearEvento(TipoEvento.ACTUALIZADO, producto("Dos"), "{}", "{}"));
+
+        bandeja.registrarLote(eventos);
+
+        verify(eventoProductoJdbcRepository).insertar(eventos);
+    }
+
+    private EventoProducto guardado() {
+        ArgumentCaptor<EventoProducto> evento = ArgumentCaptor.forClass(EventoProducto.class);
+        verify(eventoProductoRepository).save(evento.capture());
+        return evento.getValue();
+    }
+
+    private static Producto producto(String nombre) {
+        Producto producto = new Producto();
+        producto.setId(1L);
+        producto.setCodigo("P-1");
+        producto.setNombre(nombre);
+        producto.setPrecio(10.0);
+        producto.setCantidad(5);
+        return producto;
+    }
+}
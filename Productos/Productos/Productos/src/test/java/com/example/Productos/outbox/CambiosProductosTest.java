@@ -0,0 +1,57 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.outbox.CambiosProductos.Cambios;
+import com.example.Productos.outbox.CambiosProductos.Posicion;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CambiosProductosTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final EventoProductoRepository eventoProductoRepository = mock(EventoProductoRepository.class);
+    private final CambiosProductos cambios = new CambiosProductos(productoRepository, eventoProductoRepository);
+
+    @BeforeEach
+    void preparar() {
+        ReflectionTestUtils.setField(cambios, "margen", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void uneModificadosPorFechaYEliminadosPorEvento() {
+        when(productoRepository.findIdsModificadosDespuesDe(1000L)).thenReturn(List.of(1L, 2L));
+        when(eventoProductoRepository.findMaxSecuencia()).thenReturn(Optional.of(9L));
+        when(eventoProductoRepository.findProductoIdsEliminados(4L, 9L)).thenReturn(List.of(2L, 7L));
+
+        long antes = System.currentTimeMillis();
+        Cambios leidos = cambios.leerDesde(new Posicion(1000L, 4L));
+
+        assertThat(leidos.ids()).containsExactlyInAnyOrder(1L, 2L, 7L);
+        assertThat(leidos.hasta().secuencia()).isEqualTo(9L);
+        // La próxima lectura vuelve a cubrir el margen
+        assertThat(leidos.hasta().fecha()).isBetween(antes - 5_000, System.currentTimeMillis() - 5_000);
+    }
+
+    @Test
+    void laSecuenciaNoRetrocedeSiLaRetencionEliminoLosEventos() {
+        when(eventoProductoRepository.findMaxSecuencia()).thenReturn(Optional.empty());
+
+        Cambios leidos = cambios.leerDesde(new Posicion(1000L, 12L));
+
+        assertThat(leidos.hasta().secuencia()).isEqualTo(12L);
+        verify(eventoProductoRepository, never()).findProductoIdsEliminados(anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.Productos.outbox;
+
+import com.example.Productos.entity.EventoProducto;
+import com.example.Productos.entity.EventoProducto.TipoEvento;
+import com.example.Productos.entity.SecuenciaEventos;
+import com.example.Productos.repository.EventoProductoJdbcRepository;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.SecuenciaEventosRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relay sobre una bandeja de salida en H2 con transacciones reales; los repositorios JPA se simulan con JDBC
+ * sobre la conexión de la transacción en curso y cada lectura devuelve entidades nuevas
+ */
+class RelayEventosProductosTest {
+
+    private final EventoProductoRepository eventoProductoRepository = mock(EventoProductoRepository.class);
+    private final SecuenciaEventosRepository secuenciaEventosRepository = mock(SecuenciaEventosRepository.class);
+    private final List<List<Long>> publicados = new ArrayList<>();
+    private int fallosPendientes;
+
+    private String url;
+    private JdbcTemplate jdbc;
+    private EventoProductoJdbcRepository eventoProductoJdbcRepository;
+    private RelayEventosProductos relay;
+
+    @BeforeEach
+    void preparar() {
+        url = "jdbc:h2:mem:eventos" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DataSource dataSource = crearBase(url);
+        jdbc = new JdbcTemplate(dataSource);
+        eventoProductoJdbcRepository = spy(new EventoProductoJdbcRepository(new NamedParameterJdbcTemplate(dataSource)));
+        ReflectionTestUtils.setField(eventoProductoJdbcRepository, "tamanoBatch", 500);
+
+        when(secuenciaEventosRepository.bloquear(anyInt())).thenAnswer(invocacion -> jdbc.query(
+                        "select secuencia from productos_eventos_secuencia where id = ? for update",
+                        (fila, numero) -> new SecuenciaEventos(invocacion.getArgument(0), fila.getLong("secuencia")),
+                        (Integer) invocacion.getArgument(0))
+                .stream().findFirst());
+        when(secuenciaEventosRepository.save(any(SecuenciaEventos.class))).thenAnswer(invocacion -> {
+            SecuenciaEventos secuencia = invocacion.getArgument(0);
+            jdbc.update("merge into productos_eventos_secuencia key (id) values (?, ?)",
+                    secuencia.getId(), secuencia.getSecuencia());
+            return secuencia;
+        });
+
+        when(eventoProductoRepository.findMaxSecuencia()).thenAnswer(invocacion -> Optional.ofNullable(
+                jdbc.queryForObject("select max(secuencia) from productos_eventos", Long.class)));
+        when(eventoProductoRepository.findBySecuenciaIsNullOrderByIdAsc(any(Limit.class)))
+                .thenAnswer(invocacion -> leerPendientes(invocacion.getArgument(0)));
+
+        PublicadorEventos publicador = eventos -> {
+            if (fallosPendientes > 0) {
+                fallosPendientes--;
+                throw new IllegalStateException("destino no disponible");
+            }
+            publicados.add(eventos.stream().map(EventoProducto::getSecuencia).toList());
+        };
+        relay = new RelayEventosProductos(eventoProductoRepository, eventoProductoJdbcRepository,
+                secuenciaEventosRepository, publicador, new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(relay, "tamanoLote", 2);
+        relay.inicializar();
+    }
+
+    @Test
+    void publicaEnLotesConSecuenciasConsecutivasEnOrdenDeInsercion() {
+        jdbc.update("insert into productos_eventos (secuencia, tipo, producto_id, codigo, fecha) "
+                + "values (7, 'CREADO', 1, 'P-1', 1)");
+        insertarPendientes(5);
+
+        relay.publicarPendientes();
+
+        assertThat(publicados).containsExactly(List.of(8L, 9L), List.of(10L, 11L), List.of(12L));
+        assertThat(secuenciasPorId()).containsExactly(7L, 8L, 9L, 10L, 11L, 12L);
+        assertThat(ultimaSecuencia()).isEqualTo(12L);
+    }
+
+    @Test
+    void siFallaLaPublicacionReintentaElMismoLoteConLasMismasSecuencias() {
+        insertarPendientes(2);
+        fallosPendientes = 1;
+
+        relay.publicarPendientes();
+        assertThat(publicados).isEmpty();
+        assertThat(secuenciasPorId()).containsOnlyNulls();
+
+        relay.publicarPendientes();
+        assertThat(publicados).containsExactly(List.of(1L, 2L));
+        assertThat(secuenciasPorId()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void siFallaElMarcadoAMitadDelLoteNoQuedaNadaMarcadoNiPublicado() {
+        insertarPendientes(2);
+        // El primer UPDATE llega a la base y la conexión se pierde después
+        doAnswer(invocacion -> {
+            invocacion.callRealMethod();
+            throw new DataAccessResourceFailureException("conexión perdida");
+        }).doCallRealMethod().when(eventoProductoJdbcRepository).marcarPublicados(anyList());
+
+        relay.publicarPendientes();
+        assertThat(publicados).isEmpty();
+        assertThat(secuenciasPorId()).containsOnlyNulls();
+
+        relay.publicarPendientes();
+        assertThat(publicados).containsExactly(List.of(1L, 2L));
+        assertThat(secuenciasPorId()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void unEventoYaPublicadoPorOtraInstanciaNoSeRenumera() {
+        insertarPendientes(2);
+        JdbcTemplate otraInstancia = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        when(eventoProductoRepository.findBySecuenciaIsNullOrderByIdAsc(any(Limit.class))).thenAnswer(invocacion -> {
+            List<EventoProducto> pendientes = leerPendientes(invocacion.getArgument(0));
+            if (otraInstancia.queryForObject("select count(*) from productos_eventos where secuencia is not null",
+                    Integer.class) == 0) {
+                // Otra instancia publica el primero entre la lectura y el marcado de este relay
+                otraInstancia.update("update productos_eventos set secuencia = 50 where id = ?",
+                        pendientes.get(0).getId());
+                otraInstancia.update("insert into productos_eventos_secuencia (id, secuencia) values (1, 50)");
+            }
+            return pendientes;
+        });
+
+        relay.publicarPendientes();
+        assertThat(publicados).isEmpty();
+        assertThat(secuenciasPorId()).containsExactly(50L, null);
+
+        relay.publicarPendientes();
+        assertThat(publicados).containsExactly(List.of(51L));
+        assertThat(secuenciasPorId()).containsExactly(50L, 51L);
+    }
+
+    @Test
+    void laSecuenciaContinuaAunqueLaRetencionEliminaraTodosLosEventos() {
+        insertarPendientes(2);
+        relay.publicarPendientes();
+        jdbc.update("delete from productos_eventos");
+        insertarPendientes(1);
+
+        relay.publicarPendientes();
+
+        assertThat(publicados).containsExactly(List.of(1L, 2L), List.of(3L));
+        assertThat(secuenciasPorId()).containsExactly(3L);
+    }
+
+    @Test
+    void unFalloEnUnLoteNoRepiteLosYaPublicadosNiDejaHuecos() {
+        insertarPendientes(3);
+        relay.publicarPendientes();
+        insertarPendientes(3);
+        fallosPendientes = 1;
+
+        // El primer lote nuevo falla: se detiene sin marcar nada
+        relay.publicarPendientes();
+        relay.publicarPendientes();
+
+        assertThat(publicados).containsExactly(List.of(1L, 2L), List.of(3L), List.of(4L, 5L), List.of(6L));
+        assertThat(secuenciasPorId()).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void losEventosRegistradosEnLoteQuedanPendientesHastaPublicarse() {
+        BandejaSalidaProductos bandeja = new BandejaSalidaProductos(eventoProductoRepository,
+                eventoProductoJdbcRepository, JsonMapper.builder().build());
+        bandeja.registrarLote(List.of(
+                new EventoProducto(null, null, TipoEvento.CREADO, 1L, "P-1", null, "{}", 1L),
+                new EventoProducto(null, null, TipoEvento.ELIMINADO, 2L, "P-2", "{}", null, 2L)));
+
+        assertThat(secuenciasPorId()).containsExactly(null, null);
+        relay.publicarPendientes();
+        assertThat(jdbc.queryForList("select tipo from productos_eventos order by secuencia", String.class))
+                .containsExactly("CREADO", "ELIMINADO");
+    }
+
+    private void insertarPendientes(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            jdbc.update("insert into productos_eventos (tipo, producto_id, codigo, fecha) values ('ACTUALIZADO', ?, ?, ?)",
+                    i, "P-" + i, i);
+        }
+    }
+
+    private List<EventoProducto> leerPendientes(Limit limite) {
+        return jdbc.query("select * from productos_eventos where secuencia is null order by id limit ?",
+                (fila, numero) -> new EventoProducto(fila.getLong("id"), null,
+                        TipoEvento.valueOf(fila.getString("tipo")), fila.getLong("producto_id"),
+                        fila.getString("codigo"), fila.getString("antes"), fila.getString("despues"),
+                        fila.getLong("fecha")),
+                limite.max());
+    }
+
+    private Long ultimaSecuencia() {
+        return jdbc.queryForObject("select secuencia from productos_eventos_secuencia where id = 1", Long.class);
+    }
+
+    private List<Long> secuenciasPorId() {
+        return jdbc.query("select secuencia from productos_eventos order by id",
+                (fila, numero) -> (Long) fila.getObject("secuencia", Long.class));
+    }
+
+    private static DataSource crearBase(String url) {
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        new JdbcTemplate(dataSource).execute("""
+                create table productos_eventos (
+                    id bigint auto_increment primary key,
+                    secuencia bigint unique,
+                    tipo varchar(20) not null,
+                    producto_id bigint not null,
+                    codigo varchar(255) not null,
+                    antes varchar(4000),
+                    despues varchar(4000),
+                    fecha bigint not null
+                );
+                create table productos_eventos_secuencia (
+                    id int primary key,
+                    secuencia bigint not null
+                )
+                """);
+        return dataSource;
+    }
+}
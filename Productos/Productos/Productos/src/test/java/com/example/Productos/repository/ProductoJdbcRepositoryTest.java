@@ -0,0 +1,138 @@
+package com.example.Productos.repository;
+
+import com.example.Productos.entity.Producto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lotes JDBC sobre H2 con un tamaño de batch de 2 para cubrir lotes parciales
+ */
+class ProductoJdbcRepositoryTest {
+
+    private JdbcTemplate jdbc;
+    private ProductoJdbcRepository repositorio;
+
+    @BeforeEach
+    void preparar() {
+        DataSource dataSource = crearBase();
+        jdbc = new JdbcTemplate(dataSource);
+        repositorio = new ProductoJdbcRepository(new NamedParameterJdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(repositorio, "tamanoBatch", 2);
+    }
+
+    @Test
+    void insertarAsignaLosIdsGeneradosEnOrden() {
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            productos.add(producto("P-" + i, "Producto " + i));
+        }
+
+        repositorio.insertar(productos);
+
+        assertThat(productos).extracting(Producto::getId).doesNotContainNull().doesNotHaveDuplicates();
+        for (Producto producto : productos) {
+            assertThat(jdbc.queryForObject("select codigo from productos where id = ?", String.class,
+                    producto.getId())).isEqualTo(producto.getCodigo());
+        }
+        assertThat(jdbc.queryForObject("select count(*) from productos where version = 0", Integer.class))
+                .isEqualTo(5);
+    }
+
+    @Test
+    void actualizarReemplazaLaFilaEIncrementaLaVersion() {
+        Producto original = producto("P-1", "Original");
+        Producto otro = producto("P-2", "Otro");
+        repositorio.insertar(List.of(original, otro));
+
+        Producto cambios = producto("P-1", "Cambiado");
+        cambios.setId(original.getId());
+        cambios.setPrecio(99.0);
+        cambios.setFechaCreacion(5L);
+        cambios.setFechaActualizacion(2000L);
+        repositorio.actualizar(List.of(cambios));
+
+        Map<String, Object> fila = jdbc.queryForMap("select * from productos where id = ?", original.getId());
+        assertThat(fila.get("NOMBRE")).isEqualTo("Cambiado");
+        assertThat(fila.get("PRECIO")).isEqualTo(99.0);
+        assertThat(fila.get("VERSION")).isEqualTo(1L);
+        assertThat(fila.get("FECHA_ACTUALIZACION")).isEqualTo(2000L);
+        // El UPDATE no toca la fecha de creación ni las demás filas
+        assertThat(fila.get("FECHA_CREACION")).isEqualTo(1000L);
+        assertThat(jdbc.queryForObject("select nombre from productos where id = ?", String.class, otro.getId()))
+                .isEqualTo("Otro");
+    }
+
+    @Test
+    void unCodigoDuplicadoEnBaseDeDatosFallaConDuplicateKey() {
+        repositorio.insertar(List.of(producto("P-1", "Existente")));
+
+        // Otra escritura insertó el código entre la comprobación del servicio y el INSERT
+        assertThatThrownBy(() -> repositorio.insertar(List.of(producto("P-2", "Nuevo"), producto("P-1", "Repetido"))))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(jdbc.queryForObject("select nombre from productos where codigo = 'P-1'", String.class))
+                .isEqualTo("Existente");
+    }
+
+    @Test
+    void actualizarDiferidosInformaLasFilasAfectadas() {
+        Producto existente = producto("P-1", "Original");
+        repositorio.insertar(List.of(existente));
+        existente.setNombre("Diferido");
+        existente.setVersion(3L);
+        Producto eliminado = producto("P-9", "Eliminado");
+        eliminado.setId(999L);
+        eliminado.setVersion(1L);
+
+        int[] filas = repositorio.actualizarDiferidos(List.of(existente, eliminado));
+
+        assertThat(filas).containsExactly(1, 0);
+        assertThat(jdbc.queryForObject("select version from productos where id = ?", Long.class,
+                existente.getId())).isEqualTo(3L);
+    }
+
+    private static Producto producto(String codigo, String nombre) {
+        Producto producto = new Producto();
+        producto.setCodigo(codigo);
+        producto.setNombre(nombre);
+        producto.setPrecio(10.0);
+        producto.setCantidad(5);
+        producto.setActivo(true);
+        producto.setFechaCreacion(1000L);
+        producto.setFechaActualizacion(1000L);
+        return producto;
+    }
+
+    static DataSource crearBase() {
+        String url = "jdbc:h2:mem:productos" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        new JdbcTemplate(dataSource).execute("""
+                create table productos (
+                    id bigint auto_increment primary key,
+                    codigo varchar(255) not null unique,
+                    nombre varchar(255) not null,
+                    descripcion varchar(4000),
+                    precio double not null,
+                    cantidad int not null,
+                    img varchar(255),
+                    activo boolean,
+                    fecha_creacion bigint not null,
+                    fecha_actualizacion bigint,
+                    version bigint not null default 0
+                )
+                """);
+        return dataSource;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.Productos.search;
+
+import com.example.Productos.entity.Producto;
+import com.example.Productos.outbox.CambiosProductos;
+import com.example.Productos.outbox.CambiosProductos.Cambios;
+import com.example.Productos.outbox.CambiosProductos.Posicion;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos.ResultadoBusqueda;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceBusquedaProductosTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final CambiosProductos cambiosProductos = mock(CambiosProductos.class);
+    private final IndiceBusquedaProductos indice = new IndiceBusquedaProductos(productoRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), cambiosProductos);
+
+    @Test
+    void ordenaPorRelevancia() {
+        indice.indexar(producto(3L, "Portateclados", null, 1L));
+        indice.indexar(producto(4L, "Ratón", "Combina con el teclado", 1L));
+        indice.indexar(producto(2L, "Funda para teclado", null, 1L));
+        indice.indexar(producto(1L, "Teclado mecánico", null, 1L));
+        indice.indexar(producto(5L, "Monitor", "Pantalla de 27 pulgadas", 1L));
+
+        ResultadoBusqueda resultado = indice.buscar("teclado", 0, 10);
+
+        // Prefijo del nombre, palabra del nombre, dentro de una palabra y por último la descripción
+        assertThat(resultado.ids()).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(resultado.total()).isEqualTo(4);
+    }
+
+    @Test
+    void ignoraAcentosMayusculasYOrdenDeLosTerminos() {
+        indice.indexar(producto(1L, "Teclado Mecánico", null, 1L));
+        indice.indexar(producto(2L, "Teclado de membrana", null, 1L));
+
+        assertThat(indice.buscar("MECANICO", 0, 10).ids()).containsExactly(1L);
+        assertThat(indice.buscar("mecánico teclado", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void paginaConElTotalDeCoincidencias() {
+        for (long id = 1; id <= 5; id++) {
+            indice.indexar(producto(id, "Silla " + id, null, 1L));
+        }
+
+        ResultadoBusqueda pagina = indice.buscar("silla", 2, 2);
+
+        assertThat(pagina.ids()).containsExactly(3L, 4L);
+        assertThat(pagina.total()).isEqualTo(5);
+        assertThat(indice.buscar("silla", 10, 2).ids()).isEmpty();
+    }
+
+    @Test
+    void losTerminosCortosSeBuscanEnLasPalabrasCortasYDentroDeLosNgramas() {
+        indice.indexar(producto(1L, "TV 50", null, 1L));
+        indice.indexar(producto(2L, "Soporte", null, 1L));
+        indice.indexar(producto(3L, "Mueble para TVs", null, 1L));
+        indice.indexar(producto(4L, "Cable", "Para TV de 50 pulgadas", 1L));
+
+        assertThat(indice.buscar("tv", 0, 10).ids()).containsExactly(1L, 3L, 4L);
+        assertThat(indice.buscar("tv 50", 0, 10).ids()).containsExactly(1L, 4L);
+        assertThat(indice.buscar("so", 0, 10).ids()).containsExactly(2L);
+        assertThat(indice.buscar("  ", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void laPaginaConMonticuloAcotadoCoincideConElOrdenCompleto() {
+        for (long id = 1; id <= 30; id++) {
+            // Nombres de distinto largo para repartir los puntos
+            indice.indexar(producto(id, "Lámpara" + " x".repeat((int) (id % 7)), null, 1L));
+        }
+
+        List<Long> todos = indice.buscar("lampara", 0, 30).ids();
+        assertThat(todos).hasSize(30);
+        for (int desde = 0; desde < 30; desde += 7) {
+            ResultadoBusqueda pagina = indice.buscar("lampara", desde, 7);
+            assertThat(pagina.ids()).isEqualTo(todos.subList(desde, Math.min(desde + 7, 30)));
+            assertThat(pagina.total()).isEqualTo(30);
+        }
+    }
+
+    @Test
+    void refrescarIncorporaLosCambiosDeOtrasInstancias() {
+        Posicion inicial = new Posicion(1000L, 5L);
+        Posicion siguiente = new Posicion(2000L, 6L);
+        when(cambiosProductos.posicionActual()).thenReturn(inicial);
+        when(productoRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(
+                producto(1L, "Teclado", null, 1L), producto(2L, "Ratón", null, 1L)));
+        indice.construir();
+
+        // Otra instancia renombró el 1, borró el 2 y creó el 3
+        when(cambiosProductos.leerDesde(inicial)).thenReturn(new Cambios(Set.of(1L, 2L, 3L), siguiente));
+        when(productoRepository.findAllById(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                producto(1L, "Teclado mecánico", null, 2L), producto(3L, "Monitor", null, 2L)));
+        when(cambiosProductos.leerDesde(siguiente)).thenReturn(new Cambios(Set.of(), siguiente));
+
+        indice.refrescar();
+        indice.refrescar();
+
+        assertThat(indice.buscar("mecanico", 0, 10).ids()).containsExactly(1L);
+        assertThat(indice.buscar("raton", 0, 10).total()).isZero();
+        assertThat(indice.buscar("monitor", 0, 10).ids()).containsExactly(3L);
+    }
+
+    @Test
+    void reindexarReemplazaLosNgramasAnteriores() {
+        indice.indexar(producto(1L, "Teclado", null, 1L));
+        indice.indexar(producto(1L, "Monitor", null, 2L));
+
+        assertThat(indice.buscar("teclado", 0, 10).total()).isZero();
+        assertThat(indice.buscar("monitor", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void unaVersionAnteriorNoReemplazaLaIndexada() {
+        indice.indexar(producto(1L, "Monitor", null, 2L));
+        indice.indexar(producto(1L, "Teclado", null, 1L));
+
+        assertThat(indice.buscar("monitor", 0, 10).ids()).containsExactly(1L);
+        assertThat(indice.buscar("teclado", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void eliminarQuitaElProducto() {
+        indice.indexar(producto(1L, "Teclado", "Inalámbrico", 1L));
+        indice.indexar(producto(2L, "Teclado numérico", null, 1L));
+
+        indice.eliminar(1L);
+
+        assertThat(indice.buscar("teclado", 0, 10).ids()).containsExactly(2L);
+        assertThat(indice.buscar("inalambrico", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void construirIndexaTodoYNoAgregaLosEliminadosDuranteLaConstruccion() {
+        Producto primero = producto(1L, "Mesa", null, 1L);
+        when(productoRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(primero,
+                        producto(2L, "Mesa auxiliar", null, 1L), producto(3L, "Mesa plegable", null, 1L))
+                // El producto 2 se elimina mientras el recorrido todavía no llegó a él
+                .peek(producto -> {
+                    if (producto == primero) {
+                        indice.eliminar(2L);
+                    }
+                }));
+        assertThat(indice.estaListo()).isFalse();
+
+        indice.construir();
+
+        assertThat(indice.estaListo()).isTrue();
+        assertThat(indice.buscar("mesa", 0, 10).ids()).containsExactlyInAnyOrder(1L, 3L);
+        // Terminada la construcción, el ID puede volver a indexarse
+        indice.indexar(producto(2L, "Mesa auxiliar", null, 2L));
+        assertThat(indice.buscar("auxiliar", 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void siFallaLaConstruccionNoQuedaListo() {
+        when(productoRepository.streamAllByOrderByIdAsc()).thenThrow(new IllegalStateException("sin conexión"));
+
+        indice.construir();
+
+        assertThat(indice.estaListo()).isFalse();
+    }
+
+    private static Producto producto(Long id, String nombre, String descripcion, Long fechaActualizacion) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setCodigo("P-" + id);
+        producto.setNombre(nombre);
+        producto.setDescripcion(descripcion);
+        producto.setFechaActualizacion(fechaActualizacion);
+        return producto;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.Productos.service.impl;
+
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.dto.EstadoInventario;
+import com.example.Productos.dto.ReservaInventario;
+import com.example.Productos.entity.PuntoControlInventario;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.repository.PuntoControlInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Motor de reservas sobre un diario real en un directorio temporal; la base de datos se simula con mapas.
+ * Cada instancia nueva del servicio sobre el mismo diario equivale a reiniciar la aplicación tras una caída.
+ */
+class InventarioServiceImplTest {
+
+    private static final Long PRODUCTO = 1L;
+
+    @TempDir
+    Path directorio;
+
+    private final Map<Long, Integer> cantidades = new ConcurrentHashMap<>();
+    private final AtomicLong puntoControl = new AtomicLong();
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final ProductoJdbcRepository productoJdbcRepository = mock(ProductoJdbcRepository.class);
+    private final PuntoControlInventarioRepository puntoControlRepository = mock(PuntoControlInventarioRepository.class);
+
+    @BeforeEach
+    void preparar() {
+        cantidades.put(PRODUCTO, 10);
+        when(productoRepository.findCantidadActivaById(anyLong()))
+                .thenAnswer(invocacion -> Optional.ofNullable(cantidades.get(invocacion.<Long>getArgument(0))));
+        when(productoRepository.findCantidadById(anyLong()))
+                .thenAnswer(invocacion -> Optional.ofNullable(cantidades.get(invocacion.<Long>getArgument(0))));
+        doAnswer(invocacion -> {
+            Map<Long, Integer> descuentos = invocacion.getArgument(0);
+            descuentos.forEach((id, descuento) -> cantidades.merge(id, -descuento, Integer::sum));
+            return null;
+        }).when(productoJdbcRepository).descontarCantidades(any(), anyLong());
+        when(puntoControlRepository.findById(PuntoControlInventario.ID_UNICO)).thenAnswer(invocacion ->
+                Optional.of(new PuntoControlInventario(PuntoControlInventario.ID_UNICO, puntoControl.get())));
+        when(puntoControlRepository.save(any())).thenAnswer(invocacion -> {
+            PuntoControlInventario punto = invocacion.getArgument(0);
+            puntoControl.set(punto.getSecuencia());
+            return punto;
+        });
+    }
+
+    @Test
+    void reservasConcurrentesNuncaSuperanLasExistencias() throws Exception {
+        InventarioServiceImpl servicio = iniciar(Duration.ofMinutes(15));
+        AtomicInteger aceptadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread hilo = new Thread(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < 5; j++) {
+                    try {
+                        servicio.reservar(PRODUCTO, 1);
+                        aceptadas.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                }
+            });
+            hilo.start();
+            hilos.add(hilo);
+        }
+        inicio.countDown();
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        assertThat(aceptadas).hasValue(10);
+        assertThat(rechazadas).hasValue(30);
+        assertThat(servicio.consultar(PRODUCTO).getDisponible()).isZero();
+        // Tras reiniciar, el diario tiene exactamente las reservas aceptadas
+        assertThat(iniciar(Duration.ofMinutes(15)).consultar(PRODUCTO).getReservado()).isEqualTo(10);
+    }
+
+    @Test
+    void recuperaReservasYConfirmacionesDelDiario() throws IOException {
+        InventarioServiceImpl servicio = iniciar(Duration.ofMinutes(15));
+        ReservaInventario confirmada = servicio.reservar(PRODUCTO, 3);
+        servicio.reservar(PRODUCTO, 2);
+        ReservaInventario liberada = servicio.reservar(PRODUCTO, 1);
+        servicio.confirmar(confirmada.getReservaId());
+        servicio.liberar(liberada.getReservaId());
+
+        EstadoInventario estado = iniciar(Duration.ofMinutes(15)).consultar(PRODUCTO);
+
+        assertThat(estado).isEqualTo(new EstadoInventario(PRODUCTO, 10, 2, 3, 5));
+    }
+
+    @Test
+    void noReaplicaLosDescuentosCubiertosPorElPuntoDeControl() throws IOException {
+        InventarioServiceImpl servicio = iniciar(Duration.ofMinutes(15));
+        servicio.confirmar(servicio.reservar(PRODUCTO, 3).getReservaId());
+        servicio.escribirDescuentos();
+        // Confirmada después del punto de control: sigue pendiente de escribir
+        servicio.confirmar(servicio.reservar(PRODUCTO, 1).getReservaId());
+
+        assertThat(cantidades.get(PRODUCTO)).isEqualTo(7);
+        EstadoInventario estado = iniciar(Duration.ofMinutes(15)).consultar(PRODUCTO);
+        assertThat(estado).isEqualTo(new EstadoInventario(PRODUCTO, 7, 0, 1, 6));
+    }
+
+    @Test
+    void descartaElUltimoRegistroCortadoAlRecuperar() throws IOException {
+        InventarioServiceImpl servicio = iniciar(Duration.ofMinutes(15));
+        servicio.reservar(PRODUCTO, 2);
+        Files.writeString(rutaDiario(), "2;RESERVA;cortada;1;", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        InventarioServiceImpl recuperado = iniciar(Duration.ofMinutes(15));
+        assertThat(recuperado.consultar(PRODUCTO).getReservado()).isEqualTo(2);
+        recuperado.reservar(PRODUCTO, 4);
+
+        assertThat(iniciar(Duration.ofMinutes(15)).consultar(PRODUCTO).getReservado()).isEqualTo(6);
+    }
+
+    @Test
+    void rechazaConfirmarOLiberarReservasDesconocidasOTerminadas() throws IOException {
+        InventarioServiceImpl servicio = iniciar(Duration.ofMinutes(15));
+        ReservaInventario reserva = servicio.reservar(PRODUCTO, 2);
+        servicio.confirmar(reserva.getReservaId());
+
+        assertThatThrownBy(() -> servicio.confirmar("desconocida")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> servicio.liberar("desconocida")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> servicio.confirmar(reserva.getReservaId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> servicio.liberar(reserva.getReservaId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(servicio.consultar(PRODUCTO).getPendientePersistir()).isEqualTo(2);
+    }
+
+    @Test
+    void noConfirmaReservasVencidasYLasLiberaAlVencer() throws IOException {
+        InventarioServiceImpl servicio = iniciar(Duration.ofMillis(-1));
+        ReservaInventario reserva = servicio.reservar(PRODUCTO, 4);
+
+        assertThatThrownBy(() -> servicio.confirmar(reserva.getReservaId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("venció");
+
+        servicio.vencerReservas();
+        assertThat(servicio.consultar(PRODUCTO).getDisponible()).isEqualTo(10);
+        assertThatThrownBy(() -> servicio.liberar(reserva.getReservaId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(iniciar(Duration.ofMinutes(15)).consultar(PRODUCTO).getReservado()).isZero();
+    }
+
+    private InventarioServiceImpl iniciar(Duration ttlReserva) throws IOException {
+        InventarioServiceImpl servicio = new InventarioServiceImpl(productoRepository, productoJdbcRepository,
+                puntoControlRepository, new ProductoCache(100, Duration.ofMinutes(5)),
+                new ConsultasEnCurso(Duration.ofSeconds(2)), mock(CatalogoPrecomprimido.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(servicio, "rutaDiario", rutaDiario().toString());
+        ReflectionTestUtils.setField(servicio, "ttlReserva", ttlReserva);
+        ReflectionTestUtils.setField(servicio, "tamanoCompactacion", DataSize.ofMegabytes(64));
+        servicio.recuperar();
+        return servicio;
+    }
+
+    private Path rutaDiario() {
+        return directorio.resolve("inventario.diario");
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.Productos.service.impl;
+
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.FiltroCodigos;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.EscrituraDiferidaProductos;
+import com.example.Productos.outbox.BandejaSalidaProductos;
+import com.example.Productos.repository.EventoProductoJdbcRepository;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.ProductoFiltroRepository;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.repository.ProductoProyeccionRepository;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import com.example.Productos.service.InventarioService;
+import com.example.Productos.validator.ProductoValidador;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Actualizaciones diferidas registradas entre escribirSiPendiente y la confirmación de un cambio síncrono;
+ * la actualización concurrente se simula al guardar o borrar la fila, ya dentro de la transacción
+ */
+class ProductoServiceImplEscrituraDiferidaTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final Producto fila = producto("TEC-1", "Teclado", 5, true, 3L);
+
+    private Path rutaDiario;
+    private EscrituraDiferidaProductos escrituraDiferida;
+    private ProductoServiceImpl servicio;
+
+    @BeforeEach
+    void preparar(@TempDir Path directorio) {
+        rutaDiario = directorio.resolve("actualizaciones.diario");
+        ProductoCache productoCache = new ProductoCache(100, Duration.ofMinutes(5));
+        ConsultasEnCurso consultasEnCurso = new ConsultasEnCurso(Duration.ofSeconds(2));
+        BandejaSalidaProductos bandejaSalida = new BandejaSalidaProductos(mock(EventoProductoRepository.class),
+                mock(EventoProductoJdbcRepository.class), JsonMapper.builder().build());
+
+        escrituraDiferida = new EscrituraDiferidaProductos(mock(ProductoJdbcRepository.class), bandejaSalida,
+                productoCache, consultasEnCurso, mock(IndiceBusquedaProductos.class),
+                mock(CatalogoPrecomprimido.class), mock(PlatformTransactionManager.class),
+                JsonMapper.builder().build());
+        ReflectionTestUtils.setField(escrituraDiferida, "habilitada", true);
+        ReflectionTestUtils.setField(escrituraDiferida, "rutaDiario", rutaDiario.toString());
+        ReflectionTestUtils.invokeMethod(escrituraDiferida, "recuperar");
+
+        String url = "jdbc:h2:mem:productos" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        servicio = new ProductoServiceImpl(productoRepository, mock(ProductoJdbcRepository.class),
+                mock(ProductoProyeccionRepository.class), mock(ProductoFiltroRepository.class),
+                mock(EntityManager.class), productoCache, mock(IndiceBusquedaProductos.class),
+                new ProductoValidador(), mock(InventarioService.class), bandejaSalida,
+                mock(EventoProductoRepository.class), mock(CatalogoPrecomprimido.class), consultasEnCurso,
+                mock(FiltroCodigos.class), escrituraDiferida,
+                new DataSourceTransactionManager(new DriverManagerDataSource(url, "sa", "")));
+        servicio.inicializar();
+
+        when(productoRepository.findById(1L)).thenAnswer(invocacion -> Optional.of(copiar(fila)));
+        when(productoRepository.saveAndFlush(any(Producto.class))).thenAnswer(invocacion -> {
+            registrarConcurrente();
+            Producto guardado = invocacion.getArgument(0);
+            guardado.setVersion(guardado.getVersion() + 1);
+            return guardado;
+        });
+    }
+
+    @Test
+    void unaActualizacionDiferidaConcurrenteNoReactivaUnProductoDesactivado() throws Exception {
+        servicio.eliminarProducto(1L);
+
+        Producto leido = servicio.obtenerProductoPorId(1L).orElseThrow();
+        assertThat(leido.getActivo()).isFalse();
+        assertThat(leido.getNombre()).isEqualTo("Teclado mecánico");
+        // Confirmada con la versión 4; la escritura diferida la llevará a 5
+        assertThat(leido.getVersion()).isEqualTo(5L);
+        // Al recuperar el diario tampoco vuelve a aparecer activo
+        assertThat(Files.readString(rutaDiario)).contains("\"activo\":false").doesNotContain("\"activo\":true");
+    }
+
+    @Test
+    void unaActualizacionDiferidaConcurrenteConservaCodigoYCantidadDelCambioSincrono() {
+        servicio.actualizarProducto(1L, producto("TEC-2", "Teclado", 9, true, null));
+
+        Producto leido = servicio.obtenerProductoPorCodigo("TEC-2").orElseThrow();
+        assertThat(leido.getCantidad()).isEqualTo(9);
+        assertThat(leido.getNombre()).isEqualTo("Teclado mecánico");
+        assertThat(escrituraDiferida.obtenerPorCodigo("TEC-1")).isEmpty();
+    }
+
+    @Test
+    void unaActualizacionDiferidaConcurrenteSeDescartaConElBorradoPermanente() {
+        doAnswer(invocacion -> {
+            registrarConcurrente();
+            return null;
+        }).when(productoRepository).delete(any(Producto.class));
+
+        servicio.eliminarProductoPermanentemente(1L);
+
+        assertThat(escrituraDiferida.obtener(1L)).isEmpty();
+        assertThat(escrituraDiferida.obtenerPorCodigo("TEC-1")).isEmpty();
+        assertThat(escrituraDiferida.hayPendientes()).isFalse();
+    }
+
+    /**
+     * Otra solicitud leyó la fila antes del cambio síncrono y registra un cambio de nombre
+     */
+    private void registrarConcurrente() {
+        Producto cambios = copiar(fila);
+        cambios.setNombre("Teclado mecánico");
+        escrituraDiferida.registrar(copiar(fila), cambios);
+    }
+
+    private static Producto producto(String codigo, String nombre, int cantidad, boolean activo, Long version) {
+        return new Producto(1L, codigo, nombre, "Descripción", 10.0, cantidad, null, activo, 100L, 100L, version);
+    }
+
+    private static Producto copiar(Producto producto) {
+        return new Producto(producto.getId(), producto.getCodigo(), producto.getNombre(), producto.getDescripcion(),
+                producto.getPrecio(), producto.getCantidad(), producto.getImg(), producto.getActivo(),
+                producto.getFechaCreacion(), producto.getFechaActualizacion(), producto.getVersion());
+    }
+}
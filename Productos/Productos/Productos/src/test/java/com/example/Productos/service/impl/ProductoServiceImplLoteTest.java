@@ -0,0 +1,186 @@
+package com.example.Productos.service.impl;
+
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.FiltroCodigos;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.dto.ResultadoLote;
+import com.example.Productos.dto.ResultadoLote.EstadoFila;
+import com.example.Productos.dto.ResultadoLote.ResultadoFila;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.EscrituraDiferidaProductos;
+import com.example.Productos.outbox.BandejaSalidaProductos;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.ProductoFiltroRepository;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.repository.ProductoProyeccionRepository;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import com.example.Productos.service.InventarioService;
+import com.example.Productos.validator.ProductoValidador;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Carga masiva con el repositorio JDBC real sobre H2; la consulta de códigos existentes se simula con JDBC
+ */
+class ProductoServiceImplLoteTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final BandejaSalidaProductos bandejaSalida = mock(BandejaSalidaProductos.class);
+
+    private JdbcTemplate jdbc;
+    private ProductoServiceImpl servicio;
+
+    @BeforeEach
+    void preparar() {
+        DataSource dataSource = crearBase();
+        jdbc = new JdbcTemplate(dataSource);
+        ProductoJdbcRepository productoJdbcRepository =
+                new ProductoJdbcRepository(new NamedParameterJdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(productoJdbcRepository, "tamanoBatch", 2);
+        when(productoRepository.findAllByCodigoIn(anyCollection())).thenAnswer(invocacion -> {
+            Collection<String> codigos = invocacion.getArgument(0);
+            return codigos.stream().flatMap(codigo -> jdbc.query(
+                    "select id, codigo, fecha_creacion, version from productos where codigo = ?",
+                    (fila, numero) -> existente(fila.getLong("id"), fila.getString("codigo"),
+                            fila.getLong("fecha_creacion"), fila.getLong("version")), codigo).stream()).toList();
+        });
+
+        servicio = new ProductoServiceImpl(productoRepository, productoJdbcRepository,
+                mock(ProductoProyeccionRepository.class), mock(ProductoFiltroRepository.class),
+                mock(EntityManager.class), new ProductoCache(100, Duration.ofMinutes(5)),
+                mock(IndiceBusquedaProductos.class), new ProductoValidador(), mock(InventarioService.class),
+                bandejaSalida, mock(EventoProductoRepository.class), mock(CatalogoPrecomprimido.class),
+                new ConsultasEnCurso(Duration.ofSeconds(2)), mock(FiltroCodigos.class),
+                mock(EscrituraDiferidaProductos.class), new DataSourceTransactionManager(dataSource));
+        servicio.inicializar();
+    }
+
+    @Test
+    void creaActualizaYRechazaCadaFilaPorSeparado() {
+        jdbc.update("insert into productos (codigo, nombre, precio, cantidad, activo, fecha_creacion, version) "
+                + "values ('EXI-1', 'Existente', 1.0, 1, true, 500, 2)");
+        Long idExistente = jdbc.queryForObject("select id from productos where codigo = 'EXI-1'", Long.class);
+
+        ResultadoLote resultado = servicio.guardarProductosEnLote(new ArrayList<>(List.of(
+                producto("NUE-1", "Nuevo uno"),
+                producto("EXI-1", "Existente cambiado"),
+                producto("NUE-1", "Repetido en el lote"),
+                producto("NUE-2", "ab"),
+                producto("NUE-3", "Nuevo tres"))));
+
+        assertThat(resultado.getCreados()).isEqualTo(2);
+        assertThat(resultado.getActualizados()).isEqualTo(1);
+        assertThat(resultado.getErrores()).isEqualTo(2);
+        assertThat(resultado.getResultados()).extracting(ResultadoFila::getIndice, ResultadoFila::getEstado)
+                .containsExactly(tuple(0, EstadoFila.CREADO), tuple(1, EstadoFila.ACTUALIZADO),
+                        tuple(2, EstadoFila.ERROR), tuple(3, EstadoFila.ERROR), tuple(4, EstadoFila.CREADO));
+        assertThat(resultado.getResultados().get(2).getMensaje()).contains("Código repetido en el lote");
+        assertThat(resultado.getResultados().get(1).getId()).isEqualTo(idExistente);
+
+        assertThat(jdbc.queryForList("select codigo from productos order by codigo", String.class))
+                .containsExactly("EXI-1", "NUE-1", "NUE-3");
+        assertThat(jdbc.queryForMap("select nombre, version, fecha_creacion from productos where id = ?",
+                idExistente)).containsEntry("NOMBRE", "Existente cambiado")
+                .containsEntry("VERSION", 3L)
+                .containsEntry("FECHA_CREACION", 500L);
+        assertThat(jdbc.queryForObject("select nombre from productos where codigo = 'NUE-1'", String.class))
+                .isEqualTo("Nuevo uno");
+        verify(bandejaSalida).registrarLote(argThat(eventos -> eventos.size() == 3));
+    }
+
+    @Test
+    void unCodigoInsertadoPorOtraEscrituraRevierteTodoElLote() {
+        // La consulta de existentes no lo ve: otra escritura lo insertó justo después
+        when(productoRepository.findAllByCodigoIn(anyCollection())).thenReturn(List.of());
+        jdbc.update("insert into productos (codigo, nombre, precio, cantidad, activo, fecha_creacion, version) "
+                + "values ('CON-1', 'Concurrente', 1.0, 1, true, 500, 0)");
+
+        assertThatThrownBy(() -> servicio.guardarProductosEnLote(new ArrayList<>(List.of(
+                producto("NUE-1", "Nuevo uno"),
+                producto("NUE-2", "Nuevo dos"),
+                producto("CON-1", "Duplicado")))))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(jdbc.queryForList("select codigo from productos", String.class)).containsExactly("CON-1");
+        verify(bandejaSalida, never()).registrarLote(any());
+    }
+
+    @Test
+    void rechazaLotesVaciosOExcesivos() {
+        assertThatThrownBy(() -> servicio.guardarProductosEnLote(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> servicio.guardarProductosEnLote(null))
+                .isInstanceOf(IllegalArgumentException.class);
+        List<Producto> excesivo = new ArrayList<>();
+        for (int i = 0; i < 5001; i++) {
+            excesivo.add(producto("P-" + i, "Producto " + i));
+        }
+        assertThatThrownBy(() -> servicio.guardarProductosEnLote(excesivo))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Producto producto(String codigo, String nombre) {
+        Producto producto = new Producto();
+        producto.setCodigo(codigo);
+        producto.setNombre(nombre);
+        producto.setPrecio(10.0);
+        producto.setCantidad(5);
+        return producto;
+    }
+
+    private static Producto existente(Long id, String codigo, Long fechaCreacion, Long version) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setCodigo(codigo);
+        producto.setFechaCreacion(fechaCreacion);
+        producto.setVersion(version);
+        return producto;
+    }
+
+    private static DataSource crearBase() {
+        String url = "jdbc:h2:mem:productos" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        new JdbcTemplate(dataSource).execute("""
+                create table productos (
+                    id bigint auto_increment primary key,
+                    codigo varchar(255) not null unique,
+                    nombre varchar(255) not null,
+                    descripcion varchar(4000),
+                    precio double not null,
+                    cantidad int not null,
+                    img varchar(255),
+                    activo boolean,
+                    fecha_creacion bigint not null,
+                    fecha_actualizacion bigint,
+                    version bigint not null default 0
+                )
+                """);
+        return dataSource;
+    }
+}
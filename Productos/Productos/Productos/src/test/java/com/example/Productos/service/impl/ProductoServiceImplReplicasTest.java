@@ -0,0 +1,155 @@
+package com.example.Productos.service.impl;
+
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.FiltroCodigos;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.config.EnrutadorLecturas;
+import com.example.Productos.config.LecturaPropiasEscrituras;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.EscrituraDiferidaProductos;
+import com.example.Productos.outbox.BandejaSalidaProductos;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.ProductoFiltroRepository;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.repository.ProductoProyeccionRepository;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import com.example.Productos.search.IndiceBusquedaProductos.ResultadoBusqueda;
+import com.example.Productos.service.InventarioService;
+import com.example.Productos.validator.ProductoValidador;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lecturas con una réplica atrasada: el primario ya tiene el nombre nuevo y la réplica todavía el anterior
+ */
+class ProductoServiceImplReplicasTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final IndiceBusquedaProductos indiceBusqueda = mock(IndiceBusquedaProductos.class);
+    private final EscrituraDiferidaProductos escrituraDiferida = mock(EscrituraDiferidaProductos.class);
+    private final ProductoCache productoCache = new ProductoCache(100, Duration.ofMinutes(5));
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate lectura;
+    private ProductoServiceImpl servicio;
+
+    @BeforeEach
+    void preparar() {
+        DataSource primario = crearBase("Nuevo");
+        DataSource replica = crearBase("Viejo");
+        EnrutadorLecturas enrutador = new EnrutadorLecturas(primario, Map.of("replica-0", replica),
+                Duration.ofSeconds(5), "", "");
+        enrutador.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primario);
+        dataSource.setReadOnlyDataSource(enrutador);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManager.addListener(new LecturaPropiasEscrituras(Duration.ofSeconds(5)));
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        // El repositorio lee con la conexión de la transacción en curso, como lo haría JPA
+        when(productoRepository.findById(anyLong())).thenAnswer(invocacion -> leer(invocacion.getArgument(0)));
+        when(productoRepository.findByCodigo(anyString())).thenAnswer(invocacion -> leer(1L));
+        when(productoRepository.findAllById(any())).thenAnswer(invocacion -> {
+            Collection<Long> ids = invocacion.getArgument(0);
+            return ids.stream().map(this::leer).flatMap(Optional::stream).toList();
+        });
+        when(escrituraDiferida.superponer(anyMap())).thenAnswer(invocacion -> invocacion.getArgument(0));
+        when(escrituraDiferida.superponer(anyList())).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        servicio = new ProductoServiceImpl(productoRepository, mock(ProductoJdbcRepository.class),
+                mock(ProductoProyeccionRepository.class), mock(ProductoFiltroRepository.class),
+                mock(EntityManager.class), productoCache, indiceBusqueda, new ProductoValidador(),
+                mock(InventarioService.class), mock(BandejaSalidaProductos.class),
+                mock(EventoProductoRepository.class), mock(CatalogoPrecomprimido.class),
+                new ConsultasEnCurso(Duration.ofSeconds(2)), mock(FiltroCodigos.class), escrituraDiferida,
+                transactionManager);
+        servicio.inicializar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        LecturaPropiasEscrituras.limpiar();
+    }
+
+    @Test
+    void llenaLaCachePorIdDesdeElPrimario() {
+        assertThat(servicio.obtenerProductoPorId(1L)).map(Producto::getNombre).contains("Nuevo");
+        assertThat(productoCache.buscarPorId(1L)).map(Producto::getNombre).contains("Nuevo");
+    }
+
+    @Test
+    void llenaLaCachePorCodigoDesdeElPrimario() {
+        assertThat(servicio.obtenerProductoPorCodigo("A-1")).map(Producto::getNombre).contains("Nuevo");
+        assertThat(productoCache.buscarPorCodigo("A-1")).map(Producto::getNombre).contains("Nuevo");
+    }
+
+    @Test
+    void cargarLaCacheNoDesviaLasLecturasSiguientesAlPrimario() {
+        servicio.obtenerProductoPorId(1L);
+
+        String nombre = lectura.execute(estado -> jdbc.queryForObject(
+                "select nombre from productos where id = 1", String.class));
+        assertThat(nombre).isEqualTo("Viejo");
+    }
+
+    @Test
+    void laBusquedaDesdeUnaReplicaNoLlenaLaCache() {
+        when(indiceBusqueda.estaListo()).thenReturn(true);
+        when(indiceBusqueda.buscar(eq("producto"), anyInt(), anyInt()))
+                .thenReturn(new ResultadoBusqueda(List.of(1L), 1));
+
+        assertThat(servicio.buscarProductos("producto", 0, 10).getProductos())
+                .extracting(Producto::getNombre)
+                .containsExactly("Viejo");
+        assertThat(productoCache.buscarPorId(1L)).isEmpty();
+    }
+
+    private Optional<Producto> leer(Long id) {
+        return jdbc.query("select id, codigo, nombre from productos where id = ?", (fila, numero) -> {
+            Producto producto = new Producto();
+            producto.setId(fila.getLong("id"));
+            producto.setCodigo(fila.getString("codigo"));
+            producto.setNombre(fila.getString("nombre"));
+            return producto;
+        }, id).stream().findFirst();
+    }
+
+    private static DataSource crearBase(String nombre) {
+        String url = "jdbc:h2:mem:productos" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table productos (id bigint primary key, codigo varchar(255), nombre varchar(255))");
+        jdbc.update("insert into productos values (1, 'A-1', ?)", nombre);
+        return dataSource;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.Productos.service.impl;
+
+import com.example.Productos.cache.ConsultasEnCurso;
+import com.example.Productos.cache.FiltroCodigos;
+import com.example.Productos.cache.ProductoCache;
+import com.example.Productos.catalogo.CatalogoPrecomprimido;
+import com.example.Productos.dto.PaginaSincronizacion;
+import com.example.Productos.entity.Producto;
+import com.example.Productos.escritura.EscrituraDiferidaProductos;
+import com.example.Productos.outbox.BandejaSalidaProductos;
+import com.example.Productos.repository.EventoProductoRepository;
+import com.example.Productos.repository.ProductoFiltroRepository;
+import com.example.Productos.repository.ProductoJdbcRepository;
+import com.example.Productos.repository.ProductoProyeccionRepository;
+import com.example.Productos.repository.ProductoRepository;
+import com.example.Productos.search.IndiceBusquedaProductos;
+import com.example.Productos.service.InventarioService;
+import com.example.Productos.validator.ProductoValidador;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sincronización incremental sobre H2; findCambiadosDespuesDe se simula con el mismo predicado que su JPQL
+ */
+class ProductoServiceImplSincronizacionTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+
+    private JdbcTemplate jdbc;
+    private ProductoServiceImpl servicio;
+
+    @BeforeEach
+    void preparar() {
+        jdbc = new JdbcTemplate(crearBase());
+        when(productoRepository.findCambiadosDespuesDe(anyLong(), anyLong(), anyLong(), any(Limit.class)))
+                .thenAnswer(invocacion -> {
+                    Limit limite = invocacion.getArgument(3);
+                    return jdbc.query("""
+                                    select id, fecha_actualizacion from productos
+                                     where fecha_actualizacion <= ?
+                                       and (fecha_actualizacion > ? or (fecha_actualizacion = ? and id > ?))
+                                     order by fecha_actualizacion asc, id asc
+                                     limit ?
+                                    """,
+                            (fila, numero) -> producto(fila.getLong("id"), fila.getLong("fecha_actualizacion")),
+                            invocacion.getArgument(2), invocacion.getArgument(0), invocacion.getArgument(0),
+                            invocacion.getArgument(1), limite.max());
+                });
+
+        servicio = new ProductoServiceImpl(productoRepository, mock(ProductoJdbcRepository.class),
+                mock(ProductoProyeccionRepository.class), mock(ProductoFiltroRepository.class),
+                mock(EntityManager.class), new ProductoCache(100, Duration.ofMinutes(5)),
+                mock(IndiceBusquedaProductos.class), new ProductoValidador(), mock(InventarioService.class),
+                mock(BandejaSalidaProductos.class), mock(EventoProductoRepository.class),
+                mock(CatalogoPrecomprimido.class), new ConsultasEnCurso(Duration.ofSeconds(2)),
+                mock(FiltroCodigos.class), mock(EscrituraDiferidaProductos.class),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(servicio, "margenSincronizacion", Duration.ofSeconds(5));
+        servicio.inicializar();
+    }
+
+    @Test
+    void lasFilasConLaMismaFechaNoSeSaltanNiSeRepitenEntrePaginas() {
+        for (long id = 1; id <= 5; id++) {
+            insertar(id, 1000L);
+        }
+        insertar(6L, 2000L);
+
+        List<Long> ids = sincronizar(999L, 2);
+
+        // Las páginas cortan en medio de las cinco filas con fecha 1000
+        assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void elRangoExcluyeDesdeEIncluyeLaMarcaDeAgua() {
+        insertar(1L, 1000L);
+        insertar(2L, 1001L);
+        insertar(3L, 1500L);
+
+        PaginaSincronizacion pagina = servicio.obtenerProductosModificadosDesde(1000L, 1500L, null, 10);
+
+        // La fila con fecha 1000 ya la entregó la sincronización anterior, que terminó con esa marca
+        assertThat(pagina.getProductos()).extracting(Producto::getId).containsExactly(2L, 3L);
+        assertThat(pagina.getMarcaAgua()).isEqualTo(1500L);
+        assertThat(pagina.isHayMas()).isFalse();
+        assertThat(pagina.getSiguienteCursor()).isNull();
+    }
+
+    @Test
+    void unCambioDuranteElPaginadoLlegaEnLaSiguienteSincronizacion() {
+        insertar(1L, 1000L);
+        insertar(2L, 1000L);
+        insertar(3L, 1000L);
+
+        PaginaSincronizacion primera = servicio.obtenerProductosModificadosDesde(999L, null, null, 2);
+        Long marcaAgua = primera.getMarcaAgua();
+        // El producto 1 ya entregado se modifica antes de pedir la segunda página
+        jdbc.update("update productos set fecha_actualizacion = ? where id = 1", marcaAgua + 1);
+        PaginaSincronizacion segunda = servicio.obtenerProductosModificadosDesde(999L, marcaAgua,
+                primera.getSiguienteCursor(), 2);
+
+        assertThat(primera.getProductos()).extracting(Producto::getId).containsExactly(1L, 2L);
+        assertThat(segunda.getProductos()).extracting(Producto::getId).containsExactly(3L);
+        assertThat(segunda.getMarcaAgua()).isEqualTo(marcaAgua);
+
+        // Pasado el margen, la siguiente sincronización parte de la marca de agua y lo recoge
+        ReflectionTestUtils.setField(servicio, "margenSincronizacion", Duration.ofMillis(-10));
+        assertThat(sincronizar(marcaAgua, 2)).containsExactly(1L);
+    }
+
+    @Test
+    void laMarcaDeAguaQuedaPorDetrasDelRelojElMargenConfigurado() {
+        long ahora = System.currentTimeMillis();
+        insertar(1L, ahora - 60_000);
+        insertar(2L, ahora - 1_000);
+
+        PaginaSincronizacion pagina = servicio.obtenerProductosModificadosDesde(0L, Long.MAX_VALUE, null, 10);
+        long despues = System.currentTimeMillis();
+
+        // La fila reciente podría tener todavía transacciones concurrentes con la misma fecha sin confirmar
+        assertThat(pagina.getProductos()).extracting(Producto::getId).containsExactly(1L);
+        assertThat(pagina.getMarcaAgua()).isBetween(ahora - 5_000, despues - 5_000);
+        assertThat(servicio.obtenerProductosModificadosDesde(pagina.getMarcaAgua(), null, null, 10).getProductos())
+                .isEmpty();
+    }
+
+    @Test
+    void rechazaCursoresYTimestampsInvalidos() {
+        assertThatThrownBy(() -> servicio.obtenerProductosModificadosDesde(0L, 1000L, "1000", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> servicio.obtenerProductosModificadosDesde(0L, 1000L, "a:1", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> servicio.obtenerProductosModificadosDesde(-1L, null, null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Long> sincronizar(Long desde, int limite) {
+        List<Long> ids = new ArrayList<>();
+        Long marcaAgua = null;
+        String cursor = null;
+        do {
+            PaginaSincronizacion pagina = servicio.obtenerProductosModificadosDesde(desde, marcaAgua, cursor, limite);
+            pagina.getProductos().forEach(producto -> ids.add(producto.getId()));
+            marcaAgua = pagina.getMarcaAgua();
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private void insertar(Long id, Long fechaActualizacion) {
+        jdbc.update("insert into productos (id, fecha_actualizacion) values (?, ?)", id, fechaActualizacion);
+    }
+
+    private static Producto producto(Long id, Long fechaActualizacion) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setCodigo("P-" + id);
+        producto.setFechaActualizacion(fechaActualizacion);
+        return producto;
+    }
+
+    private static DriverManagerDataSource crearBase() {
+        String url = "jdbc:h2:mem:sincronizacion" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        new JdbcTemplate(dataSource).execute("""
+                create table productos (
+                    id bigint primary key,
+                    fecha_actualizacion bigint not null
+                )
+                """);
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.Productos.validator;
+
+import com.example.Productos.entity.Producto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductoValidadorTest {
+
+    private final ProductoValidador validador = new ProductoValidador();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ABC", "abc-123_X", "  PROD-001  ", "12345678901234567890"})
+    void aceptaCodigosValidos(String codigo) {
+        assertThatCode(() -> validador.validarCodigo(codigo)).doesNotThrowAnyException();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AB", "  AB  ", "123456789012345678901"})
+    void rechazaCodigosConLongitudInvalida(String codigo) {
+        assertThatThrownBy(() -> validador.validarCodigo(codigo))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El código debe tener entre 3 y 20 caracteres");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"PROD 01", "PRÓD-01", "PROD.01", "PROD/01"})
+    void rechazaCodigosConCaracteresInvalidos(String codigo) {
+        assertThatThrownBy(() -> validador.validarCodigo(codigo))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El código solo puede contener letras, números, guiones y guiones bajos");
+    }
+
+    @Test
+    void rechazaCodigoVacio() {
+        assertThatThrownBy(() -> validador.validarCodigo("   "))
+                .hasMessage("El código del producto no puede estar vacío");
+        assertThatThrownBy(() -> validador.validarCodigo(null))
+                .hasMessage("El código del producto no puede estar vacío");
+    }
+
+    @Test
+    void validaNombreSinEspaciosExteriores() {
+        assertThatCode(() -> validador.validarNombre("  Mesa  ")).doesNotThrowAnyException();
+        assertThatThrownBy(() -> validador.validarNombre("  ab  "))
+                .hasMessage("El nombre debe tener entre 3 y 100 caracteres");
+    }
+
+    @Test
+    void validaProductoParaActualizacion() {
+        Producto producto = new Producto();
+        producto.setCodigo("PROD-001");
+        producto.setNombre("Mesa");
+        producto.setPrecio(0.0);
+        producto.setCantidad(1);
+
+        assertThatThrownBy(() -> validador.validarParaActualizacion(producto))
+                .hasMessage("El precio debe ser mayor a 0.01");
+    }
+}